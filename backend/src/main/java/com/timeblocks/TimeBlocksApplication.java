@@ -2,11 +2,12 @@ package com.timeblocks;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class TimeBlocksApplication {
     public static void main(String[] args) {
         SpringApplication.run(TimeBlocksApplication.class, args);
     }
 }
-
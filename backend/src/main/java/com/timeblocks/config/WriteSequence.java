@@ -0,0 +1,24 @@
+package com.timeblocks.config;
+
+import com.timeblocks.service.ChangeFeedService;
+import org.springframework.stereotype.Component;
+
+/**
+ * Validator for conditional GETs on window endpoints, derived from the change_log the write
+ * triggers feed ({@link ChangeFeedService#version()}). Every node reads the same log, so a
+ * window's ETag stays the same exactly as long as no committed write could have changed it,
+ * whichever instance served the write. Costs one change_log lookup per conditional GET.
+ */
+@Component
+public class WriteSequence {
+    private final ChangeFeedService changes;
+
+    public WriteSequence(ChangeFeedService changes) {
+        this.changes = changes;
+    }
+
+    /** Strong ETag for one representation ({@code variant}) of a resource at the current log position. */
+    public String etag(String variant) {
+        return "\"" + changes.version() + "-" + variant + "\"";
+    }
+}
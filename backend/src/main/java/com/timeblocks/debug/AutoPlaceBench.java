@@ -0,0 +1,73 @@
+package com.timeblocks.debug;
+
+import com.timeblocks.service.AutoPlacer;
+import com.timeblocks.service.BusyBitmap;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Timing check for the auto-placer: {@code tasks} synthetic tasks (15-120 min, every tenth pinned
+ * to a date) packed into {@code days} days that already hold {@code busyPerDay} random blocks.
+ * Uses the default constraints and a fixed seed, so runs are comparable. Only registered under
+ * the dev profile; every parameter is clamped.
+ */
+@Profile("dev")
+@RestController
+@RequestMapping("/api/debug/bench")
+public class AutoPlaceBench {
+  private static final long MINUTE_MS = 60_000L;
+  private static final long DAY_MS = 24 * 60 * MINUTE_MS;
+
+  @GetMapping("/auto-place")
+  public Map<String, Object> run(@RequestParam(defaultValue = "300") int tasks,
+                                 @RequestParam(defaultValue = "30") int days,
+                                 @RequestParam(defaultValue = "4") int busyPerDay,
+                                 @RequestParam(defaultValue = "5") int rounds) {
+    final int n = Math.max(1, Math.min(tasks, 100_000));
+    final int d = Math.max(1, Math.min(days, 3660));
+    final int b = Math.max(0, Math.min(busyPerDay, 96));
+    Random rnd = new Random(42);
+    LocalDate day0 = LocalDate.of(2025, 1, 6);
+    long from = day0.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    long to = from + d * DAY_MS;
+
+    List<BusyBitmap.Range> busy = new ArrayList<>();
+    for (int i = 0; i < d; i++) {
+      long midnight = from + i * DAY_MS;
+      for (int k = 0; k < b; k++) {
+        long start = midnight + (8 * 60 + rnd.nextInt(10 * 60)) * MINUTE_MS;
+        busy.add(new BusyBitmap.Range(start, start + (15 + rnd.nextInt(90)) * MINUTE_MS));
+      }
+    }
+    busy.sort(Comparator.comparingLong(BusyBitmap.Range::start));
+
+    List<AutoPlacer.Item> items = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      LocalDate pin = i % 10 == 0 ? day0.plusDays(rnd.nextInt(d)) : null;
+      items.add(new AutoPlacer.Item(String.valueOf(i), 15 + 15 * rnd.nextInt(8), pin));
+    }
+
+    // first round warms up; the best and median of the rest are reported
+    long[] nanos = new long[Math.max(1, Math.min(rounds, 20))];
+    AutoPlacer.Result result = null;
+    for (int r = 0; r <= nanos.length; r++) {
+      long t0 = System.nanoTime();
+      result = AutoPlacer.place(items, from, to, AutoPlacer.Constraints.DEFAULTS, busy);
+      if (r > 0) nanos[r - 1] = System.nanoTime() - t0;
+    }
+    Arrays.sort(nanos);
+    Map<String, Object> out = new LinkedHashMap<>();
+    out.put("tasks", n);
+    out.put("days", d);
+    out.put("busyBlocks", busy.size());
+    out.put("placed", result.placed().size());
+    out.put("unplaced", result.unplaced().size());
+    out.put("bestMs", nanos[0] / 1e6);
+    out.put("medianMs", nanos[nanos.length / 2] / 1e6);
+    return out;
+  }
+}
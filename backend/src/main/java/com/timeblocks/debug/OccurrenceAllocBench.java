@@ -0,0 +1,104 @@
+package com.timeblocks.debug;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.timeblocks.model.Schedule;
+import com.timeblocks.model.Task;
+import com.timeblocks.service.ScheduleOccurrence;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+/**
+ * Before/after allocation check for the /api/schedules payload: the old per-occurrence
+ * HashMap (boxed sort keys) against the {@link ScheduleOccurrence} record and its serializer.
+ * Both sides build, sort and serialize {@code n} synthetic occurrences to a null stream.
+ * Only registered under the dev profile; {@code count} and {@code rounds} are clamped.
+ */
+@Profile("dev")
+@RestController
+@RequestMapping("/api/debug/bench")
+public class OccurrenceAllocBench {
+  private static final long HOUR_MS = 60L * 60 * 1000;
+  private final ObjectMapper mapper;
+
+  public OccurrenceAllocBench(ObjectMapper mapper) {
+    this.mapper = mapper;
+  }
+
+  @GetMapping("/occurrence-alloc")
+  public Map<String, Object> run(@RequestParam(defaultValue = "100000") int count,
+                                 @RequestParam(defaultValue = "3") int rounds) throws Exception {
+    final int n = Math.max(1, Math.min(count, 2_000_000));
+    final int rs = Math.max(1, Math.min(rounds, 20));
+    Schedule s = new Schedule();
+    s.setId("bench");
+    s.setTaskId("1");
+    s.setTimezone("UTC");
+    s.setStartTsUtc(0L);
+    s.setEndTsUtc(HOUR_MS);
+    s.setRecurrenceRule("FREQ=DAILY");
+    Task task = new Task();
+    task.setTitle("bench");
+
+    // first round warms up both paths; the best of the rest is reported
+    long mapBytes = Long.MAX_VALUE, recordBytes = Long.MAX_VALUE;
+    for (int r = 0; r <= rs; r++) {
+      long m = measure(() -> legacy(s, task, n));
+      long c = measure(() -> typed(s, task, n));
+      if (r > 0) { mapBytes = Math.min(mapBytes, m); recordBytes = Math.min(recordBytes, c); }
+    }
+    Map<String, Object> out = new LinkedHashMap<>();
+    out.put("occurrences", n);
+    out.put("mapBytesPerOcc", mapBytes / n);
+    out.put("recordBytesPerOcc", recordBytes / n);
+    out.put("reduction", mapBytes == 0 ? 0.0 : 1.0 - (double) recordBytes / mapBytes);
+    return out;
+  }
+
+  private void legacy(Schedule s, Task task, int n) throws Exception {
+    List<Map<String, Object>> out = new ArrayList<>(n);
+    for (int i = n - 1; i >= 0; i--) {
+      long start = i * 24L * HOUR_MS;
+      Map<String, Object> m = new HashMap<>();
+      m.put("id", s.getId());
+      m.put("occId", s.getId() + ":" + start);
+      m.put("taskId", s.getTaskId());
+      m.put("taskTitle", task.getTitle());
+      m.put("laneId", s.getLaneId());
+      m.put("tz", s.getTimezone());
+      m.put("start", start);
+      m.put("end", start + HOUR_MS);
+      m.put("allDay", s.getAllDay());
+      m.put("status", s.getStatus());
+      m.put("isRecurring", true);
+      m.put("baseScheduleMeta", s.getMeta());
+      out.add(m);
+    }
+    out.sort(Comparator.comparing((Map<String, Object> o) -> (Long) o.get("start"))
+        .thenComparing(o -> (Long) o.get("end")));
+    mapper.writeValue(OutputStream.nullOutputStream(), out);
+  }
+
+  private void typed(Schedule s, Task task, int n) throws Exception {
+    List<ScheduleOccurrence> out = new ArrayList<>(n);
+    for (int i = n - 1; i >= 0; i--) {
+      long start = i * 24L * HOUR_MS;
+      out.add(new ScheduleOccurrence(s, task, start, start, start + HOUR_MS, s.getLaneId(), s.getStatus(), false, null));
+    }
+    out.sort(Comparator.comparingLong(ScheduleOccurrence::start).thenComparingLong(ScheduleOccurrence::end));
+    mapper.writeValue(OutputStream.nullOutputStream(), out);
+  }
+
+  private interface Body { void run() throws Exception; }
+
+  private static long measure(Body body) throws Exception {
+    com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long tid = Thread.currentThread().getId();
+    long before = mx.getThreadAllocatedBytes(tid);
+    body.run();
+    return mx.getThreadAllocatedBytes(tid) - before;
+  }
+}
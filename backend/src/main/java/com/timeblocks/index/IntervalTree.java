@@ -0,0 +1,126 @@
+package com.timeblocks.index;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * Augmented interval treap keyed by (start, id); every node carries the max end of its
+ * subtree so overlap queries prune whole branches. put/remove are O(log n) expected and
+ * "what overlaps [from, to]" is O(log n + k). Not thread-safe; callers guard access.
+ */
+public final class IntervalTree {
+    private static final class Node {
+        final String id;
+        final long start;
+        final long end;
+        final int priority;
+        long maxEnd;
+        Node left, right;
+
+        Node(String id, long start, long end, int priority) {
+            this.id = id; this.start = start; this.end = end; this.priority = priority; this.maxEnd = end;
+        }
+    }
+
+    private final Map<String, Node> byId = new HashMap<>();
+    private final SplittableRandom random = new SplittableRandom();
+    private Node root;
+
+    public int size() { return byId.size(); }
+
+    /** Insert or replace the interval stored for {@code id}. */
+    public void put(String id, long start, long end) {
+        remove(id);
+        Node n = new Node(id, start, Math.max(start, end), random.nextInt());
+        root = insert(root, n);
+        byId.put(id, n);
+    }
+
+    public boolean remove(String id) {
+        Node n = byId.remove(id);
+        if (n == null) return false;
+        root = delete(root, n);
+        return true;
+    }
+
+    /** Emits the id of every interval with {@code start <= to && end >= from}. */
+    public void query(long from, long to, Consumer<String> sink) {
+        query(root, from, to, sink);
+    }
+
+    private static void query(Node n, long from, long to, Consumer<String> sink) {
+        while (n != null && n.maxEnd >= from) {
+            query(n.left, from, to, sink);
+            if (n.start > to) return; // everything to the right starts later still
+            if (n.end >= from) sink.accept(n.id);
+            n = n.right;
+        }
+    }
+
+    private static int compare(Node a, Node b) {
+        int c = Long.compare(a.start, b.start);
+        return c != 0 ? c : a.id.compareTo(b.id);
+    }
+
+    private static Node insert(Node t, Node n) {
+        if (t == null) return n;
+        if (compare(n, t) < 0) {
+            t.left = insert(t.left, n);
+            if (t.left.priority > t.priority) t = rotateRight(t);
+        } else {
+            t.right = insert(t.right, n);
+            if (t.right.priority > t.priority) t = rotateLeft(t);
+        }
+        update(t);
+        return t;
+    }
+
+    private static Node delete(Node t, Node n) {
+        if (t == null) return null;
+        if (t == n) return merge(t.left, t.right);
+        if (compare(n, t) < 0) t.left = delete(t.left, n);
+        else t.right = delete(t.right, n);
+        update(t);
+        return t;
+    }
+
+    private static Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private static Node rotateRight(Node t) {
+        Node l = t.left;
+        t.left = l.right;
+        l.right = t;
+        update(t);
+        update(l);
+        return l;
+    }
+
+    private static Node rotateLeft(Node t) {
+        Node r = t.right;
+        t.right = r.left;
+        r.left = t;
+        update(t);
+        update(r);
+        return r;
+    }
+
+    private static void update(Node t) {
+        long m = t.end;
+        if (t.left != null && t.left.maxEnd > m) m = t.left.maxEnd;
+        if (t.right != null && t.right.maxEnd > m) m = t.right.maxEnd;
+        t.maxEnd = m;
+    }
+}
@@ -0,0 +1,166 @@
+package com.timeblocks.index;
+
+import com.timeblocks.model.Event;
+import com.timeblocks.model.Schedule;
+import com.timeblocks.recurrence.SeriesBounds;
+import com.timeblocks.recurrence.ZoneOffsetTable;
+import com.timeblocks.repo.EventRepository;
+import com.timeblocks.repo.ScheduleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process interval index over schedules and events, keyed by the span of the whole
+ * series ([first start, last end], open-ended for unbounded rules). Window reads ask it
+ * for candidate ids instead of running the OR-ed "overlaps or is recurring" query.
+ *
+ * Built from the DB at startup and kept in sync by the write paths; disabled unless
+ * {@code timeblocks.index.interval-tree.enabled} is set.
+ */
+@Component
+public class WindowIndex {
+    private static final Logger log = LoggerFactory.getLogger(WindowIndex.class);
+
+    private final ScheduleRepository schedules;
+    private final EventRepository events;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final IntervalTree scheduleTree = new IntervalTree();
+    private final Map<String, IntervalTree> eventTrees = new HashMap<>();
+    private final Map<String, String> eventCalendar = new HashMap<>();
+
+    @Value("${timeblocks.index.interval-tree.enabled:false}")
+    boolean enabled;
+
+    private volatile boolean ready = false;
+
+    public WindowIndex(ScheduleRepository schedules, EventRepository events) {
+        this.schedules = schedules;
+        this.events = events;
+    }
+
+    /** True when reads may use the index instead of the window queries. */
+    public boolean isActive() {
+        return enabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) return;
+        long t0 = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            for (String id : new ArrayList<>(eventCalendar.keySet())) removeEventLocked(id);
+            List<String> scheduleIds = new ArrayList<>();
+            scheduleTree.query(Long.MIN_VALUE, Long.MAX_VALUE, scheduleIds::add);
+            for (String id : scheduleIds) scheduleTree.remove(id);
+
+            for (Schedule s : schedules.findAll()) putScheduleLocked(s);
+            for (Event e : events.findAll()) putEventLocked(e);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Window index built: {} schedules, {} events in {} ms",
+                scheduleTree.size(), eventCalendar.size(), System.currentTimeMillis() - t0);
+    }
+
+    /** Ids of schedules whose series may overlap [from, to]. */
+    public List<String> scheduleIds(long from, long to) {
+        List<String> out = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            scheduleTree.query(from, to, out::add);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return out;
+    }
+
+    /** Ids of events in {@code calendarId} whose series may overlap [from, to]. */
+    public List<String> eventIds(String calendarId, long from, long to) {
+        List<String> out = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            IntervalTree tree = eventTrees.get(calendarId);
+            if (tree != null) tree.query(from, to, out::add);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return out;
+    }
+
+    public void onScheduleSaved(Schedule s) {
+        if (!enabled || s == null) return;
+        lock.writeLock().lock();
+        try { putScheduleLocked(s); } finally { lock.writeLock().unlock(); }
+    }
+
+    public void onScheduleDeleted(String id) {
+        if (!enabled || id == null) return;
+        lock.writeLock().lock();
+        try { scheduleTree.remove(id); } finally { lock.writeLock().unlock(); }
+    }
+
+    public void onEventSaved(Event e) {
+        if (!enabled || e == null) return;
+        lock.writeLock().lock();
+        try { putEventLocked(e); } finally { lock.writeLock().unlock(); }
+    }
+
+    public void onEventDeleted(String id) {
+        if (!enabled || id == null) return;
+        lock.writeLock().lock();
+        try { removeEventLocked(id); } finally { lock.writeLock().unlock(); }
+    }
+
+    private void putScheduleLocked(Schedule s) {
+        if (s.getId() == null || s.getStartTsUtc() == null || s.getEndTsUtc() == null) return;
+        long start = s.getStartTsUtc();
+        long end = SeriesBounds.seriesEnd(s.getRecurrenceRule(), start, s.getEndTsUtc() - start, ZoneOffsetTable.zoneOrUtc(s.getTimezone()));
+        scheduleTree.put(s.getId(), start, end);
+    }
+
+    private void putEventLocked(Event e) {
+        if (e.getId() == null || e.getCalendarId() == null) return;
+        removeEventLocked(e.getId());
+        long start, end;
+        if (e.getStartMs() != null && e.getEndMs() != null) {
+            start = e.getStartMs();
+            end = e.getEndMs();
+        } else {
+            try {
+                start = Instant.parse(e.getStartUtc()).toEpochMilli();
+                end = Instant.parse(e.getEndUtc()).toEpochMilli();
+            } catch (RuntimeException ex) {
+                log.warn("Window index: skipping event {} with unparsable times", e.getId());
+                return;
+            }
+        }
+        long seriesEnd = SeriesBounds.seriesEnd(e.getRecurrenceRule(), start, end - start, ZoneOffsetTable.zoneOrUtc(e.getTzid()));
+        eventTrees.computeIfAbsent(e.getCalendarId(), k -> new IntervalTree()).put(e.getId(), start, seriesEnd);
+        eventCalendar.put(e.getId(), e.getCalendarId());
+    }
+
+    private void removeEventLocked(String id) {
+        String calendarId = eventCalendar.remove(id);
+        if (calendarId == null) return;
+        IntervalTree tree = eventTrees.get(calendarId);
+        if (tree != null) {
+            tree.remove(id);
+            if (tree.size() == 0) eventTrees.remove(calendarId);
+        }
+    }
+}
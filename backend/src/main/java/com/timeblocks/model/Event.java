@@ -1,7 +1,12 @@
 package com.timeblocks.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.timeblocks.recurrence.SeriesBounds;
+import com.timeblocks.recurrence.ZoneOffsetTable;
 import jakarta.persistence.*;
 
+import java.time.Instant;
+
 @Entity @Table(name="events")
 public class Event {
     @Id private String id;
@@ -18,6 +23,33 @@ public class Event {
     @Column(name="recurrence_rule") private String recurrenceRule;
     @Column(name="created_by", nullable=false) private String createdBy;
     @Column(name="created_at_utc") private String createdAtUtc;
+    // Derived span of the whole series in epoch ms; see computeSeriesBounds()
+    @JsonIgnore @Column(name="series_start_utc") private Long seriesStartUtc;
+    @JsonIgnore @Column(name="series_end_utc") private Long seriesEndUtc;
+    // startUtc/endUtc in epoch ms, for window queries and ordering; not part of the JSON
+    @JsonIgnore @Column(name="start_ms") private Long startMs;
+    @JsonIgnore @Column(name="end_ms") private Long endMs;
+
+    /**
+     * Keeps start_ms/end_ms and series_start_utc/series_end_utc in step with start, end and the RRULE.
+     * Also applied by UpsertRepository, which bypasses JPA callbacks.
+     */
+    @PrePersist @PreUpdate
+    public void computeSeriesBounds() {
+        long start, end;
+        try {
+            start = Instant.parse(startUtc).toEpochMilli();
+            end = Instant.parse(endUtc).toEpochMilli();
+        } catch (RuntimeException e) {
+            startMs = null; endMs = null;
+            seriesStartUtc = null; seriesEndUtc = null;
+            return;
+        }
+        startMs = start;
+        endMs = end;
+        seriesStartUtc = start;
+        seriesEndUtc = SeriesBounds.seriesEnd(recurrenceRule, start, end - start, ZoneOffsetTable.zoneOrUtc(tzid));
+    }
 
     // Getters and Setters
     public String getId() { return id; }
@@ -61,5 +93,17 @@ public class Event {
 
     public String getCreatedAtUtc() { return createdAtUtc; }
     public void setCreatedAtUtc(String createdAtUtc) { this.createdAtUtc = createdAtUtc; }
+
+    public Long getSeriesStartUtc() { return seriesStartUtc; }
+    public void setSeriesStartUtc(Long seriesStartUtc) { this.seriesStartUtc = seriesStartUtc; }
+
+    public Long getSeriesEndUtc() { return seriesEndUtc; }
+    public void setSeriesEndUtc(Long seriesEndUtc) { this.seriesEndUtc = seriesEndUtc; }
+
+    public Long getStartMs() { return startMs; }
+    public void setStartMs(Long startMs) { this.startMs = startMs; }
+
+    public Long getEndMs() { return endMs; }
+    public void setEndMs(Long endMs) { this.endMs = endMs; }
 }
 
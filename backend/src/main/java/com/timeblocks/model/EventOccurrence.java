@@ -1,13 +1,18 @@
 package com.timeblocks.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 @Entity @Table(name="event_occurrences")
 public class EventOccurrence {
     @Id private String id;
     @Column(name="event_id", nullable=false) private String eventId;
+    @Column(name="calendar_id") private String calendarId;
     @Column(name="start_utc", nullable=false) private String startUtc;
     @Column(name="end_utc", nullable=false) private String endUtc;
+    // startUtc/endUtc in epoch ms, for window queries and ordering
+    @JsonIgnore @Column(name="start_ms") private Long startMs;
+    @JsonIgnore @Column(name="end_ms") private Long endMs;
     private String tzid;
     private String status;
     @Column(name="is_exception") private Integer isException = 0;
@@ -20,12 +25,21 @@ public class EventOccurrence {
     public String getEventId() { return eventId; }
     public void setEventId(String eventId) { this.eventId = eventId; }
 
+    public String getCalendarId() { return calendarId; }
+    public void setCalendarId(String calendarId) { this.calendarId = calendarId; }
+
     public String getStartUtc() { return startUtc; }
     public void setStartUtc(String startUtc) { this.startUtc = startUtc; }
 
     public String getEndUtc() { return endUtc; }
     public void setEndUtc(String endUtc) { this.endUtc = endUtc; }
 
+    public Long getStartMs() { return startMs; }
+    public void setStartMs(Long startMs) { this.startMs = startMs; }
+
+    public Long getEndMs() { return endMs; }
+    public void setEndMs(Long endMs) { this.endMs = endMs; }
+
     public String getTzid() { return tzid; }
     public void setTzid(String tzid) { this.tzid = tzid; }
 
@@ -1,5 +1,8 @@
 package com.timeblocks.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.timeblocks.recurrence.SeriesBounds;
+import com.timeblocks.recurrence.ZoneOffsetTable;
 import jakarta.persistence.*;
 
 @Entity
@@ -41,6 +44,28 @@ public class Schedule {
     @Column(name = "updated_at", nullable = false)
     private Long updatedAt;
 
+    // Derived span of the whole series; see computeSeriesBounds()
+    @JsonIgnore
+    @Column(name = "series_start_utc")
+    private Long seriesStartUtc;
+
+    @JsonIgnore
+    @Column(name = "series_end_utc")
+    private Long seriesEndUtc;
+
+    /**
+     * Keeps series_start_utc/series_end_utc in step with start, end and the RRULE.
+     * Also applied by UpsertRepository, which bypasses JPA callbacks.
+     */
+    @PrePersist
+    @PreUpdate
+    public void computeSeriesBounds() {
+        if (startTsUtc == null || endTsUtc == null) return;
+        seriesStartUtc = startTsUtc;
+        seriesEndUtc = SeriesBounds.seriesEnd(recurrenceRule, startTsUtc, endTsUtc - startTsUtc,
+                ZoneOffsetTable.zoneOrUtc(timezone));
+    }
+
     // Getters/Setters
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
@@ -66,6 +91,10 @@ public class Schedule {
     public void setCreatedAt(Long createdAt) { this.createdAt = createdAt; }
     public Long getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(Long updatedAt) { this.updatedAt = updatedAt; }
+    public Long getSeriesStartUtc() { return seriesStartUtc; }
+    public void setSeriesStartUtc(Long seriesStartUtc) { this.seriesStartUtc = seriesStartUtc; }
+    public Long getSeriesEndUtc() { return seriesEndUtc; }
+    public void setSeriesEndUtc(Long seriesEndUtc) { this.seriesEndUtc = seriesEndUtc; }
 }
 
 
@@ -32,6 +32,9 @@ public class ScheduleOccurrenceCache {
     @Column(name = "generated_window")
     private String generatedWindow;
 
+    @Column(name = "is_exception", nullable = false)
+    private Integer isException = 0;
+
     @Column(name = "created_at", nullable = false)
     private Long createdAt;
 
@@ -54,6 +57,8 @@ public class ScheduleOccurrenceCache {
     public void setTz(String tz) { this.tz = tz; }
     public String getGeneratedWindow() { return generatedWindow; }
     public void setGeneratedWindow(String generatedWindow) { this.generatedWindow = generatedWindow; }
+    public Integer getIsException() { return isException; }
+    public void setIsException(Integer isException) { this.isException = isException; }
     public Long getCreatedAt() { return createdAt; }
     public void setCreatedAt(Long createdAt) { this.createdAt = createdAt; }
 }
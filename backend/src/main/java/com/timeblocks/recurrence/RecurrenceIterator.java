@@ -0,0 +1,358 @@
+package com.timeblocks.recurrence;
+
+import com.timeblocks.recurrence.RecurrenceRule.Frequency;
+import com.timeblocks.recurrence.RecurrenceRule.WeekdayNum;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Lazily yields occurrence start instants (epoch ms, ascending) of a recurring series.
+ *
+ * Iteration is period based: the iterator jumps straight to the first FREQ period that can
+ * contain an occurrence at or after {@code notBeforeUtc} and then advances INTERVAL periods at a
+ * time, so work is proportional to the number of periods touched rather than days in the window.
+ * When the rule has a COUNT the series has to be counted from DTSTART, which is still bounded by
+ * COUNT itself.
+ */
+public final class RecurrenceIterator implements PrimitiveIterator.OfLong {
+    private static final long MAX_EMPTY_SPAN_DAYS = 400L * 366; // guards rules that can never match
+
+    private final RecurrenceRule rule;
+    private final ZoneId zone;
+    private final long dtStartUtc;
+    private final long notBeforeUtc;
+    private final long untilUtc;
+    private final long lastDay;           // no candidate day after this one can be <= notAfterUtc
+    private final ZoneOffsetTable offsets;
+    private final long startMillisOfDay;  // template local time of every instance
+    private final LocalDate startDate;
+    private final long startEpochDay;
+
+    // Effective BYxxx sets after applying RFC 5545 defaults derived from DTSTART
+    private final int weekdayMask;        // bit (dow-1) for BYDAY entries without ordinal
+    private final WeekdayNum[] ordinalDays;
+    private final int[] monthDays;
+    private final boolean[] months = new boolean[13];
+    private final boolean anyMonthFilter;
+
+    private long[] days = new long[32];
+    private int dayCount;
+    private long[] pending = new long[32];
+    private int pendingPos, pendingLen;
+
+    private long period;
+    private long emitted;
+    private long lastProgressDay;
+    private boolean done;
+
+    public RecurrenceIterator(RecurrenceRule rule, long dtStartUtc, ZoneId zone, long notBeforeUtc) {
+        this(rule, dtStartUtc, zone, notBeforeUtc, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param notBeforeUtc occurrences starting before this instant are skipped (but still counted for COUNT)
+     * @param notAfterUtc  iteration ends once occurrences would start after this instant
+     */
+    public RecurrenceIterator(RecurrenceRule rule, long dtStartUtc, ZoneId zone, long notBeforeUtc, long notAfterUtc) {
+        this.rule = rule;
+        this.zone = zone;
+        this.dtStartUtc = dtStartUtc;
+        this.notBeforeUtc = Math.max(notBeforeUtc, dtStartUtc);
+        this.untilUtc = Math.min(rule.untilEpochMs(zone), notAfterUtc);
+
+        LocalDateTime start = LocalDateTime.ofInstant(java.time.Instant.ofEpochMilli(dtStartUtc), zone);
+        this.startDate = start.toLocalDate();
+        this.startMillisOfDay = start.toLocalTime().toNanoOfDay() / 1_000_000L;
+        this.offsets = ZoneOffsetTable.of(zone);
+        this.startEpochDay = startDate.toEpochDay();
+        this.lastDay = untilUtc == Long.MAX_VALUE ? Long.MAX_VALUE
+                : LocalDate.ofInstant(java.time.Instant.ofEpochMilli(untilUtc), zone).toEpochDay() + 1;
+
+        int mask = 0;
+        int ordinals = 0;
+        for (WeekdayNum wd : rule.getByDay()) {
+            if (wd.ordinal() == 0 || rule.getFreq() == Frequency.DAILY || rule.getFreq() == Frequency.WEEKLY) {
+                mask |= 1 << (wd.day().getValue() - 1);
+            } else {
+                ordinals++;
+            }
+        }
+        WeekdayNum[] ord = new WeekdayNum[ordinals];
+        int oi = 0;
+        for (WeekdayNum wd : rule.getByDay()) {
+            if (!(wd.ordinal() == 0 || rule.getFreq() == Frequency.DAILY || rule.getFreq() == Frequency.WEEKLY)) ord[oi++] = wd;
+        }
+        for (int m : rule.getByMonth()) months[m] = true;
+        int[] md = rule.getByMonthDay();
+        boolean hasByDay = !rule.getByDay().isEmpty();
+
+        // RFC 5545 defaults: missing BYxxx parts are taken from DTSTART
+        switch (rule.getFreq()) {
+            case WEEKLY -> { if (!hasByDay) mask = 1 << (startDate.getDayOfWeek().getValue() - 1); }
+            case MONTHLY -> { if (!hasByDay && md.length == 0) md = new int[]{ startDate.getDayOfMonth() }; }
+            case YEARLY -> {
+                if (!hasByDay && md.length == 0) {
+                    md = new int[]{ startDate.getDayOfMonth() };
+                    if (rule.getByMonth().length == 0) months[startDate.getMonthValue()] = true;
+                }
+            }
+            default -> { }
+        }
+        this.weekdayMask = mask;
+        this.ordinalDays = ord;
+        this.monthDays = md;
+        boolean anyMonth = false;
+        for (int m = 1; m <= 12; m++) anyMonth |= months[m];
+        this.anyMonthFilter = anyMonth;
+
+        this.period = rule.hasCount() ? 0 : firstPeriodFor(this.notBeforeUtc);
+        this.lastProgressDay = periodStartDay(period);
+        if (rule.hasCount() && rule.getCount() == 0) done = true;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (pendingPos >= pendingLen) {
+            if (done) return false;
+            fillNextPeriod();
+        }
+        return true;
+    }
+
+    @Override
+    public long nextLong() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return pending[pendingPos++];
+    }
+
+    // =============================
+    // Period stepping
+    // =============================
+    private long firstPeriodFor(long instantUtc) {
+        // One day of slack covers times that DST gaps push across midnight
+        LocalDate target = LocalDate.ofInstant(java.time.Instant.ofEpochMilli(instantUtc), zone).minusDays(1);
+        long n = rule.getInterval();
+        long p = switch (rule.getFreq()) {
+            case DAILY -> Math.floorDiv(target.toEpochDay() - startEpochDay, n);
+            case WEEKLY -> Math.floorDiv(weekStart(target.toEpochDay()) - weekStart(startEpochDay), 7 * n);
+            case MONTHLY -> Math.floorDiv(monthIndex(target) - monthIndex(startDate), n);
+            case YEARLY -> Math.floorDiv((long) target.getYear() - startDate.getYear(), n);
+        };
+        return Math.max(0, p);
+    }
+
+    private long periodStartDay(long p) {
+        long n = rule.getInterval();
+        return switch (rule.getFreq()) {
+            case DAILY -> startEpochDay + p * n;
+            case WEEKLY -> weekStart(startEpochDay) + p * n * 7;
+            case MONTHLY -> {
+                long m = monthIndex(startDate) + p * n;
+                yield LocalDate.of((int) Math.floorDiv(m, 12), (int) Math.floorMod(m, 12) + 1, 1).toEpochDay();
+            }
+            case YEARLY -> LocalDate.of((int) (startDate.getYear() + p * n), 1, 1).toEpochDay();
+        };
+    }
+
+    private long weekStart(long epochDay) {
+        int dow = dayOfWeek(epochDay);
+        int offset = Math.floorMod(dow - rule.getWeekStart().getValue(), 7);
+        return epochDay - offset;
+    }
+
+    private static long monthIndex(LocalDate d) {
+        return d.getYear() * 12L + d.getMonthValue() - 1;
+    }
+
+    private static int dayOfWeek(long epochDay) {
+        // 1970-01-01 was a Thursday (ISO 4)
+        return (int) Math.floorMod(epochDay + 3, 7) + 1;
+    }
+
+    private void fillNextPeriod() {
+        pendingPos = 0;
+        pendingLen = 0;
+        long first = periodStartDay(period);
+        if (first > lastDay || first - lastProgressDay > MAX_EMPTY_SPAN_DAYS) {
+            done = true;
+            return;
+        }
+        dayCount = 0;
+        switch (rule.getFreq()) {
+            case DAILY -> candidatesDaily(first);
+            case WEEKLY -> candidatesWeekly(first);
+            case MONTHLY -> {
+                LocalDate d = LocalDate.ofEpochDay(first);
+                if (!anyMonthFilter || months[d.getMonthValue()]) candidatesInMonth(d.getYear(), d.getMonthValue());
+            }
+            case YEARLY -> candidatesYearly(LocalDate.ofEpochDay(first).getYear());
+        }
+        period++;
+        if (dayCount == 0) return;
+
+        Arrays.sort(days, 0, dayCount);
+        dayCount = dedupe(days, dayCount);
+        applySetPos();
+
+        if (pending.length < dayCount) pending = new long[days.length];
+        for (int i = 0; i < dayCount; i++) {
+            long startMs = toEpochMs(days[i]);
+            if (startMs < dtStartUtc) continue;
+            if (startMs > untilUtc) { done = true; break; }
+            emitted++;
+            if (startMs >= notBeforeUtc) pending[pendingLen++] = startMs;
+            if (rule.hasCount() && emitted >= rule.getCount()) { done = true; break; }
+        }
+        lastProgressDay = first;
+    }
+
+    private long toEpochMs(long epochDay) {
+        return offsets.toEpochMs(epochDay, startMillisOfDay);
+    }
+
+    // =============================
+    // Candidate expansion per FREQ
+    // =============================
+    private void candidatesDaily(long day) {
+        LocalDate d = LocalDate.ofEpochDay(day);
+        if (anyMonthFilter && !months[d.getMonthValue()]) return;
+        if (weekdayMask != 0 && (weekdayMask & (1 << (dayOfWeek(day) - 1))) == 0) return;
+        if (monthDays.length > 0 && !matchesMonthDay(d.getDayOfMonth(), d.lengthOfMonth())) return;
+        addDay(day);
+    }
+
+    private void candidatesWeekly(long weekFirstDay) {
+        for (int i = 0; i < 7; i++) {
+            long day = weekFirstDay + i;
+            if ((weekdayMask & (1 << (dayOfWeek(day) - 1))) == 0) continue;
+            if (anyMonthFilter || monthDays.length > 0) {
+                LocalDate d = LocalDate.ofEpochDay(day);
+                if (anyMonthFilter && !months[d.getMonthValue()]) continue;
+                if (monthDays.length > 0 && !matchesMonthDay(d.getDayOfMonth(), d.lengthOfMonth())) continue;
+            }
+            addDay(day);
+        }
+    }
+
+    private void candidatesYearly(int year) {
+        boolean yearScopedByDay = !anyMonthFilter && (weekdayMask != 0 || ordinalDays.length > 0);
+        if (yearScopedByDay) {
+            // BYDAY without BYMONTH: ordinals count within the whole year
+            long first = LocalDate.of(year, 1, 1).toEpochDay();
+            int len = Year.isLeap(year) ? 366 : 365;
+            int firstDow = dayOfWeek(first);
+            for (int wd = 1; wd <= 7; wd++) {
+                if ((weekdayMask & (1 << (wd - 1))) == 0) continue;
+                for (int off = Math.floorMod(wd - firstDow, 7); off < len; off += 7) addYearDay(first + off);
+            }
+            for (WeekdayNum on : ordinalDays) {
+                int off = nthWeekdayOffset(firstDow, len, on);
+                if (off >= 0) addYearDay(first + off);
+            }
+            return;
+        }
+        for (int m = 1; m <= 12; m++) {
+            if (anyMonthFilter ? months[m] : monthDays.length > 0) candidatesInMonth(year, m);
+        }
+    }
+
+    private void addYearDay(long day) {
+        if (monthDays.length > 0) {
+            LocalDate d = LocalDate.ofEpochDay(day);
+            if (!matchesMonthDay(d.getDayOfMonth(), d.lengthOfMonth())) return;
+        }
+        addDay(day);
+    }
+
+    private void candidatesInMonth(int year, int month) {
+        YearMonth ym = YearMonth.of(year, month);
+        int len = ym.lengthOfMonth();
+        long first = ym.atDay(1).toEpochDay();
+        int firstDow = dayOfWeek(first);
+
+        long mdMask = 0;
+        boolean hasMd = monthDays.length > 0;
+        for (int v : monthDays) {
+            int d = v > 0 ? v : len + v + 1;
+            if (d >= 1 && d <= len) mdMask |= 1L << d;
+        }
+        long bdMask = 0;
+        boolean hasBd = weekdayMask != 0 || ordinalDays.length > 0;
+        for (int wd = 1; wd <= 7; wd++) {
+            if ((weekdayMask & (1 << (wd - 1))) == 0) continue;
+            for (int d = 1 + Math.floorMod(wd - firstDow, 7); d <= len; d += 7) bdMask |= 1L << d;
+        }
+        for (WeekdayNum on : ordinalDays) {
+            int off = nthWeekdayOffset(firstDow, len, on);
+            if (off >= 0) bdMask |= 1L << (off + 1);
+        }
+
+        long mask;
+        if (hasMd && hasBd) mask = mdMask & bdMask;
+        else if (hasMd) mask = mdMask;
+        else if (hasBd) mask = bdMask;
+        else mask = 0;
+
+        while (mask != 0) {
+            int d = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            addDay(first + d - 1);
+        }
+    }
+
+    /** Zero-based offset of the n-th (or n-th from last) given weekday in a span, or -1. */
+    private static int nthWeekdayOffset(int firstDow, int len, WeekdayNum on) {
+        int firstOff = Math.floorMod(on.day().getValue() - firstDow, 7);
+        if (on.ordinal() > 0) {
+            int off = firstOff + 7 * (on.ordinal() - 1);
+            return off < len ? off : -1;
+        }
+        int lastOff = firstOff + 7 * ((len - 1 - firstOff) / 7);
+        int off = lastOff + 7 * (on.ordinal() + 1);
+        return off >= 0 ? off : -1;
+    }
+
+    private void addDay(long day) {
+        if (dayCount == days.length) days = Arrays.copyOf(days, dayCount * 2);
+        days[dayCount++] = day;
+    }
+
+    private boolean matchesMonthDay(int dayOfMonth, int len) {
+        for (int v : monthDays) {
+            int d = v > 0 ? v : len + v + 1;
+            if (d == dayOfMonth) return true;
+        }
+        return false;
+    }
+
+    private void applySetPos() {
+        int[] setPos = rule.getBySetPos();
+        if (setPos.length == 0) return;
+        long[] picked = new long[setPos.length];
+        int n = 0;
+        for (int sp : setPos) {
+            int idx = sp > 0 ? sp - 1 : dayCount + sp;
+            if (idx >= 0 && idx < dayCount) picked[n++] = days[idx];
+        }
+        Arrays.sort(picked, 0, n);
+        n = dedupe(picked, n);
+        System.arraycopy(picked, 0, days, 0, n);
+        dayCount = n;
+    }
+
+    private static int dedupe(long[] a, int len) {
+        if (len < 2) return len;
+        int w = 1;
+        for (int r = 1; r < len; r++) {
+            if (a[r] != a[w - 1]) a[w++] = a[r];
+        }
+        return w;
+    }
+}
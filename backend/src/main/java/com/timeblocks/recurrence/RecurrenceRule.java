@@ -0,0 +1,175 @@
+package com.timeblocks.recurrence;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parsed RFC 5545 RRULE (the subset TimeBlocks schedules use).
+ * Supports FREQ=DAILY|WEEKLY|MONTHLY|YEARLY with INTERVAL, COUNT, UNTIL,
+ * BYDAY (incl. ordinals like 2MO / -1FR), BYMONTHDAY, BYMONTH, BYSETPOS and WKST.
+ */
+public final class RecurrenceRule {
+    public enum Frequency { DAILY, WEEKLY, MONTHLY, YEARLY }
+
+    /** A BYDAY entry; ordinal 0 means "every such weekday in the period". */
+    public record WeekdayNum(int ordinal, DayOfWeek day) { }
+
+    private static final DateTimeFormatter UNTIL_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter UNTIL_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final Frequency freq;
+    private final int interval;
+    private final int count;                 // -1 when unbounded
+    private final Long untilUtc;             // UNTIL=...Z
+    private final LocalDateTime untilLocal;  // floating UNTIL, resolved in the series zone
+    private final List<WeekdayNum> byDay;
+    private final int[] byMonthDay;
+    private final int[] byMonth;
+    private final int[] bySetPos;
+    private final DayOfWeek weekStart;
+
+    private RecurrenceRule(Frequency freq, int interval, int count, Long untilUtc, LocalDateTime untilLocal,
+                           List<WeekdayNum> byDay, int[] byMonthDay, int[] byMonth, int[] bySetPos, DayOfWeek weekStart) {
+        this.freq = freq;
+        this.interval = interval;
+        this.count = count;
+        this.untilUtc = untilUtc;
+        this.untilLocal = untilLocal;
+        this.byDay = byDay;
+        this.byMonthDay = byMonthDay;
+        this.byMonth = byMonth;
+        this.bySetPos = bySetPos;
+        this.weekStart = weekStart;
+    }
+
+    /**
+     * Parse an RRULE value such as {@code FREQ=MONTHLY;BYDAY=MO,TU;BYSETPOS=-1}.
+     * A leading {@code RRULE:} prefix is tolerated; a missing FREQ defaults to WEEKLY
+     * (the historical behaviour of the schedules endpoint).
+     *
+     * @throws IllegalArgumentException for unsupported frequencies or malformed parts
+     */
+    public static RecurrenceRule parse(String rrule) {
+        if (rrule == null || rrule.isBlank()) throw new IllegalArgumentException("empty RRULE");
+        String body = rrule.trim();
+        if (body.regionMatches(true, 0, "RRULE:", 0, 6)) body = body.substring(6);
+
+        Frequency freq = Frequency.WEEKLY;
+        int interval = 1, count = -1;
+        Long untilUtc = null; LocalDateTime untilLocal = null;
+        List<WeekdayNum> byDay = List.of();
+        int[] byMonthDay = new int[0], byMonth = new int[0], bySetPos = new int[0];
+        DayOfWeek wkst = DayOfWeek.MONDAY;
+
+        for (String part : body.split(";")) {
+            String[] kv = part.split("=", 2);
+            if (kv.length != 2) continue;
+            String key = kv[0].trim().toUpperCase(Locale.ROOT);
+            String val = kv[1].trim().toUpperCase(Locale.ROOT);
+            try {
+                switch (key) {
+                    case "FREQ" -> freq = Frequency.valueOf(val);
+                    case "INTERVAL" -> interval = Math.max(1, Integer.parseInt(val));
+                    case "COUNT" -> count = Math.max(0, Integer.parseInt(val));
+                    case "UNTIL" -> {
+                        if (val.endsWith("Z")) {
+                            untilUtc = parseUntilLocal(val.substring(0, val.length() - 1)).toInstant(ZoneOffset.UTC).toEpochMilli();
+                        } else {
+                            untilLocal = parseUntilLocal(val);
+                        }
+                    }
+                    case "BYDAY" -> byDay = parseByDay(val);
+                    case "BYMONTHDAY" -> byMonthDay = parseInts(val, -31, 31);
+                    case "BYMONTH" -> byMonth = parseInts(val, 1, 12);
+                    case "BYSETPOS" -> bySetPos = parseInts(val, -366, 366);
+                    case "WKST" -> wkst = parseWeekday(val);
+                    default -> { /* ignore parts we do not model (BYHOUR, BYWEEKNO, ...) */ }
+                }
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("invalid RRULE part '" + part + "'", e);
+            }
+        }
+        return new RecurrenceRule(freq, interval, count, untilUtc, untilLocal, byDay, byMonthDay, byMonth, bySetPos, wkst);
+    }
+
+    private static LocalDateTime parseUntilLocal(String val) {
+        if (val.length() == 8) {
+            // Date-only UNTIL is inclusive of the whole day
+            return LocalDate.parse(val, UNTIL_DATE).atTime(LocalTime.MAX);
+        }
+        return LocalDateTime.parse(val, UNTIL_DATE_TIME);
+    }
+
+    private static List<WeekdayNum> parseByDay(String val) {
+        List<WeekdayNum> out = new ArrayList<>();
+        for (String token : val.split(",")) {
+            String t = token.trim();
+            if (t.length() < 2) throw new IllegalArgumentException("bad BYDAY " + token);
+            int ordinal = 0;
+            String prefix = t.substring(0, t.length() - 2);
+            if (!prefix.isEmpty()) {
+                ordinal = Integer.parseInt(prefix.startsWith("+") ? prefix.substring(1) : prefix);
+                if (ordinal == 0 || Math.abs(ordinal) > 53) throw new IllegalArgumentException("bad BYDAY ordinal " + token);
+            }
+            out.add(new WeekdayNum(ordinal, parseWeekday(t.substring(t.length() - 2))));
+        }
+        return List.copyOf(out);
+    }
+
+    private static DayOfWeek parseWeekday(String code) {
+        return switch (code) {
+            case "MO" -> DayOfWeek.MONDAY;
+            case "TU" -> DayOfWeek.TUESDAY;
+            case "WE" -> DayOfWeek.WEDNESDAY;
+            case "TH" -> DayOfWeek.THURSDAY;
+            case "FR" -> DayOfWeek.FRIDAY;
+            case "SA" -> DayOfWeek.SATURDAY;
+            case "SU" -> DayOfWeek.SUNDAY;
+            default -> throw new IllegalArgumentException("bad weekday " + code);
+        };
+    }
+
+    private static int[] parseInts(String val, int min, int max) {
+        String[] tokens = val.split(",");
+        int[] out = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            int v = Integer.parseInt(tokens[i].trim());
+            if (v == 0 || v < min || v > max) throw new IllegalArgumentException("value out of range: " + v);
+            out[i] = v;
+        }
+        Arrays.sort(out);
+        return out;
+    }
+
+    public Frequency getFreq() { return freq; }
+    public int getInterval() { return interval; }
+    public boolean hasCount() { return count >= 0; }
+    public int getCount() { return count; }
+    public List<WeekdayNum> getByDay() { return byDay; }
+    public int[] getByMonthDay() { return byMonthDay; }
+    public int[] getByMonth() { return byMonth; }
+    public int[] getBySetPos() { return bySetPos; }
+    public DayOfWeek getWeekStart() { return weekStart; }
+
+    /** UNTIL as epoch millis, or {@link Long#MAX_VALUE} when the rule has no UNTIL. */
+    public long untilEpochMs(ZoneId zone) {
+        if (untilUtc != null) return untilUtc;
+        if (untilLocal != null) return untilLocal.atZone(zone).toInstant().toEpochMilli();
+        return Long.MAX_VALUE;
+    }
+
+    /** True when the series never ends (no COUNT and no UNTIL). */
+    public boolean isUnbounded() {
+        return count < 0 && untilUtc == null && untilLocal == null;
+    }
+}
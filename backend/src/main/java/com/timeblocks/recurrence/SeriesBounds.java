@@ -0,0 +1,79 @@
+package com.timeblocks.recurrence;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Time span covered by a whole series, used to prune series that cannot touch a window.
+ */
+public final class SeriesBounds {
+    /** Series end of a rule without COUNT or UNTIL. */
+    public static final long UNBOUNDED = Long.MAX_VALUE;
+    /** Occurrences walked for a COUNT rule before its end is treated as unbounded. */
+    static final int MAX_COUNT_WALK = 10_000;
+
+    private SeriesBounds() { }
+
+    /**
+     * End (epoch ms) of the last occurrence of a series starting at {@code dtStartUtc}.
+     * One-off items (blank rule) end at {@code dtStartUtc + durationMs}; unbounded rules
+     * return {@link #UNBOUNDED}. Rules that fail to parse are treated as one-off. The value is
+     * an upper bound: COUNT rules that need iterating are walked for at most
+     * {@value #MAX_COUNT_WALK} occurrences and then fall back to UNTIL or {@link #UNBOUNDED}.
+     */
+    public static long seriesEnd(String rrule, long dtStartUtc, long durationMs, ZoneId zone) {
+        long single = dtStartUtc + Math.max(0, durationMs);
+        if (rrule == null || rrule.isBlank()) return single;
+        RecurrenceRule rule;
+        try {
+            rule = RecurrenceRule.parse(rrule);
+        } catch (IllegalArgumentException e) {
+            return single;
+        }
+        if (rule.isUnbounded()) return UNBOUNDED;
+        if (!rule.hasCount()) {
+            // UNTIL only: the last start is at most UNTIL
+            return Math.max(single, rule.untilEpochMs(zone) + Math.max(0, durationMs));
+        }
+        if (rule.getCount() == 0) return single;
+        long last = lastOfPlainCount(rule, dtStartUtc, zone);
+        if (last == UNBOUNDED) {
+            last = dtStartUtc;
+            RecurrenceIterator it = new RecurrenceIterator(rule, dtStartUtc, zone, dtStartUtc);
+            for (int n = 0; it.hasNext(); n++) {
+                if (n == MAX_COUNT_WALK) {
+                    // past the cap: UNTIL (if any) still bounds the series, else treat it as open
+                    long until = rule.untilEpochMs(zone);
+                    return until == Long.MAX_VALUE ? UNBOUNDED : Math.max(single, until + Math.max(0, durationMs));
+                }
+                last = it.nextLong();
+            }
+        }
+        return Math.max(single, last + Math.max(0, durationMs));
+    }
+
+    /**
+     * Last start of a COUNT rule without BYxxx parts or UNTIL whose every period has its
+     * instance (DAILY, WEEKLY, MONTHLY on days 1-28, YEARLY off Feb 29), computed without iterating;
+     * {@link #UNBOUNDED} when the rule is not that simple.
+     */
+    private static long lastOfPlainCount(RecurrenceRule rule, long dtStartUtc, ZoneId zone) {
+        if (!rule.getByDay().isEmpty() || rule.getByMonthDay().length > 0 || rule.getByMonth().length > 0
+                || rule.getBySetPos().length > 0 || rule.untilEpochMs(zone) != Long.MAX_VALUE) {
+            return UNBOUNDED;
+        }
+        LocalDateTime start = LocalDateTime.ofInstant(Instant.ofEpochMilli(dtStartUtc), zone);
+        LocalDate d = start.toLocalDate();
+        long steps = (long) (rule.getCount() - 1) * rule.getInterval();
+        LocalDate lastDate = switch (rule.getFreq()) {
+            case DAILY -> d.plusDays(steps);
+            case WEEKLY -> d.plusWeeks(steps);
+            case MONTHLY -> d.getDayOfMonth() <= 28 ? d.plusMonths(steps) : null;
+            case YEARLY -> d.getMonthValue() == 2 && d.getDayOfMonth() == 29 ? null : d.plusYears(steps);
+        };
+        if (lastDate == null) return UNBOUNDED;
+        return ZoneOffsetTable.of(zone).toEpochMs(lastDate.toEpochDay(), start.toLocalTime().toNanoOfDay() / 1_000_000L);
+    }
+}
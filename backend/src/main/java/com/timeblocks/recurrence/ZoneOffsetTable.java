@@ -0,0 +1,99 @@
+package com.timeblocks.recurrence;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-zone table of UTC offset transitions, built once and shared, that turns a local
+ * (epoch day, millis of day) into an instant with a binary search instead of building a
+ * {@link ZonedDateTime} per occurrence.
+ *
+ * Resolution matches {@code ZonedDateTime.of}: a local time in a DST gap is shifted forward
+ * by the length of the gap, and a local time in an overlap takes the earlier offset.
+ * Times outside 1900..2300 fall back to java.time.
+ */
+public final class ZoneOffsetTable {
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+    private static final long MIN_UTC_MS = LocalDate.of(1900, 1, 1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    private static final long MAX_UTC_MS = LocalDate.of(2300, 1, 1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+
+    private static final ConcurrentHashMap<String, ZoneId> ZONE_IDS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<ZoneId, ZoneOffsetTable> TABLES = new ConcurrentHashMap<>();
+
+    private final ZoneId zone;
+    private final boolean fixed;
+    private final int initialOffsetMs;
+    // keys[i]: first local ms from which offsetsAfter[i] applies (transition + the larger of both offsets)
+    private final long[] keys;
+    private final int[] offsetsAfter;
+
+    private ZoneOffsetTable(ZoneId zone) {
+        this.zone = zone;
+        ZoneRules rules = zone.getRules();
+        this.fixed = rules.isFixedOffset();
+        if (fixed) {
+            this.initialOffsetMs = rules.getOffset(Instant.EPOCH).getTotalSeconds() * 1000;
+            this.keys = new long[0];
+            this.offsetsAfter = new int[0];
+            return;
+        }
+        this.initialOffsetMs = rules.getOffset(Instant.ofEpochMilli(MIN_UTC_MS)).getTotalSeconds() * 1000;
+        long[] k = new long[64];
+        int[] o = new int[64];
+        int n = 0;
+        ZoneOffsetTransition t = rules.nextTransition(Instant.ofEpochMilli(MIN_UTC_MS));
+        while (t != null && t.toEpochSecond() * 1000 < MAX_UTC_MS) {
+            if (n == k.length) { k = Arrays.copyOf(k, n * 2); o = Arrays.copyOf(o, n * 2); }
+            int before = t.getOffsetBefore().getTotalSeconds() * 1000;
+            int after = t.getOffsetAfter().getTotalSeconds() * 1000;
+            k[n] = t.toEpochSecond() * 1000 + Math.max(before, after);
+            o[n] = after;
+            n++;
+            t = rules.nextTransition(t.getInstant());
+        }
+        this.keys = Arrays.copyOf(k, n);
+        this.offsetsAfter = Arrays.copyOf(o, n);
+    }
+
+    public static ZoneOffsetTable of(ZoneId zone) {
+        return TABLES.computeIfAbsent(zone, ZoneOffsetTable::new);
+    }
+
+    /** Cached {@link ZoneId#of}; throws the same DateTimeException for unknown ids. */
+    public static ZoneId zone(String id) {
+        ZoneId z = ZONE_IDS.get(id);
+        if (z == null) {
+            z = ZoneId.of(id);
+            ZONE_IDS.putIfAbsent(id, z);
+        }
+        return z;
+    }
+
+    /** {@link #zone}, or UTC when {@code id} is null, blank or not a known zone. */
+    public static ZoneId zoneOrUtc(String id) {
+        if (id == null || id.isBlank()) return ZoneOffset.UTC;
+        try { return zone(id); } catch (DateTimeException e) { return ZoneOffset.UTC; }
+    }
+
+    /** Instant (epoch ms) of the local date-time {@code epochDay} + {@code millisOfDay} in this zone. */
+    public long toEpochMs(long epochDay, long millisOfDay) {
+        long local = epochDay * DAY_MS + millisOfDay;
+        if (fixed) return local - initialOffsetMs;
+        if (local < MIN_UTC_MS + DAY_MS || local > MAX_UTC_MS - DAY_MS) {
+            return ZonedDateTime.of(LocalDate.ofEpochDay(epochDay), LocalTime.ofNanoOfDay(millisOfDay * 1_000_000L), zone)
+                    .toInstant().toEpochMilli();
+        }
+        int i = Arrays.binarySearch(keys, local);
+        if (i < 0) i = -i - 2; // last key <= local
+        return local - (i < 0 ? initialOffsetMs : offsetsAfter[i]);
+    }
+}
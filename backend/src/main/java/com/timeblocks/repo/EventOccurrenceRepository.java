@@ -1,7 +1,38 @@
 package com.timeblocks.repo;
 
 import com.timeblocks.model.EventOccurrence;
-import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 
-public interface EventOccurrenceRepository extends JpaRepository<EventOccurrence, String> { }
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
+public interface EventOccurrenceRepository extends JpaRepository<EventOccurrence, String> {
+    // Materialized instances overlapping the window (epoch ms), in start order
+    @Query("select o from EventOccurrence o where o.calendarId = :calId and " +
+           "o.startMs <= :to and o.endMs >= :from order by o.startMs, o.endMs")
+    List<EventOccurrence> findForWindow(@Param("calId") String calendarId,
+                                        @Param("from") long fromMs,
+                                        @Param("to") long toMs);
+
+    /** {@link #findForWindow} fetched in chunks; must be consumed inside a transaction. */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select o from EventOccurrence o where o.calendarId = :calId and " +
+           "o.startMs <= :to and o.endMs >= :from order by o.startMs, o.endMs")
+    Stream<EventOccurrence> streamForWindow(@Param("calId") String calendarId,
+                                            @Param("from") long fromMs,
+                                            @Param("to") long toMs);
+
+    @Query("select o.id from EventOccurrence o where o.eventId in :eventIds")
+    List<String> findIdsByEventIdIn(@Param("eventIds") Collection<String> eventIds);
+
+    @Modifying
+    @Query("delete from EventOccurrence o where o.eventId in :eventIds")
+    int deleteByEventIdIn(@Param("eventIds") Collection<String> eventIds);
+}
@@ -4,19 +4,43 @@ import com.timeblocks.model.Event;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface EventRepository extends JpaRepository<Event, String> {
+    // Series span (epoch ms) overlaps the window; rows not yet backfilled are always included
     @Query("select e from Event e where e.calendarId = :calId and " +
-           "((e.startUtc <= :to and e.endUtc >= :from) or e.recurrenceRule is not null)")
+           "((e.seriesStartUtc <= :to and e.seriesEndUtc >= :from) or e.seriesEndUtc is null)")
     List<Event> findForWindow(@Param("calId") String calendarId,
-                              @Param("from") String fromIso,
-                              @Param("to") String toIso);
+                              @Param("from") long fromMs,
+                              @Param("to") long toMs);
+
+    // Ids of findForWindow across all calendars, for materializing the occurrence horizon in chunks
+    @Query("select e.id from Event e where " +
+           "(e.seriesStartUtc <= :to and e.seriesEndUtc >= :from) or e.seriesEndUtc is null")
+    List<String> findIdsForWindow(@Param("from") long fromMs, @Param("to") long toMs);
+
+    /** {@link #findForWindow} in start order, fetched in chunks; must be consumed inside a transaction. */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select e from Event e where e.calendarId = :calId and " +
+           "((e.seriesStartUtc <= :to and e.seriesEndUtc >= :from) or e.seriesEndUtc is null) " +
+           "order by e.startMs, e.endMs")
+    Stream<Event> streamForWindow(@Param("calId") String calendarId,
+                                  @Param("from") long fromMs,
+                                  @Param("to") long toMs);
 
     long countByTaskId(String taskId);
 
+    List<Event> findByTaskIdIn(Collection<String> taskIds);
+
     @Modifying
-    @Query("delete from Event e where e.taskId = :taskId")
-    void deleteByTaskId(@Param("taskId") String taskId);
+    @Query("delete from Event e where e.taskId in :taskIds")
+    void deleteByTaskIdIn(@Param("taskIds") Collection<String> taskIds);
 }
 
@@ -0,0 +1,17 @@
+package com.timeblocks.repo;
+
+import java.util.List;
+
+/** Postgres: one row comparison with {@code IS DISTINCT FROM}. */
+public class PostgresUpsertDialect implements UpsertDialect {
+    @Override
+    public String changed(String table, List<String> columns) {
+        StringBuilder stored = new StringBuilder(), proposed = new StringBuilder();
+        for (String c : columns) {
+            if (stored.length() > 0) { stored.append(", "); proposed.append(", "); }
+            stored.append(table).append('.').append(c);
+            proposed.append("EXCLUDED.").append(c);
+        }
+        return "ROW(" + stored + ") IS DISTINCT FROM ROW(" + proposed + ")";
+    }
+}
@@ -2,11 +2,21 @@ package com.timeblocks.repo;
 
 import com.timeblocks.model.ScheduleException;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ScheduleExceptionRepository extends JpaRepository<ScheduleException, String> {
     List<ScheduleException> findByScheduleId(String scheduleId);
-}
 
+    @Query("select e from ScheduleException e where e.scheduleId in :scheduleIds")
+    List<ScheduleException> findByScheduleIdIn(@Param("scheduleIds") Collection<String> scheduleIds);
+
+    @Modifying
+    @Query("delete from ScheduleException e where e.scheduleId in :scheduleIds")
+    int deleteByScheduleIdIn(@Param("scheduleIds") Collection<String> scheduleIds);
+}
 
@@ -0,0 +1,20 @@
+package com.timeblocks.repo;
+
+import com.timeblocks.model.Schedule;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lane / status / task filtered series reads. The statement is built from the filters that are
+ * present (an empty collection means "any"), so each one is a plain predicate the planner can
+ * match to an index instead of an {@code (:any = true or ...)} catch-all. {@code laneIsNull}
+ * restricts to series without a lane and takes precedence over {@code laneIds}.
+ */
+public interface ScheduleFilterQueries {
+    List<Schedule> findForWindowFiltered(long from, long to, Collection<String> laneIds, boolean laneIsNull,
+                                         Collection<String> statuses, Collection<String> taskIds);
+
+    List<Schedule> findByIdInFiltered(Collection<String> ids, Collection<String> laneIds, boolean laneIsNull,
+                                      Collection<String> statuses, Collection<String> taskIds);
+}
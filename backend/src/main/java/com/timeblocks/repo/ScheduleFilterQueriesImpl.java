@@ -0,0 +1,63 @@
+package com.timeblocks.repo;
+
+import com.timeblocks.model.Schedule;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import java.util.Collection;
+import java.util.List;
+
+/** Spring Data fragment behind {@link ScheduleRepository}'s filtered reads. */
+class ScheduleFilterQueriesImpl implements ScheduleFilterQueries {
+    private final EntityManager em;
+
+    ScheduleFilterQueriesImpl(EntityManager em) {
+        this.em = em;
+    }
+
+    @Override
+    public List<Schedule> findForWindowFiltered(long from, long to, Collection<String> laneIds, boolean laneIsNull,
+                                                Collection<String> statuses, Collection<String> taskIds) {
+        StringBuilder jpql = new StringBuilder("select s from Schedule s where (").append(ScheduleRepository.WINDOW).append(')');
+        appendFilters(jpql, laneIds, laneIsNull, statuses, taskIds);
+        TypedQuery<Schedule> q = em.createQuery(jpql.toString(), Schedule.class)
+                .setParameter("from", from)
+                .setParameter("to", to);
+        bindFilters(q, laneIds, laneIsNull, statuses, taskIds);
+        return q.getResultList();
+    }
+
+    @Override
+    public List<Schedule> findByIdInFiltered(Collection<String> ids, Collection<String> laneIds, boolean laneIsNull,
+                                             Collection<String> statuses, Collection<String> taskIds) {
+        StringBuilder jpql = new StringBuilder("select s from Schedule s where s.id in :ids");
+        appendFilters(jpql, laneIds, laneIsNull, statuses, taskIds);
+        TypedQuery<Schedule> q = em.createQuery(jpql.toString(), Schedule.class).setParameter("ids", ids);
+        bindFilters(q, laneIds, laneIsNull, statuses, taskIds);
+        return q.getResultList();
+    }
+
+    // Lane/status also match series that have an exception moving an instance into the lane/status;
+    // callers re-check the expanded occurrences.
+    private static void appendFilters(StringBuilder jpql, Collection<String> laneIds, boolean laneIsNull,
+                                      Collection<String> statuses, Collection<String> taskIds) {
+        if (laneIsNull) {
+            jpql.append(" and s.laneId is null");
+        } else if (!laneIds.isEmpty()) {
+            jpql.append(" and (s.laneId in :laneIds or s.laneId is null or s.id in (select x.scheduleId from ScheduleException x" +
+                        " where x.changeLaneId in :laneIds))");
+        }
+        if (!statuses.isEmpty()) {
+            jpql.append(" and (s.status in :statuses or s.id in (select x.scheduleId from ScheduleException x" +
+                        " where x.changeStatus in :statuses))");
+        }
+        if (!taskIds.isEmpty()) jpql.append(" and s.taskId in :taskIds");
+    }
+
+    private static void bindFilters(TypedQuery<?> q, Collection<String> laneIds, boolean laneIsNull,
+                                    Collection<String> statuses, Collection<String> taskIds) {
+        if (!laneIsNull && !laneIds.isEmpty()) q.setParameter("laneIds", laneIds);
+        if (!statuses.isEmpty()) q.setParameter("statuses", statuses);
+        if (!taskIds.isEmpty()) q.setParameter("taskIds", taskIds);
+    }
+}
@@ -0,0 +1,22 @@
+package com.timeblocks.repo;
+
+import com.timeblocks.model.ScheduleOccurrenceCache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Cached occurrences overlapping a window, in start order, filtered by lane / status / task.
+ * Only the filters that are present (non-empty) become predicates, so a lane or status filter
+ * reaches the {@code (lane_id, occ_start_utc)} / {@code (status, occ_start_utc)} indexes.
+ * {@code laneIsNull} restricts to rows without a lane and takes precedence over {@code laneIds}.
+ */
+public interface ScheduleOccurrenceCacheQueries {
+    List<ScheduleOccurrenceCache> findForWindow(long from, long to, Collection<String> laneIds, boolean laneIsNull,
+                                                Collection<String> statuses, Collection<String> taskIds);
+
+    /** Same rows as {@link #findForWindow}, fetched in chunks; must be consumed inside a transaction. */
+    Stream<ScheduleOccurrenceCache> streamForWindow(long from, long to, Collection<String> laneIds, boolean laneIsNull,
+                                                    Collection<String> statuses, Collection<String> taskIds);
+}
@@ -0,0 +1,54 @@
+package com.timeblocks.repo;
+
+import com.timeblocks.model.ScheduleOccurrenceCache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/** Spring Data fragment behind {@link ScheduleOccurrenceCacheRepository}'s window reads. */
+class ScheduleOccurrenceCacheQueriesImpl implements ScheduleOccurrenceCacheQueries {
+    private final EntityManager em;
+
+    ScheduleOccurrenceCacheQueriesImpl(EntityManager em) {
+        this.em = em;
+    }
+
+    @Override
+    public List<ScheduleOccurrenceCache> findForWindow(long from, long to, Collection<String> laneIds, boolean laneIsNull,
+                                                       Collection<String> statuses, Collection<String> taskIds) {
+        return window(from, to, laneIds, laneIsNull, statuses, taskIds).getResultList();
+    }
+
+    @Override
+    public Stream<ScheduleOccurrenceCache> streamForWindow(long from, long to, Collection<String> laneIds, boolean laneIsNull,
+                                                           Collection<String> statuses, Collection<String> taskIds) {
+        return window(from, to, laneIds, laneIsNull, statuses, taskIds)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    // Rows carry the effective lane/status, so those filter directly; task goes through the series
+    private TypedQuery<ScheduleOccurrenceCache> window(long from, long to, Collection<String> laneIds, boolean laneIsNull,
+                                                       Collection<String> statuses, Collection<String> taskIds) {
+        StringBuilder jpql = new StringBuilder(
+                "select c from ScheduleOccurrenceCache c where c.occStartUtc <= :to and c.occEndUtc >= :from");
+        if (laneIsNull) jpql.append(" and c.laneId is null");
+        else if (!laneIds.isEmpty()) jpql.append(" and (c.laneId in :laneIds or c.laneId is null)");
+        if (!statuses.isEmpty()) jpql.append(" and c.status in :statuses");
+        if (!taskIds.isEmpty()) jpql.append(" and c.scheduleId in (select s.id from Schedule s where s.taskId in :taskIds)");
+        jpql.append(" order by c.occStartUtc, c.occEndUtc");
+
+        TypedQuery<ScheduleOccurrenceCache> q = em.createQuery(jpql.toString(), ScheduleOccurrenceCache.class)
+                .setParameter("from", from)
+                .setParameter("to", to);
+        if (!laneIsNull && !laneIds.isEmpty()) q.setParameter("laneIds", laneIds);
+        if (!statuses.isEmpty()) q.setParameter("statuses", statuses);
+        if (!taskIds.isEmpty()) q.setParameter("taskIds", taskIds);
+        return q;
+    }
+}
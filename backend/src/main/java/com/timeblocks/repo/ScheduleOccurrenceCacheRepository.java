@@ -0,0 +1,16 @@
+package com.timeblocks.repo;
+
+import com.timeblocks.model.ScheduleOccurrenceCache;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+public interface ScheduleOccurrenceCacheRepository extends JpaRepository<ScheduleOccurrenceCache, String>,
+        ScheduleOccurrenceCacheQueries {
+    @Modifying
+    @Query("delete from ScheduleOccurrenceCache c where c.scheduleId in :scheduleIds")
+    void deleteByScheduleIdIn(@Param("scheduleIds") Collection<String> scheduleIds);
+}
@@ -7,11 +7,22 @@ import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
-public interface ScheduleRepository extends JpaRepository<Schedule, String> {
-    @Query("select s from Schedule s where (s.startTsUtc <= :to and s.endTsUtc >= :from) or s.recurrenceRule is not null")
+public interface ScheduleRepository extends JpaRepository<Schedule, String>, ScheduleFilterQueries {
+    // Series span overlaps the window; rows not yet backfilled are always included
+    String WINDOW = "(s.seriesStartUtc <= :to and s.seriesEndUtc >= :from) or s.seriesEndUtc is null";
+
+    @Query("select s from Schedule s where " + WINDOW)
     List<Schedule> findForWindow(@Param("from") long from, @Param("to") long to);
 
-    long countByTaskId(String taskId);
-}
+    @Query("select s.id from Schedule s where " + WINDOW)
+    List<String> findIdsForWindow(@Param("from") long from, @Param("to") long to);
 
+    // Series with an instance an exception moved into the window; their own span may not overlap it
+    @Query("select distinct s from Schedule s, ScheduleException x where x.scheduleId = s.id" +
+           " and (x.changeStartTsUtc is not null or x.changeEndTsUtc is not null)" +
+           " and coalesce(x.changeStartTsUtc, x.exDateUtc) <= :to" +
+           " and coalesce(x.changeEndTsUtc, x.exDateUtc + (s.endTsUtc - s.startTsUtc)) >= :from")
+    List<Schedule> findMovedInto(@Param("from") long from, @Param("to") long to);
 
+    long countByTaskId(String taskId);
+}
@@ -0,0 +1,16 @@
+package com.timeblocks.repo;
+
+import java.util.List;
+
+/** SQLite 3.24+: {@code IS NOT} is the null-safe inequality. */
+public class SqliteUpsertDialect implements UpsertDialect {
+    @Override
+    public String changed(String table, List<String> columns) {
+        StringBuilder sql = new StringBuilder();
+        for (String c : columns) {
+            if (sql.length() > 0) sql.append(" OR ");
+            sql.append(table).append('.').append(c).append(" IS NOT excluded.").append(c);
+        }
+        return sql.toString();
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -24,6 +25,13 @@ public interface TaskRepository extends JpaRepository<Task, Integer> {
     @Modifying
     @Query("DELETE FROM Task t WHERE t.typeId = :typeId")
     void deleteByTypeId(@Param("typeId") Integer typeId);
+
+    // Set-based recompute of the scheduled flag (1 while any schedule references the task)
+    @Modifying
+    @Query(value = "UPDATE tasks SET scheduled = CASE WHEN EXISTS " +
+            "(SELECT 1 FROM schedules s WHERE s.task_id = CAST(tasks.id AS TEXT)) THEN 1 ELSE 0 END " +
+            "WHERE id IN (:ids)", nativeQuery = true)
+    int recomputeScheduled(@Param("ids") Collection<Integer> ids);
 }
 
 
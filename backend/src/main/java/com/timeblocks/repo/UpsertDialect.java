@@ -0,0 +1,41 @@
+package com.timeblocks.repo;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SQL for the JDBC upsert path ({@link UpsertRepository}). SQLite and Postgres both take
+ * {@code INSERT ... ON CONFLICT}; they differ in the null-safe comparison used to skip updates
+ * that would change nothing, which keeps unchanged rows from being rewritten (and from firing
+ * the change_log triggers).
+ */
+public interface UpsertDialect {
+
+    /** Predicate, usable in {@code DO UPDATE ... WHERE}, that the stored row differs from EXCLUDED. */
+    String changed(String table, List<String> columns);
+
+    /** Insert one row, or update every non-id column of the row with the same id. */
+    default String upsert(String table, List<String> columns) {
+        List<String> rest = columns.subList(1, columns.size());
+        StringBuilder sql = new StringBuilder(insert(table, columns)).append(" ON CONFLICT(").append(columns.get(0)).append(") DO UPDATE SET ");
+        for (int i = 0; i < rest.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(rest.get(i)).append(" = excluded.").append(rest.get(i));
+        }
+        return sql.append(" WHERE ").append(changed(table, rest)).toString();
+    }
+
+    /** Insert one row unless any unique key already holds it. */
+    default String insertNew(String table, List<String> columns) {
+        return insert(table, columns) + " ON CONFLICT DO NOTHING";
+    }
+
+    private static String insert(String table, List<String> columns) {
+        return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES (" +
+                String.join(",", Collections.nCopies(columns.size(), "?")) + ")";
+    }
+
+    static UpsertDialect forUrl(String jdbcUrl) {
+        return jdbcUrl != null && jdbcUrl.startsWith("jdbc:postgresql:") ? new PostgresUpsertDialect() : new SqliteUpsertDialect();
+    }
+}
@@ -0,0 +1,142 @@
+package com.timeblocks.repo;
+
+import com.timeblocks.model.Event;
+import com.timeblocks.model.EventOccurrence;
+import com.timeblocks.model.EventType;
+import com.timeblocks.model.LibraryEvent;
+import com.timeblocks.model.Schedule;
+import com.timeblocks.model.ScheduleException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Batched JDBC writes for the entities with assigned String ids. {@code save()} on those goes
+ * through Hibernate's merge, which SELECTs the row before inserting or updating it; here each
+ * batch of up to {@value #BATCH} rows is one {@code INSERT ... ON CONFLICT} statement execution.
+ * Entity callbacks do not run on this path, so the {@code save} methods apply them first.
+ * Rows written here are not in the persistence context of the current transaction.
+ */
+@Repository
+public class UpsertRepository {
+    private static final int BATCH = 500;
+
+    /** A table, its columns (id first) and the bind values of one entity in column order. */
+    public record Table<T>(String name, List<String> columns, Function<T, Object[]> binder) { }
+
+    public static final Table<Event> EVENTS = new Table<>("events",
+            List.of("id", "calendar_id", "library_event_id", "task_id", "type_id", "title", "notes", "tzid",
+                    "start_utc", "end_utc", "is_all_day", "recurrence_rule", "created_by", "created_at_utc",
+                    "series_start_utc", "series_end_utc", "start_ms", "end_ms"),
+            e -> new Object[]{e.getId(), e.getCalendarId(), e.getLibraryEventId(), e.getTaskId(), e.getTypeId(),
+                    e.getTitle(), e.getNotes(), e.getTzid(), e.getStartUtc(), e.getEndUtc(), e.getIsAllDay(),
+                    e.getRecurrenceRule(), e.getCreatedBy(), e.getCreatedAtUtc(), e.getSeriesStartUtc(),
+                    e.getSeriesEndUtc(), e.getStartMs(), e.getEndMs()});
+
+    // NOT NULL columns fall back to their schema defaults
+    public static final Table<EventOccurrence> EVENT_OCCURRENCES = new Table<>("event_occurrences",
+            List.of("id", "event_id", "calendar_id", "start_utc", "end_utc", "start_ms", "end_ms", "tzid",
+                    "status", "is_exception", "payload_jsonb"),
+            o -> new Object[]{o.getId(), o.getEventId(), o.getCalendarId(), o.getStartUtc(), o.getEndUtc(),
+                    o.getStartMs(), o.getEndMs(),
+                    o.getTzid() != null ? o.getTzid() : "UTC",
+                    o.getStatus() != null ? o.getStatus() : "confirmed",
+                    o.getIsException() != null ? o.getIsException() : 0,
+                    o.getPayloadJsonb() != null ? o.getPayloadJsonb() : "{}"});
+
+    public static final Table<Schedule> SCHEDULES = new Table<>("schedules",
+            List.of("id", "task_id", "start_ts_utc", "end_ts_utc", "timezone", "all_day", "lane_id", "status",
+                    "recurrence_rule", "meta", "created_at", "updated_at", "series_start_utc", "series_end_utc"),
+            s -> new Object[]{s.getId(), s.getTaskId(), s.getStartTsUtc(), s.getEndTsUtc(), s.getTimezone(),
+                    s.getAllDay(), s.getLaneId(), s.getStatus(), s.getRecurrenceRule(), s.getMeta(),
+                    s.getCreatedAt(), s.getUpdatedAt(), s.getSeriesStartUtc(), s.getSeriesEndUtc()});
+
+    public static final Table<ScheduleException> SCHEDULE_EXCEPTIONS = new Table<>("schedule_exceptions",
+            List.of("id", "schedule_id", "ex_date_utc", "change_start_ts_utc", "change_end_ts_utc",
+                    "change_lane_id", "change_status", "meta", "created_at"),
+            x -> new Object[]{x.getId(), x.getScheduleId(), x.getExDateUtc(), x.getChangeStartTsUtc(),
+                    x.getChangeEndTsUtc(), x.getChangeLaneId(), x.getChangeStatus(), x.getMeta(), x.getCreatedAt()});
+
+    public static final Table<EventType> EVENT_TYPES = new Table<>("event_types",
+            List.of("id", "workspace_id", "name", "color", "icon", "defaults_jsonb"),
+            t -> new Object[]{t.getId(), t.getWorkspaceId(), t.getName(), t.getColor(), t.getIcon(), t.getDefaultsJsonb()});
+
+    public static final Table<LibraryEvent> LIBRARY_EVENTS = new Table<>("library_events",
+            List.of("id", "workspace_id", "type_id", "name", "default_duration_min", "color", "notes"),
+            l -> new Object[]{l.getId(), l.getWorkspaceId(), l.getTypeId(), l.getName(), l.getDefaultDurationMin(),
+                    l.getColor(), l.getNotes()});
+
+    private final JdbcTemplate jdbc;
+    private final UpsertDialect dialect;
+    private final Map<String, String> upsertSql = new ConcurrentHashMap<>();
+    private final Map<String, String> insertSql = new ConcurrentHashMap<>();
+
+    public UpsertRepository(JdbcTemplate jdbc, @Value("${spring.datasource.url:}") String url) {
+        this.jdbc = jdbc;
+        this.dialect = UpsertDialect.forUrl(url);
+    }
+
+    /** Inserts rows or overwrites the mapped columns of existing ones; unchanged rows are left alone. */
+    public <T> void upsert(Table<T> table, Collection<? extends T> rows) {
+        write(upsertSql.computeIfAbsent(table.name(), k -> dialect.upsert(table.name(), table.columns())), table, rows);
+    }
+
+    /** Inserts rows that are not stored yet (by id or any other unique key); existing ones are kept. */
+    public <T> void insertNew(Table<T> table, Collection<? extends T> rows) {
+        write(insertSql.computeIfAbsent(table.name(), k -> dialect.insertNew(table.name(), table.columns())), table, rows);
+    }
+
+    public Event save(Event e) {
+        e.computeSeriesBounds();
+        upsert(EVENTS, List.of(e));
+        return e;
+    }
+
+    public Schedule save(Schedule s) {
+        s.computeSeriesBounds();
+        upsert(SCHEDULES, List.of(s));
+        return s;
+    }
+
+    public List<Schedule> saveAll(List<Schedule> schedules) {
+        for (Schedule s : schedules) s.computeSeriesBounds();
+        upsert(SCHEDULES, schedules);
+        return schedules;
+    }
+
+    public ScheduleException save(ScheduleException x) {
+        upsert(SCHEDULE_EXCEPTIONS, List.of(x));
+        return x;
+    }
+
+    public EventType save(EventType t) {
+        upsert(EVENT_TYPES, List.of(t));
+        return t;
+    }
+
+    public LibraryEvent save(LibraryEvent l) {
+        upsert(LIBRARY_EVENTS, List.of(l));
+        return l;
+    }
+
+    private <T> void write(String sql, Table<T> table, Collection<? extends T> rows) {
+        if (rows.isEmpty()) return;
+        if (rows.size() == 1) {
+            jdbc.update(sql, table.binder().apply(rows.iterator().next()));
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(Math.min(rows.size(), BATCH));
+        for (T row : rows) {
+            batch.add(table.binder().apply(row));
+            if (batch.size() == BATCH) { jdbc.batchUpdate(sql, batch); batch.clear(); }
+        }
+        if (!batch.isEmpty()) jdbc.batchUpdate(sql, batch);
+    }
+}
@@ -0,0 +1,24 @@
+package com.timeblocks.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers side effects that must only see committed data (in-memory indexes, change
+ * notices, read-back checks) until the surrounding transaction commits. Outside a
+ * transaction the action runs immediately; after a rollback it never runs.
+ */
+public final class AfterCommit {
+    private AfterCommit() { }
+
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() { action.run(); }
+        });
+    }
+}
@@ -0,0 +1,106 @@
+package com.timeblocks.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.timeblocks.model.Schedule;
+import com.timeblocks.model.Task;
+import com.timeblocks.repo.UpsertRepository;
+import com.timeblocks.repo.TaskRepository;
+import com.timeblocks.repo.UserSettingsRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Places unscheduled tasks into free time as new schedules, all in one transaction.
+ * Busy time is every lane plus the given calendars; constraints come from the settings JSON
+ * (work hours/days, buffer, default block, daily cap). Tasks already marked scheduled are skipped.
+ */
+@Service
+public class AutoPlaceService {
+    private static final Long SETTINGS_ID = 1L;
+
+    /** Explicit task ids win over typeId; dryRun computes placements without writing. */
+    public record Request(List<Integer> taskIds, Integer typeId, long from, long to,
+                          String laneId, List<String> calendarIds, boolean dryRun) { }
+
+    public record Outcome(List<Schedule> schedules, List<Integer> unplaced, List<Integer> skipped, boolean dryRun) { }
+
+    private final TaskRepository tasks;
+    private final UpsertRepository upserts;
+    private final UserSettingsRepository settings;
+    private final FreeBusyService freeBusy;
+    private final ObjectMapper mapper;
+
+    public AutoPlaceService(TaskRepository tasks, UpsertRepository upserts, UserSettingsRepository settings,
+                            FreeBusyService freeBusy, ObjectMapper mapper) {
+        this.tasks = tasks;
+        this.upserts = upserts;
+        this.settings = settings;
+        this.freeBusy = freeBusy;
+        this.mapper = mapper;
+    }
+
+    @Transactional
+    public Outcome place(Request req) {
+        if (req.to() <= req.from()) throw new IllegalArgumentException("timeMax must be after timeMin");
+        List<Task> pool;
+        if (req.taskIds() != null && !req.taskIds().isEmpty()) pool = tasks.findAllById(req.taskIds());
+        else if (req.typeId() != null) pool = tasks.findByTypeId(req.typeId());
+        else throw new IllegalArgumentException("taskIds or typeId is required");
+
+        AutoPlacer.Constraints c = constraints();
+        List<Integer> skipped = new ArrayList<>();
+        List<AutoPlacer.Item> items = new ArrayList<>();
+        Map<String, Task> byKey = new HashMap<>();
+        for (Task t : pool) {
+            if (Boolean.TRUE.equals(t.getScheduled()) || "done".equalsIgnoreCase(t.getStatus())) {
+                skipped.add(t.getId());
+                continue;
+            }
+            String key = String.valueOf(t.getId());
+            byKey.put(key, t);
+            items.add(new AutoPlacer.Item(key, t.getDuration() == null ? 0 : t.getDuration(), t.getAttachedDate()));
+        }
+
+        List<BusyBitmap.Range> busy = items.isEmpty() ? List.of()
+                : freeBusy.busy(req.from(), req.to(), c.zone(), 1, ScheduleFilter.NONE, req.calendarIds()).busyRanges();
+        AutoPlacer.Result result = AutoPlacer.place(items, req.from(), req.to(), c, busy);
+
+        long now = System.currentTimeMillis();
+        List<Schedule> created = new ArrayList<>(result.placed().size());
+        for (AutoPlacer.Placement p : result.placed()) {
+            Schedule s = new Schedule();
+            s.setId(UUID.randomUUID().toString());
+            s.setTaskId(p.key());
+            s.setStartTsUtc(p.start());
+            s.setEndTsUtc(p.end());
+            s.setTimezone(c.zone().getId());
+            s.setLaneId(req.laneId());
+            s.setCreatedAt(now);
+            s.setUpdatedAt(now);
+            created.add(s);
+        }
+        created.sort(Comparator.comparingLong(Schedule::getStartTsUtc));
+
+        if (!req.dryRun() && !created.isEmpty()) {
+            created = upserts.saveAll(created);
+            for (AutoPlacer.Placement p : result.placed()) byKey.get(p.key()).setScheduled(true);
+        }
+        List<Integer> unplaced = new ArrayList<>(result.unplaced().size());
+        for (String key : result.unplaced()) unplaced.add(byKey.get(key).getId());
+        return new Outcome(created, unplaced, skipped, req.dryRun());
+    }
+
+    private AutoPlacer.Constraints constraints() {
+        String json = settings.findById(SETTINGS_ID).map(s -> s.getJson()).orElse(null);
+        if (json == null || json.isBlank()) return AutoPlacer.Constraints.DEFAULTS;
+        try {
+            JsonNode root = mapper.readTree(json);
+            return AutoPlacer.Constraints.of(root);
+        } catch (Exception e) {
+            return AutoPlacer.Constraints.DEFAULTS;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.timeblocks.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.timeblocks.recurrence.ZoneOffsetTable;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Packs blocks of work into free time. Each working day keeps a free list: its work-hours
+ * window minus existing busy time (widened by the buffer on both sides), as sorted gaps.
+ * Items go first-fit, pinned ones (an attached date) first and then longest first, and each
+ * placement shrinks its gap by the block plus buffer. No DB access; {@link AutoPlaceService}
+ * supplies busy time and persists the result.
+ */
+public final class AutoPlacer {
+    private static final long MINUTE_MS = 60_000L;
+
+    /** The scheduling part of the settings JSON, with the frontend defaults filled in. */
+    public record Constraints(ZoneId zone, Set<DayOfWeek> workDays, int workStartMinute, int workEndMinute,
+                              int bufferMinutes, int defaultBlockMinutes, int maxDailyMinutes) {
+
+        public static final Constraints DEFAULTS = new Constraints(ZoneOffset.UTC,
+                EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), 9 * 60, 17 * 60, 5, 30, 480);
+
+        /** Reads general.{timeZone,workDays,workHours} and scheduling.*; missing or bad values keep the default. */
+        public static Constraints of(JsonNode settings) {
+            if (settings == null || settings.isMissingNode() || settings.isNull()) return DEFAULTS;
+            JsonNode general = settings.path("general");
+            JsonNode scheduling = settings.path("scheduling");
+
+            ZoneId zone = ZoneOffsetTable.zoneOrUtc(general.path("timeZone").asText(""));
+            Set<DayOfWeek> days = DEFAULTS.workDays();
+            if (general.path("workDays").isArray()) {
+                days = EnumSet.noneOf(DayOfWeek.class);
+                for (JsonNode d : general.path("workDays")) {
+                    DayOfWeek dow = dayOf(d.asText(""));
+                    if (dow != null) days.add(dow);
+                }
+            }
+            JsonNode hours = general.path("workHours");
+            return new Constraints(zone, days,
+                    minuteOf(hours.path("start").asText(""), DEFAULTS.workStartMinute()),
+                    minuteOf(hours.path("end").asText(""), DEFAULTS.workEndMinute()),
+                    Math.max(0, scheduling.path("bufferMinutes").asInt(DEFAULTS.bufferMinutes())),
+                    Math.max(1, scheduling.path("defaultBlockMinutes").asInt(DEFAULTS.defaultBlockMinutes())),
+                    Math.max(1, scheduling.path("maxDailyMinutes").asInt(DEFAULTS.maxDailyMinutes())));
+        }
+
+        private static DayOfWeek dayOf(String s) {
+            if (s.length() < 3) return null;
+            String p = s.substring(0, 3).toUpperCase(Locale.ROOT);
+            for (DayOfWeek d : DayOfWeek.values()) if (d.name().startsWith(p)) return d;
+            return null;
+        }
+
+        private static int minuteOf(String hhmm, int fallback) {
+            try {
+                LocalTime t = LocalTime.parse(hhmm);
+                return t.getHour() * 60 + t.getMinute();
+            } catch (DateTimeException e) {
+                return fallback;
+            }
+        }
+    }
+
+    /** Something to place: {@code minutes <= 0} means the default block; {@code onDay} pins it to a date. */
+    public record Item(String key, int minutes, LocalDate onDay) { }
+
+    public record Placement(String key, long start, long end) { }
+
+    public record Result(List<Placement> placed, List<String> unplaced) { }
+
+    private AutoPlacer() { }
+
+    /**
+     * Places {@code items} inside [from, to). {@code busy} must be sorted by start; overlapping
+     * ranges are fine. Placements come back in item order of placement, not time order.
+     */
+    public static Result place(List<Item> items, long from, long to, Constraints c, List<BusyBitmap.Range> busy) {
+        List<Day> days = freeList(from, to, c, busy);
+        Map<LocalDate, Day> byDate = new HashMap<>();
+        for (Day d : days) byDate.put(d.date, d);
+
+        List<Item> order = new ArrayList<>(items);
+        order.sort(Comparator.comparing((Item i) -> i.onDay() == null)
+                .thenComparing(i -> -minutesOf(i, c)));
+
+        long bufferMs = c.bufferMinutes() * MINUTE_MS;
+        List<Placement> placed = new ArrayList<>();
+        List<String> unplaced = new ArrayList<>();
+        for (Item item : order) {
+            int minutes = minutesOf(item, c);
+            Placement p = null;
+            if (item.onDay() != null) {
+                Day d = byDate.get(item.onDay());
+                if (d != null) p = d.take(item.key(), minutes, bufferMs, c.maxDailyMinutes());
+            } else {
+                for (Day d : days) {
+                    if ((p = d.take(item.key(), minutes, bufferMs, c.maxDailyMinutes())) != null) break;
+                }
+            }
+            if (p != null) placed.add(p); else unplaced.add(item.key());
+        }
+        return new Result(placed, unplaced);
+    }
+
+    private static int minutesOf(Item i, Constraints c) {
+        return i.minutes() > 0 ? i.minutes() : c.defaultBlockMinutes();
+    }
+
+    /** Working days in [from, to) with their gaps; busy time inside work hours counts toward the daily cap. */
+    static List<Day> freeList(long from, long to, Constraints c, List<BusyBitmap.Range> busy) {
+        List<Day> days = new ArrayList<>();
+        long bufferMs = c.bufferMinutes() * MINUTE_MS;
+        int endMinute = c.workEndMinute() > c.workStartMinute() ? c.workEndMinute() : c.workEndMinute() + 24 * 60;
+        LocalDate last = Instant.ofEpochMilli(to).atZone(c.zone()).toLocalDate();
+        int b = 0;
+        for (LocalDate date = Instant.ofEpochMilli(from).atZone(c.zone()).toLocalDate().minusDays(1);
+             !date.isAfter(last); date = date.plusDays(1)) {
+            if (!c.workDays().contains(date.getDayOfWeek())) continue;
+            // wall-clock hours, so a DST day keeps 9:00-17:00 rather than shifting by the change
+            long ws = Math.max(from, localMs(date, c.workStartMinute(), c.zone()));
+            long we = Math.min(to, localMs(date, endMinute, c.zone()));
+            if (we <= ws) continue;
+
+            Day day = new Day(date);
+            // busy is start-sorted and days are increasing: skip ranges that end before this window (plus buffer)
+            while (b < busy.size() && busy.get(b).end() + bufferMs <= ws) b++;
+            long cursor = ws, counted = ws, usedMs = 0;
+            for (int i = b; i < busy.size(); i++) {
+                BusyBitmap.Range r = busy.get(i);
+                if (r.start() - bufferMs >= we) break;
+                long s = Math.max(r.start(), counted), e = Math.min(r.end(), we);
+                if (e > s) { usedMs += e - s; counted = e; }
+                long gapEnd = r.start() - bufferMs;
+                if (gapEnd > cursor) day.addGap(cursor, gapEnd);
+                cursor = Math.max(cursor, r.end() + bufferMs);
+            }
+            if (we > cursor) day.addGap(cursor, we);
+            day.usedMinutes = (int) (usedMs / MINUTE_MS);
+            days.add(day);
+        }
+        return days;
+    }
+
+    private static long localMs(LocalDate date, int minute, ZoneId zone) {
+        return date.atStartOfDay().plusMinutes(minute).atZone(zone).toInstant().toEpochMilli();
+    }
+
+    /** One working day: free gaps as parallel start/end arrays, in time order. */
+    static final class Day {
+        final LocalDate date;
+        long[] starts = new long[4];
+        long[] ends = new long[4];
+        int gaps;
+        int usedMinutes;
+
+        Day(LocalDate date) { this.date = date; }
+
+        void addGap(long s, long e) {
+            if (gaps == starts.length) {
+                starts = Arrays.copyOf(starts, gaps * 2);
+                ends = Arrays.copyOf(ends, gaps * 2);
+            }
+            starts[gaps] = s;
+            ends[gaps] = e;
+            gaps++;
+        }
+
+        /** First fit; the block plus buffer is cut off the front of its gap. */
+        Placement take(String key, int minutes, long bufferMs, int maxDailyMinutes) {
+            if (usedMinutes + minutes > maxDailyMinutes) return null;
+            long len = minutes * MINUTE_MS;
+            for (int i = 0; i < gaps; i++) {
+                if (ends[i] - starts[i] < len) continue;
+                long start = starts[i];
+                starts[i] = start + len + bufferMs;
+                if (starts[i] >= ends[i]) {
+                    System.arraycopy(starts, i + 1, starts, i, gaps - i - 1);
+                    System.arraycopy(ends, i + 1, ends, i, gaps - i - 1);
+                    gaps--;
+                }
+                usedMinutes += minutes;
+                return new Placement(key, start, start + len);
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.timeblocks.service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Busy time over a window as a bitset with one bit per slot (one minute by default), laid out
+ * contiguously from {@code origin}. The window is a run of calendar days in one zone, and day
+ * boundaries come from {@link LocalDate#atStartOfDay(ZoneId)}, so a DST day is 23 or 25 hours of
+ * bits rather than a fixed 24: day {@code d} owns the slots from the one holding its local
+ * midnight up to the one holding the next. Marking, combining and range scans are word-at-a-time,
+ * so a month of free/busy is a few thousand longs however many blocks went into it.
+ *
+ * A block marks every slot it touches, so busy time is rounded outward to slot boundaries.
+ */
+public final class BusyBitmap {
+    public static final long MINUTE_MS = 60_000L;
+
+    /** A half-open range [start, end) in epoch ms. */
+    public record Range(long start, long end) { }
+
+    private final long origin;
+    private final long slotMs;
+    private final int slots;
+    private final long[] words;
+    /** Local midnights in epoch ms: day {@code d} is [dayStarts[d], dayStarts[d + 1]). */
+    private final long[] dayStarts;
+
+    /**
+     * Covers the {@code days} calendar days from {@code first} in {@code zone}, local midnight to
+     * local midnight; {@code slotMinutes} must divide a day.
+     */
+    public BusyBitmap(LocalDate first, int days, ZoneId zone, int slotMinutes) {
+        this(dayStarts(first, days, zone), slotMinutes);
+    }
+
+    private BusyBitmap(long[] dayStarts, int slotMinutes) {
+        if (slotMinutes < 1 || 1440 % slotMinutes != 0) {
+            throw new IllegalArgumentException("slotMinutes must divide 1440: " + slotMinutes);
+        }
+        this.dayStarts = dayStarts;
+        this.origin = dayStarts[0];
+        this.slotMs = slotMinutes * MINUTE_MS;
+        // a 23 h day need not be a whole number of slots; the last one may run past the window
+        this.slots = (int) ((dayStarts[dayStarts.length - 1] - origin + slotMs - 1) / slotMs);
+        this.words = new long[(slots + 63) >>> 6];
+    }
+
+    private static long[] dayStarts(LocalDate first, int days, ZoneId zone) {
+        if (days < 1) throw new IllegalArgumentException("days must be >= 1");
+        long[] out = new long[days + 1];
+        for (int d = 0; d <= days; d++) out[d] = first.plusDays(d).atStartOfDay(zone).toInstant().toEpochMilli();
+        return out;
+    }
+
+    public long origin() { return origin; }
+    public long end() { return origin + slots * slotMs; }
+    public int slotMinutes() { return (int) (slotMs / MINUTE_MS); }
+    public int days() { return dayStarts.length - 1; }
+
+    /** Local midnight starting day {@code d}, in epoch ms. */
+    public long dayStart(int d) { return dayStarts[d]; }
+
+    /** Marks [start, end) busy, clipped to the bitmap. */
+    public void mark(long start, long end) {
+        if (end <= start || end <= origin || start >= end()) return;
+        int from = (int) ((Math.max(start, origin) - origin) / slotMs);
+        int to = (int) Math.min(slots, (Math.min(end, end()) - origin + slotMs - 1) / slotMs);
+        setRange(from, to);
+    }
+
+    /** In-place union with a bitmap of the same shape. */
+    public BusyBitmap or(BusyBitmap other) {
+        if (other.origin != origin || other.slotMs != slotMs || other.slots != slots) {
+            throw new IllegalArgumentException("bitmaps differ in origin, resolution or length");
+        }
+        for (int i = 0; i < words.length; i++) words[i] |= other.words[i];
+        return this;
+    }
+
+    public boolean isBusy(long instant) {
+        if (instant < origin || instant >= end()) return false;
+        int i = (int) ((instant - origin) / slotMs);
+        return (words[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /** True when no slot touched by [start, end) is busy. */
+    public boolean isFree(long start, long end) {
+        if (end <= start) return true;
+        int from = (int) ((Math.max(start, origin) - origin) / slotMs);
+        int to = (int) Math.min(slots, (Math.min(end, end()) - origin + slotMs - 1) / slotMs);
+        return from >= to || nextSet(from) >= to;
+    }
+
+    /** One day's bits (bit 0 = the slot holding its local midnight), as a fresh array; DST days differ in length. */
+    public long[] day(int d) {
+        if (d < 0 || d >= days()) throw new IndexOutOfBoundsException("day " + d);
+        int base = (int) ((dayStarts[d] - origin) / slotMs);
+        int next = d + 1 == days() ? slots : (int) ((dayStarts[d + 1] - origin) / slotMs);
+        int perDay = next - base;
+        long[] out = new long[(perDay + 63) >>> 6];
+        for (int i = 0; i < out.length; i++) {
+            int bit = base + (i << 6);
+            long w = wordAt(bit);
+            int valid = Math.min(64, perDay - (i << 6));
+            out[i] = valid == 64 ? w : w & ((1L << valid) - 1);
+        }
+        return out;
+    }
+
+    /** Maximal busy runs, in order. */
+    public List<Range> busyRanges() {
+        List<Range> out = new ArrayList<>();
+        int i = nextSet(0);
+        while (i < slots) {
+            int j = nextClear(i);
+            out.add(new Range(origin + i * slotMs, origin + j * slotMs));
+            i = nextSet(j);
+        }
+        return out;
+    }
+
+    /** Maximal free runs of at least {@code minMs}, in order. */
+    public List<Range> freeRanges(long minMs) {
+        List<Range> out = new ArrayList<>();
+        int i = nextClear(0);
+        while (i < slots) {
+            int j = nextSet(i);
+            if ((j - i) * slotMs >= minMs) out.add(new Range(origin + i * slotMs, origin + j * slotMs));
+            i = nextClear(j);
+        }
+        return out;
+    }
+
+    /** Busy time in ms (slot-rounded). */
+    public long busyMs() {
+        long n = 0;
+        for (long w : words) n += Long.bitCount(w);
+        return n * slotMs;
+    }
+
+    public BusyBitmap copy() {
+        BusyBitmap c = new BusyBitmap(dayStarts, slotMinutes());
+        System.arraycopy(words, 0, c.words, 0, words.length);
+        return c;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof BusyBitmap b && b.origin == origin && b.slotMs == slotMs && Arrays.equals(b.words, words);
+    }
+
+    @Override
+    public int hashCode() { return Long.hashCode(origin) * 31 + Arrays.hashCode(words); }
+
+    // ---- bit ops ----
+
+    private void setRange(int from, int to) {
+        if (from >= to) return;
+        int fw = from >>> 6, lw = (to - 1) >>> 6;
+        long first = -1L << from, last = -1L >>> (63 - ((to - 1) & 63));
+        if (fw == lw) { words[fw] |= first & last; return; }
+        words[fw] |= first;
+        for (int w = fw + 1; w < lw; w++) words[w] = -1L;
+        words[lw] |= last;
+    }
+
+    /** Index of the first set bit at or after {@code i}, or {@code slots}. */
+    private int nextSet(int i) {
+        if (i >= slots) return slots;
+        int w = i >>> 6;
+        long word = words[w] & (-1L << i);
+        while (true) {
+            if (word != 0) return Math.min(slots, (w << 6) + Long.numberOfTrailingZeros(word));
+            if (++w == words.length) return slots;
+            word = words[w];
+        }
+    }
+
+    /** Index of the first clear bit at or after {@code i}, or {@code slots}. */
+    private int nextClear(int i) {
+        if (i >= slots) return slots;
+        int w = i >>> 6;
+        long word = ~words[w] & (-1L << i);
+        while (true) {
+            if (word != 0) return Math.min(slots, (w << 6) + Long.numberOfTrailingZeros(word));
+            if (++w == words.length) return slots;
+            word = ~words[w];
+        }
+    }
+
+    /** 64 bits starting at {@code bit} (not necessarily word-aligned). */
+    private long wordAt(int bit) {
+        int w = bit >>> 6, off = bit & 63;
+        long lo = words[w] >>> off;
+        if (off == 0 || w + 1 >= words.length) return lo;
+        return lo | (words[w + 1] << (64 - off));
+    }
+}
@@ -0,0 +1,164 @@
+package com.timeblocks.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-process fan-out of change notifications to push subscribers (the SSE stream).
+ * Publishing never blocks on a client: each subscriber has a bounded buffer keyed by
+ * entity and id, where repeated changes to one row coalesce (last op wins, time spans
+ * are unioned). A subscriber whose buffer fills up gets one "resync" instead of the backlog.
+ * Delivery runs on a small shared pool, one drain at a time per subscriber.
+ */
+@Component
+public class ChangeBus {
+    private static final Logger log = LoggerFactory.getLogger(ChangeBus.class);
+
+    /**
+     * One changed row. {@code start}/{@code end} (epoch ms) bound the time it occupied before and
+     * after the change, when it has one, so clients refetch only overlapping windows.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Notice(String entity, String id, String op, Long start, Long end, String calendarId) {
+
+        public static Notice of(String entity, Object id, String op) {
+            return new Notice(entity, String.valueOf(id), op, null, null, null);
+        }
+
+        public static Notice span(String entity, Object id, String op, Long start, Long end, String calendarId) {
+            return new Notice(entity, String.valueOf(id), op, start, end, calendarId);
+        }
+
+        String key() { return entity + ":" + id; }
+
+        Notice merge(Notice later) {
+            return new Notice(entity, id, later.op,
+                    start == null ? later.start : later.start == null ? start : Math.min(start, later.start),
+                    end == null ? later.end : later.end == null ? end : Math.max(end, later.end),
+                    later.calendarId != null ? later.calendarId : calendarId);
+        }
+    }
+
+    /** Receives coalesced batches; called from one pool thread at a time per subscriber. */
+    public interface Sink {
+        /**
+         * {@code resync} replaces an overflowed backlog; an empty batch without it is a heartbeat.
+         * Throw to drop the subscription (the client went away).
+         */
+        void send(List<Notice> notices, boolean resync) throws Exception;
+    }
+
+    public final class Subscription implements AutoCloseable {
+        private final Sink sink;
+        private final LinkedHashMap<String, Notice> pending = new LinkedHashMap<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private boolean overflow;
+        private boolean ping;
+        private volatile boolean closed;
+
+        private Subscription(Sink sink) { this.sink = sink; }
+
+        private void offer(Notice n) {
+            synchronized (this) {
+                if (overflow) return;
+                Notice prev = pending.remove(n.key());
+                pending.put(n.key(), prev == null ? n : prev.merge(n));
+                if (pending.size() > bufferSize) { pending.clear(); overflow = true; }
+            }
+            schedule();
+        }
+
+        private void ping() {
+            synchronized (this) { ping = true; }
+            schedule();
+        }
+
+        private void schedule() {
+            if (!closed && draining.compareAndSet(false, true)) {
+                try { pool.execute(this::drain); }
+                catch (RejectedExecutionException e) { draining.set(false); }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (!closed) {
+                    List<Notice> batch;
+                    boolean resync;
+                    synchronized (this) {
+                        if (pending.isEmpty() && !overflow && !ping) break;
+                        batch = new ArrayList<>(pending.values());
+                        resync = overflow;
+                        pending.clear();
+                        overflow = false;
+                        ping = false;
+                    }
+                    sink.send(resync ? List.of() : batch, resync);
+                }
+            } catch (Exception e) {
+                log.debug("Dropping change subscriber: {}", e.toString());
+                close();
+            } finally {
+                draining.set(false);
+            }
+            // a publish may have landed between the last check and releasing the flag
+            synchronized (this) {
+                if (!closed && (!pending.isEmpty() || overflow || ping)) schedule();
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            subscribers.remove(this);
+        }
+    }
+
+    private final Set<Subscription> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService pool;
+
+    @Value("${timeblocks.stream.buffer-size:256}")
+    int bufferSize;
+
+    public ChangeBus(@Value("${timeblocks.stream.threads:2}") int threads) {
+        this.pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "change-bus");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public Subscription subscribe(Sink sink) {
+        Subscription s = new Subscription(sink);
+        subscribers.add(s);
+        return s;
+    }
+
+    public void publish(Notice notice) {
+        if (notice == null || subscribers.isEmpty()) return;
+        for (Subscription s : subscribers) s.offer(notice);
+    }
+
+    /** Sends a heartbeat to every subscriber, which also finds clients that went away silently. */
+    @Scheduled(fixedDelayString = "${timeblocks.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (Subscription s : subscribers) s.ping();
+    }
+
+    public int subscriberCount() { return subscribers.size(); }
+
+    @PreDestroy
+    void shutdown() {
+        for (Subscription s : subscribers) s.close();
+        pool.shutdownNow();
+    }
+}
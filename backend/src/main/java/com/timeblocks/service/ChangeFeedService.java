@@ -0,0 +1,168 @@
+package com.timeblocks.service;
+
+import com.timeblocks.repo.EventRepository;
+import com.timeblocks.repo.ScheduleExceptionRepository;
+import com.timeblocks.repo.ScheduleRepository;
+import com.timeblocks.repo.SubtaskRepository;
+import com.timeblocks.repo.TaskRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Reads the trigger-fed change_log (V14) for delta sync. A page of log rows after a watermark
+ * is compacted to the last change per row: rows that still exist come back as upserts with
+ * their current state, the rest as tombstones. Old log rows are pruned daily; a watermark
+ * older than what is left must resync from full windows, as must a client without one (0).
+ * <p>
+ * Pages and watermarks never pass the safe head. On SQLite writers are serialized, so seq
+ * order is commit order and the safe head is the last seq. On Postgres a BIGSERIAL seq is
+ * drawn at insert time, and a transaction still open may commit below seqs already visible.
+ * There the safe head is the last seq drawn (change_log.changed_at, clock time since V18)
+ * before the oldest write transaction still open started, less {@code settle-ms}.
+ */
+@Service
+public class ChangeFeedService {
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeedService.class);
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    /** {@code op} is "upsert" (with {@code data}) or "delete". */
+    public record Change(long seq, String entity, String id, String op, Object data) { }
+
+    /**
+     * Resume from {@code next}; {@code hasMore} means another page is already waiting.
+     * {@code snapshot}: no changes are listed, load full windows first, then resume from {@code next}.
+     */
+    public record Page(long since, long next, boolean hasMore, List<Change> changes, boolean snapshot) { }
+
+    private final JdbcTemplate jdbc;
+    private final Map<String, Function<List<String>, Map<String, Object>>> loaders = new HashMap<>();
+
+    private final boolean postgres;
+
+    @Value("${timeblocks.changes.retention-days:30}")
+    int retentionDays;
+
+    @Value("${timeblocks.changes.settle-ms:1000}")
+    long settleMs;
+
+    public ChangeFeedService(JdbcTemplate jdbc, ScheduleRepository schedules, ScheduleExceptionRepository exceptions,
+                             EventRepository events, TaskRepository tasks, SubtaskRepository subtasks,
+                             @Value("${spring.datasource.url:}") String url) {
+        this.jdbc = jdbc;
+        this.postgres = url != null && url.startsWith("jdbc:postgresql:");
+        loaders.put("schedule", ids -> index(schedules.findAllById(ids), s -> s.getId()));
+        loaders.put("schedule_exception", ids -> index(exceptions.findAllById(ids), e -> e.getId()));
+        loaders.put("event", ids -> index(events.findAllById(ids), e -> e.getId()));
+        loaders.put("task", ids -> index(tasks.findAllById(ints(ids)), t -> String.valueOf(t.getId())));
+        loaders.put("subtask", ids -> index(subtasks.findAllById(ints(ids)), t -> String.valueOf(t.getId())));
+    }
+
+    /**
+     * Highest sequence no later change can land below (0 when there is none yet): the watermark
+     * to take before loading full windows.
+     */
+    public long head() {
+        Long seq = postgres
+                ? jdbc.queryForObject("SELECT MAX(seq) FROM change_log WHERE changed_at < ?", Long.class, settledBefore())
+                : jdbc.queryForObject("SELECT MAX(seq) FROM change_log", Long.class);
+        return seq == null ? 0 : seq;
+    }
+
+    /**
+     * Validator for conditional window reads, shared by every node on the database: changes
+     * whenever a write to a logged table commits. Past the safe head, rows of transactions that
+     * committed out of seq order are counted, so those commits change it too.
+     */
+    public String version() {
+        long head = head();
+        if (!postgres) return Long.toString(head);
+        Long tail = jdbc.queryForObject("SELECT COUNT(*) FROM change_log WHERE seq > ?", Long.class, head);
+        return head + "." + (tail == null ? 0 : tail);
+    }
+
+    /** True when log rows after {@code since} may already have been pruned; 0 is never expired (it gets a snapshot). */
+    public boolean expired(long since) {
+        if (since <= 0) return false;
+        Long oldest = jdbc.queryForObject("SELECT MIN(seq) FROM change_log", Long.class);
+        return oldest != null && since < oldest - 1;
+    }
+
+    @Transactional(readOnly = true)
+    public Page since(long since, int limit) {
+        long safe = head();
+        // no watermark: the log does not reach back to every row, so start from full windows
+        if (since <= 0) return new Page(since, safe, false, List.of(), true);
+
+        List<Object[]> rows = jdbc.query("SELECT seq, entity, entity_id FROM change_log WHERE seq > ? AND seq <= ? ORDER BY seq LIMIT ?",
+                (rs, i) -> new Object[]{rs.getLong(1), rs.getString(2), rs.getString(3)}, since, safe, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) rows = rows.subList(0, limit);
+        if (rows.isEmpty()) return new Page(since, since, false, List.of(), false);
+
+        // last change per (entity, id), remembered in seq order
+        Map<String, Object[]> latest = new LinkedHashMap<>();
+        for (Object[] r : rows) {
+            String key = r[1] + "\u0000" + r[2];
+            latest.remove(key);
+            latest.put(key, r);
+        }
+        Map<String, List<String>> idsByEntity = new HashMap<>();
+        for (Object[] r : latest.values()) idsByEntity.computeIfAbsent((String) r[1], k -> new ArrayList<>()).add((String) r[2]);
+        Map<String, Map<String, Object>> current = new HashMap<>();
+        idsByEntity.forEach((entity, ids) -> {
+            Function<List<String>, Map<String, Object>> loader = loaders.get(entity);
+            current.put(entity, loader == null ? Map.of() : loader.apply(ids));
+        });
+
+        List<Change> changes = new ArrayList<>(latest.size());
+        for (Object[] r : latest.values()) {
+            String entity = (String) r[1], id = (String) r[2];
+            Object data = current.get(entity).get(id);
+            changes.add(new Change((Long) r[0], entity, id, data != null ? "upsert" : "delete", data));
+        }
+        return new Page(since, (Long) rows.get(rows.size() - 1)[0], hasMore, changes, false);
+    }
+
+    /**
+     * Epoch ms before which every drawn seq is final: the start of the oldest open transaction
+     * that has written (only those can hold seqs), or now, less the settle margin. Sessions of
+     * other roles show no xid without pg_read_all_stats, so the app should own its database.
+     */
+    private long settledBefore() {
+        Long oldest = jdbc.queryForObject(
+                "SELECT (extract(epoch FROM COALESCE(MIN(xact_start), clock_timestamp())) * 1000)::bigint" +
+                " FROM pg_stat_activity WHERE backend_xid IS NOT NULL AND datname = current_database()" +
+                " AND pid <> pg_backend_pid()", Long.class);
+        return (oldest != null ? oldest : System.currentTimeMillis()) - Math.max(0, settleMs);
+    }
+
+    @Scheduled(cron = "${timeblocks.changes.prune-cron:0 45 3 * * *}")
+    public void prune() {
+        long cutoff = System.currentTimeMillis() - retentionDays * DAY_MS;
+        // the newest row always stays, so MIN(seq) keeps marking how far back the log reaches
+        int n = jdbc.update("DELETE FROM change_log WHERE changed_at < ? AND seq < (SELECT MAX(seq) FROM change_log)", cutoff);
+        if (n > 0) log.info("Pruned {} change_log rows older than {} days", n, retentionDays);
+    }
+
+    private static <T> Map<String, Object> index(List<T> rows, Function<T, String> id) {
+        Map<String, Object> out = new HashMap<>();
+        for (T row : rows) out.put(id.apply(row), row);
+        return out;
+    }
+
+    private static List<Integer> ints(List<String> ids) {
+        List<Integer> out = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            try { out.add(Integer.parseInt(id)); } catch (NumberFormatException ignored) {}
+        }
+        return out;
+    }
+}
@@ -0,0 +1,93 @@
+package com.timeblocks.service;
+
+import com.timeblocks.model.Event;
+import com.timeblocks.model.EventOccurrence;
+import com.timeblocks.recurrence.RecurrenceIterator;
+import com.timeblocks.recurrence.RecurrenceRule;
+import com.timeblocks.recurrence.ZoneOffsetTable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Expands a single event (one-off or recurring) into the event_occurrences rows overlapping
+ * [from, to], in start order. The seed instance keeps the event's own start/end strings, so
+ * its occurrence id matches the one of a one-off event.
+ */
+public final class EventExpander {
+    private EventExpander() { }
+
+    public static void expand(Event e, long from, long to, Consumer<EventOccurrence> sink) {
+        iterator(e, from, to).forEachRemaining(sink);
+    }
+
+    /** Same occurrences as {@link #expand}, produced lazily in start order. */
+    public static Iterator<EventOccurrence> iterator(Event e, long from, long to) {
+        long start, end;
+        if (e.getStartMs() != null && e.getEndMs() != null) {
+            start = e.getStartMs();
+            end = e.getEndMs();
+        } else {
+            try {
+                start = Instant.parse(e.getStartUtc()).toEpochMilli();
+                end = Instant.parse(e.getEndUtc()).toEpochMilli();
+            } catch (RuntimeException ex) {
+                return Collections.emptyIterator(); // malformed rows have no occurrences
+            }
+        }
+        RecurrenceRule rule = parseRule(e);
+        if (rule == null) {
+            // one-time, or a rule we cannot read: the seed instance only
+            if (end < from || start > to) return Collections.emptyIterator();
+            return List.of(occurrence(e, e.getStartUtc(), e.getEndUtc(), start, end)).iterator();
+        }
+        long dur = end - start;
+        // Anything starting at or after (from - dur) can still overlap the window
+        RecurrenceIterator it = new RecurrenceIterator(rule, start, ZoneOffsetTable.zoneOrUtc(e.getTzid()), from - dur, to);
+        return new Iterator<>() {
+            @Override public boolean hasNext() { return it.hasNext(); }
+
+            @Override public EventOccurrence next() {
+                long s = it.nextLong();
+                if (s == start) return occurrence(e, e.getStartUtc(), e.getEndUtc(), s, s + dur);
+                return occurrence(e, Instant.ofEpochMilli(s).toString(), Instant.ofEpochMilli(s + dur).toString(), s, s + dur);
+            }
+        };
+    }
+
+    /** Stable occurrence id: name-based UUID of event id, start and end. */
+    public static String occurrenceId(String eventId, String startUtc, String endUtc) {
+        String keySeed = eventId + "|" + startUtc + "|" + endUtc;
+        return UUID.nameUUIDFromBytes(keySeed.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private static EventOccurrence occurrence(Event e, String start, String end, long startMs, long endMs) {
+        EventOccurrence occ = new EventOccurrence();
+        occ.setId(occurrenceId(e.getId(), start, end));
+        occ.setEventId(e.getId());
+        occ.setCalendarId(e.getCalendarId());
+        occ.setStartUtc(start);
+        occ.setEndUtc(end);
+        occ.setStartMs(startMs);
+        occ.setEndMs(endMs);
+        occ.setTzid(e.getTzid());
+        occ.setStatus("confirmed");
+        occ.setIsException(0);
+        occ.setPayloadJsonb("{}");
+        return occ;
+    }
+
+    private static RecurrenceRule parseRule(Event e) {
+        if (e.getRecurrenceRule() == null || e.getRecurrenceRule().isBlank()) return null;
+        try {
+            return RecurrenceRule.parse(e.getRecurrenceRule());
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+}
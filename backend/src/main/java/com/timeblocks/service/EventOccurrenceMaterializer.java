@@ -0,0 +1,236 @@
+package com.timeblocks.service;
+
+import com.timeblocks.model.Event;
+import com.timeblocks.model.EventOccurrence;
+import com.timeblocks.repo.EventOccurrenceRepository;
+import com.timeblocks.repo.EventRepository;
+import com.timeblocks.repo.UpsertRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps event_occurrences filled with the expanded instances of every event for a rolling
+ * horizon around "now". The table is rebuilt at startup; the daily roll then only prunes
+ * instances that ended before the horizon and expands the newly added days, relying on
+ * ux_occ_event_window (and the id key) to skip instances already present. Writes to one
+ * event re-materialize just that event.
+ * <p>
+ * Rebuild and roll work in short transactions of a few hundred events and never hide rows
+ * readers are using: the horizon readers see only moves once the rows behind it are in place.
+ * Per-event refreshes join the caller's transaction and take no lock here, so a caller holding
+ * the database write lock can never wait on a rebuild that is itself waiting for that lock.
+ */
+@Service
+public class EventOccurrenceMaterializer {
+    private static final Logger log = LoggerFactory.getLogger(EventOccurrenceMaterializer.class);
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+    private static final int INSERT_BATCH = 500;
+    private static final int REBUILD_CHUNK = 200;
+
+    private final EventRepository events;
+    private final EventOccurrenceRepository occurrences;
+    private final OccurrenceWriteBehind writeBehind;
+    private final JdbcTemplate jdbc;
+    private final UpsertRepository upserts;
+    private final TransactionTemplate tx;
+
+    @Value("${timeblocks.occurrences.events.enabled:true}")
+    boolean enabled;
+
+    @Value("${timeblocks.occurrences.events.past-days:90}")
+    int pastDays;
+
+    @Value("${timeblocks.occurrences.events.future-days:365}")
+    int futureDays;
+
+    /** [from, to] in epoch ms. */
+    private record Span(long from, long to) {
+        Span intersect(Span o) {
+            long f = Math.max(from, o.from), t = Math.min(to, o.to);
+            return f <= t ? new Span(f, t) : null;
+        }
+
+        Span union(Span o) { return new Span(Math.min(from, o.from), Math.max(to, o.to)); }
+    }
+
+    // Span readers are served from the table (null: readers expand in memory), and span writes
+    // materialize (null: nothing is). They differ only while a rebuild or roll moves the horizon.
+    private volatile Span horizon;
+    private volatile Span fill;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public EventOccurrenceMaterializer(EventRepository events, EventOccurrenceRepository occurrences,
+                                       OccurrenceWriteBehind writeBehind, JdbcTemplate jdbc, UpsertRepository upserts,
+                                       TransactionTemplate tx) {
+        this.events = events;
+        this.occurrences = occurrences;
+        this.writeBehind = writeBehind;
+        this.jdbc = jdbc;
+        this.upserts = upserts;
+        this.tx = tx;
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    /** True when every instant of [from, to] is inside the materialized horizon. */
+    public boolean covers(long from, long to) {
+        Span h = horizon;
+        return enabled && h != null && from >= h.from && to <= h.to;
+    }
+
+    /**
+     * Full rebuild at startup, which also drops rows left behind by writes that bypassed us.
+     * Events are rewritten in chunks, then rows outside the horizon or without an event are swept.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAll() {
+        if (!enabled || !rebuilding.compareAndSet(false, true)) return;
+        long t0 = System.currentTimeMillis();
+        Span target = target(t0);
+        Span before = horizon;
+        boolean done = false;
+        try {
+            if (before != null) horizon = before.intersect(target);
+            fill = before != null ? before.union(target) : target;
+
+            List<String> ids = events.findIdsForWindow(target.from, target.to);
+            int total = 0;
+            for (int i = 0; i < ids.size(); i += REBUILD_CHUNK) {
+                List<String> chunk = ids.subList(i, Math.min(ids.size(), i + REBUILD_CHUNK));
+                Integer n = tx.execute(status -> rewrite(chunk, target));
+                total += n != null ? n : 0;
+            }
+            Integer swept = tx.execute(status -> prune(target));
+
+            fill = target;
+            horizon = target;
+            done = true;
+            log.info("Materialized {} event occurrences for {}/{} in {} ms ({} stale rows swept)", total,
+                    Instant.ofEpochMilli(target.from), Instant.ofEpochMilli(target.to), System.currentTimeMillis() - t0, swept);
+        } catch (RuntimeException e) {
+            log.error("Event occurrence rebuild failed; calendar windows outside what is stored are expanded in memory", e);
+        } finally {
+            if (!done) fill = horizon;
+            rebuilding.set(false);
+        }
+    }
+
+    /** Daily roll: expand the days that came into the horizon, then prune what fell out of it. */
+    @Scheduled(cron = "${timeblocks.occurrences.events.refresh-cron:0 20 3 * * *}")
+    public void roll() {
+        if (!enabled) return;
+        Span h = horizon;
+        if (h == null) { rebuildAll(); return; }
+        if (!rebuilding.compareAndSet(false, true)) return;
+        Span target = target(System.currentTimeMillis());
+        boolean done = false;
+        try {
+            fill = h.union(target); // refreshes from here on include the new days
+            int added = 0;
+            if (target.to > h.to) {
+                // instances overlapping the old edge are already there; ON CONFLICT skips them
+                List<String> ids = events.findIdsForWindow(h.to, target.to);
+                for (int i = 0; i < ids.size(); i += REBUILD_CHUNK) {
+                    List<String> chunk = ids.subList(i, Math.min(ids.size(), i + REBUILD_CHUNK));
+                    Integer n = tx.execute(status -> fill(events.findAllById(chunk), h.to, target.to));
+                    added += n != null ? n : 0;
+                }
+            }
+            // readers move first, so nothing they can ask for is pruned under them
+            horizon = target;
+            fill = target;
+            done = true;
+            Integer pruned = tx.execute(status -> prune(target));
+            log.info("Rolled event occurrence horizon: {} pruned, {} added", pruned, added);
+        } catch (RuntimeException e) {
+            log.error("Event occurrence roll failed; keeping the previous horizon", e);
+        } finally {
+            if (!done) fill = h;
+            rebuilding.set(false);
+        }
+    }
+
+    /** Re-materialize one event after it was created or changed. */
+    @Transactional
+    public void refreshEvent(Event e) {
+        if (e == null || e.getId() == null) return;
+        removeRows(List.of(e.getId()));
+        Span f = fill;
+        if (enabled && f != null) fill(List.of(e), f.from, f.to);
+    }
+
+    /** {@link #refreshEvent} for many events at once (bulk imports): one delete, batched inserts. */
+    @Transactional
+    public void refreshEvents(Collection<Event> batch) {
+        if (batch.isEmpty()) return;
+        List<String> eventIds = new ArrayList<>(batch.size());
+        for (Event e : batch) eventIds.add(e.getId());
+        removeRows(eventIds);
+        Span f = fill;
+        if (enabled && f != null) fill(batch, f.from, f.to);
+    }
+
+    /** Drop the instances of a deleted event. */
+    @Transactional
+    public void removeEvent(String eventId) {
+        if (eventId != null) removeRows(List.of(eventId));
+    }
+
+    /** Drop the instances of several deleted events in one statement. */
+    @Transactional
+    public void removeEvents(Collection<String> eventIds) {
+        if (eventIds != null && !eventIds.isEmpty()) removeRows(eventIds);
+    }
+
+    /** Replaces the rows of a chunk of events; deleting first makes the read see any write holding them. */
+    private int rewrite(List<String> eventIds, Span span) {
+        removeRows(eventIds);
+        return fill(events.findAllById(eventIds), span.from, span.to);
+    }
+
+    /** Rows that ended before the horizon, start after it, or lost their event. */
+    private int prune(Span span) {
+        return jdbc.update("DELETE FROM event_occurrences WHERE end_ms < ? OR start_ms > ? " +
+                "OR NOT EXISTS (SELECT 1 FROM events e WHERE e.id = event_occurrences.event_id)", span.from, span.to);
+    }
+
+    private Span target(long now) {
+        long today = now - Math.floorMod(now, DAY_MS);
+        return new Span(today - pastDays * DAY_MS, today + (futureDays + 1L) * DAY_MS);
+    }
+
+    private void removeRows(Collection<String> eventIds) {
+        List<String> ids = occurrences.findIdsByEventIdIn(eventIds);
+        if (ids.isEmpty()) return;
+        occurrences.deleteByEventIdIn(eventIds);
+        writeBehind.forget(ids);
+    }
+
+    private int fill(Iterable<Event> base, long from, long to) {
+        List<EventOccurrence> batch = new ArrayList<>(INSERT_BATCH);
+        int[] total = {0};
+        for (Event e : base) {
+            EventExpander.expand(e, from, to, o -> {
+                batch.add(o);
+                total[0]++;
+                if (batch.size() == INSERT_BATCH) { upserts.insertNew(UpsertRepository.EVENT_OCCURRENCES, batch); batch.clear(); }
+            });
+        }
+        upserts.insertNew(UpsertRepository.EVENT_OCCURRENCES, batch);
+        return total[0];
+    }
+}
@@ -1,14 +1,14 @@
 package com.timeblocks.service;
 
+import com.timeblocks.index.WindowIndex;
 import com.timeblocks.model.Event;
 import com.timeblocks.repo.EventRepository;
+import com.timeblocks.repo.UpsertRepository;
 import org.slf4j.Logger; import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
-import java.time.format.DateTimeParseException;
-import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -16,9 +16,20 @@ public class EventService {
   private static final Logger log = LoggerFactory.getLogger(EventService.class);
   private final EventRepository repo;
   private final OccurrenceService occurrences;
+  private final WindowIndex windowIndex;
+  private final UpsertRepository upserts;
+  private final EventWriteVerifier verifier;
 
-  public EventService(EventRepository repo, OccurrenceService occurrences) {
-    this.repo = repo; this.occurrences = occurrences;
+  /**
+   * An update or delete with the span it touched: the union of the series bounds before and
+   * after the write (null when either side is unknown), for change notices.
+   */
+  public record Written(Event event, Long spanStart, Long spanEnd, String calendarId) { }
+
+  public EventService(EventRepository repo, OccurrenceService occurrences, WindowIndex windowIndex,
+                      UpsertRepository upserts, EventWriteVerifier verifier) {
+    this.repo = repo; this.occurrences = occurrences; this.windowIndex = windowIndex; this.upserts = upserts;
+    this.verifier = verifier;
   }
 
   @Transactional
@@ -44,26 +55,25 @@ public class EventService {
     e.setCreatedBy("system");
     e.setCreatedAtUtc(Instant.now().toString());
 
-    Event saved = repo.save(e);
+    // one INSERT ... ON CONFLICT; the id is fresh, so there is nothing to select first
+    Event saved = upserts.save(e);
+    AfterCommit.run(() -> windowIndex.onEventSaved(saved));
+    verifier.written("create", saved.getId());
     log.debug("create(): inserted event id={}", saved.getId());
 
-    Optional<Event> check = repo.findById(saved.getId());
-    log.debug("create(): select back -> present={}", check.isPresent());
-
     try {
-      occurrences.upsertSingle(saved.getId(), saved.getTitle(), Instant.parse(saved.getStartUtc()), Instant.parse(saved.getEndUtc()), null, color);
+      occurrences.refreshEvent(saved);
     } catch (Exception ex) {
-      log.warn("create(): occurrence upsert failed (will rely on window expansion)", ex);
+      log.warn("create(): occurrence materialization failed (will rely on window expansion)", ex);
     }
-    long n = repo.count();
-    log.debug("create(): events count now = {}", n);
     return saved;
   }
 
   @Transactional
-  public Event update(String id, String title, Instant start, Instant end,
-                      String rrule, String typeId, String color) {
+  public Written update(String id, String title, Instant start, Instant end,
+                        String rrule, String typeId, String color) {
     Event e = repo.findById(id).orElseThrow(() -> new IllegalArgumentException("event not found: " + id));
+    Long oldFrom = e.getSeriesStartUtc(), oldTo = e.getSeriesEndUtc();
     if (title != null && !title.isBlank()) e.setTitle(title);
     if (start != null && end != null) {
       if (!start.isBefore(end)) throw new IllegalArgumentException("start < end required");
@@ -72,32 +82,37 @@ public class EventService {
     }
     if (rrule != null) e.setRecurrenceRule(rrule);
     if (typeId != null) e.setTypeId(typeId);
-    Event saved = repo.save(e);
+    // flush so @PreUpdate refreshes start_ms/end_ms before the occurrences are re-expanded
+    Event saved = repo.saveAndFlush(e);
+    AfterCommit.run(() -> windowIndex.onEventSaved(saved));
+    verifier.written("update", saved.getId());
     try {
-      occurrences.upsertSingle(saved.getId(), saved.getTitle(), Instant.parse(saved.getStartUtc()), Instant.parse(saved.getEndUtc()), null, null);
-    } catch (DateTimeParseException dtpe) {
-      log.warn("update(): invalid time parse on occurrence upsert", dtpe);
+      occurrences.refreshEvent(saved);
     } catch (Exception ex) {
       log.warn("update(): occurrence sync failed", ex);
     }
-    return saved;
+    return new Written(saved,
+        oldFrom == null || saved.getSeriesStartUtc() == null ? null : Math.min(oldFrom, saved.getSeriesStartUtc()),
+        oldTo == null || saved.getSeriesEndUtc() == null ? null : Math.max(oldTo, saved.getSeriesEndUtc()),
+        saved.getCalendarId());
   }
 
+  /** Deletes {@code id}; the result carries the removed row's bounds, or nulls when there was none. */
   @Transactional
-  public void deleteHard(String id) {
-    log.info("deleteHard(): request to delete event id={}", id);
-    long before = 0L;
-    try { before = repo.count(); } catch (Exception ignored) {}
-    repo.deleteById(id);
-    long after = 0L;
-    try { after = repo.count(); } catch (Exception ignored) {}
-    log.info("deleteHard(): deleted event id={}, countBefore={}, countAfter={}", id, before, after);
+  public Written deleteHard(String id) {
+    Event prev = repo.findById(id).orElse(null);
+    if (prev != null) repo.delete(prev);
+    AfterCommit.run(() -> windowIndex.onEventDeleted(id));
+    verifier.deleted(id);
+    log.info("deleteHard(): deleted event id={}", id);
     try {
       occurrences.deleteForEvent(id);
       log.debug("deleteHard(): occurrences deleted for event id={}", id);
     } catch (Exception ex) {
       log.warn("deleteHard(): occurrence cleanup failed for event id={}", id, ex);
     }
+    return prev == null ? new Written(null, null, null, null)
+        : new Written(prev, prev.getSeriesStartUtc(), prev.getSeriesEndUtc(), prev.getCalendarId());
   }
 }
 
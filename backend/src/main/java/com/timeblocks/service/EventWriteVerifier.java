@@ -0,0 +1,73 @@
+package com.timeblocks.service;
+
+import com.timeblocks.repo.EventRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in, sampled check that event writes landed. One write in {@code sample-every} is re-read
+ * after its transaction commits, on a background thread, and a mismatch is logged. This replaces
+ * the read-back and table counts EventService used to run inside every write transaction, so
+ * write latency no longer grows with the events table. Off (0) unless configured.
+ */
+@Component
+public class EventWriteVerifier {
+    private static final Logger log = LoggerFactory.getLogger(EventWriteVerifier.class);
+
+    private final EventRepository repo;
+    private final AtomicLong writes = new AtomicLong();
+    private final ExecutorService checker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "event-write-verifier");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Value("${timeblocks.events.verify.sample-every:0}")
+    int sampleEvery;
+
+    public EventWriteVerifier(EventRepository repo) {
+        this.repo = repo;
+    }
+
+    /** A create or update of {@code id}; the row should exist after commit. */
+    public void written(String op, String id) {
+        sample(op, id, true);
+    }
+
+    /** A delete of {@code id}; the row should be gone after commit. */
+    public void deleted(String id) {
+        sample("delete", id, false);
+    }
+
+    private void sample(String op, String id, boolean expectPresent) {
+        if (sampleEvery <= 0 || id == null || writes.incrementAndGet() % sampleEvery != 0) return;
+        Runnable check = () -> {
+            try { checker.execute(() -> verify(op, id, expectPresent)); }
+            catch (RejectedExecutionException ignored) { }
+        };
+        AfterCommit.run(check);
+    }
+
+    private void verify(String op, String id, boolean expectPresent) {
+        try {
+            boolean present = repo.existsById(id);
+            if (present == expectPresent) log.debug("verify {}: event id={} ok", op, id);
+            else log.warn("verify {}: event id={} {} after commit", op, id, present ? "still present" : "missing");
+        } catch (Exception e) {
+            log.warn("verify {}: event id={} could not be re-read: {}", op, id, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        checker.shutdownNow();
+    }
+}
@@ -0,0 +1,125 @@
+package com.timeblocks.service;
+
+import com.timeblocks.model.EventOccurrence;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Free/busy over a window as {@link BusyBitmap}s: one per lane and one per calendar, filled
+ * straight from the occurrence and event streams (no DTOs), then OR-ed into a combined map.
+ * Days run from local midnight to local midnight in the requested zone, starting with the day
+ * of {@code timeMin}, so days across a DST change are 23 or 25 hours long.
+ * Cancelled schedule occurrences are not busy.
+ */
+@Service
+public class FreeBusyService {
+    private static final String CANCELLED = "cancelled";
+
+    /** Busy/free ranges of the combined map, plus per-source busy ranges when asked for. */
+    public record FreeBusy(long from, long to, int slotMinutes,
+                           List<BusyBitmap.Range> busy,
+                           List<BusyBitmap.Range> free,
+                           Map<String, List<BusyBitmap.Range>> lanes,
+                           Map<String, List<BusyBitmap.Range>> calendars) { }
+
+    private final ScheduleOccurrenceService occurrences;
+    private final OccurrenceService events;
+
+    @Value("${timeblocks.freebusy.max-days:366}")
+    int maxDays;
+
+    public FreeBusyService(ScheduleOccurrenceService occurrences, OccurrenceService events) {
+        this.occurrences = occurrences;
+        this.events = events;
+    }
+
+    /** Combined bitmap of the filtered lanes and the given calendars over [from, to). */
+    public BusyBitmap busy(long from, long to, ZoneId zone, int slotMinutes,
+                           ScheduleFilter filter, Collection<String> calendarIds) {
+        Map<String, BusyBitmap> lanes = new HashMap<>();
+        Map<String, BusyBitmap> calendars = new HashMap<>();
+        BusyBitmap shape = collect(from, to, zone, slotMinutes, filter, calendarIds, lanes, calendars);
+        return combine(shape, lanes, calendars);
+    }
+
+    public FreeBusy report(long from, long to, ZoneId zone, int slotMinutes, long minFreeMs,
+                           ScheduleFilter filter, Collection<String> calendarIds, boolean detail) {
+        Map<String, BusyBitmap> lanes = new TreeMap<>();
+        Map<String, BusyBitmap> calendars = new TreeMap<>();
+        BusyBitmap shape = collect(from, to, zone, slotMinutes, filter, calendarIds, lanes, calendars);
+        BusyBitmap all = combine(shape, lanes, calendars);
+
+        List<BusyBitmap.Range> busy = clip(all.busyRanges(), from, to);
+        List<BusyBitmap.Range> free = new ArrayList<>();
+        for (BusyBitmap.Range r : clip(all.freeRanges(0), from, to)) {
+            if (r.end() - r.start() >= minFreeMs) free.add(r);
+        }
+        Map<String, List<BusyBitmap.Range>> laneRanges = null, calendarRanges = null;
+        if (detail) {
+            laneRanges = new LinkedHashMap<>();
+            for (Map.Entry<String, BusyBitmap> e : lanes.entrySet()) laneRanges.put(e.getKey(), clip(e.getValue().busyRanges(), from, to));
+            calendarRanges = new LinkedHashMap<>();
+            for (Map.Entry<String, BusyBitmap> e : calendars.entrySet()) calendarRanges.put(e.getKey(), clip(e.getValue().busyRanges(), from, to));
+        }
+        return new FreeBusy(from, to, slotMinutes, busy, free, laneRanges, calendarRanges);
+    }
+
+    /** Fills one bitmap per lane ("" for no lane) and per calendar; returns an empty bitmap of the same shape. */
+    private BusyBitmap collect(long from, long to, ZoneId zone, int slotMinutes,
+                               ScheduleFilter filter, Collection<String> calendarIds,
+                               Map<String, BusyBitmap> lanes, Map<String, BusyBitmap> calendars) {
+        if (to <= from) throw new IllegalArgumentException("timeMax must be after timeMin");
+        LocalDate first = localDate(from, zone);
+        long days = ChronoUnit.DAYS.between(first, localDate(to - 1, zone)) + 1;
+        if (days > maxDays) throw new IllegalArgumentException("window longer than " + maxDays + " days");
+        BusyBitmap shape = new BusyBitmap(first, (int) days, zone, slotMinutes);
+
+        if (filter != null) {
+            occurrences.stream(from, to, filter, o -> {
+                if (CANCELLED.equalsIgnoreCase(o.status())) return;
+                String key = o.laneId() == null ? "" : o.laneId();
+                lanes.computeIfAbsent(key, k -> shape.copy()).mark(o.start(), o.end());
+            });
+        }
+        if (calendarIds != null) {
+            Instant f = Instant.ofEpochMilli(from), t = Instant.ofEpochMilli(to);
+            for (String calendarId : calendarIds) {
+                BusyBitmap bits = calendars.computeIfAbsent(calendarId, k -> shape.copy());
+                // every instance of recurring events; memoized per request like the calendar window
+                for (OccurrenceService.WindowEntry entry : events.window(calendarId, f, t)) markOccurrence(bits, entry.occurrence());
+            }
+        }
+        return shape;
+    }
+
+    private static BusyBitmap combine(BusyBitmap shape, Map<String, BusyBitmap> lanes, Map<String, BusyBitmap> calendars) {
+        BusyBitmap all = shape.copy();
+        for (BusyBitmap b : lanes.values()) all.or(b);
+        for (BusyBitmap b : calendars.values()) all.or(b);
+        return all;
+    }
+
+    private static void markOccurrence(BusyBitmap bits, EventOccurrence o) {
+        if (o.getStartMs() != null && o.getEndMs() != null) bits.mark(o.getStartMs(), o.getEndMs());
+    }
+
+    /** Ranges are slot-aligned; trim the first and last to the requested window. */
+    private static List<BusyBitmap.Range> clip(List<BusyBitmap.Range> ranges, long from, long to) {
+        List<BusyBitmap.Range> out = new ArrayList<>(ranges.size());
+        for (BusyBitmap.Range r : ranges) {
+            long s = Math.max(r.start(), from), e = Math.min(r.end(), to);
+            if (s < e) out.add(s == r.start() && e == r.end() ? r : new BusyBitmap.Range(s, e));
+        }
+        return out;
+    }
+
+    private static LocalDate localDate(long instant, ZoneId zone) {
+        return Instant.ofEpochMilli(instant).atZone(zone).toLocalDate();
+    }
+}
@@ -0,0 +1,296 @@
+package com.timeblocks.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.timeblocks.index.WindowIndex;
+import com.timeblocks.model.Event;
+import com.timeblocks.model.Schedule;
+import com.timeblocks.model.ScheduleException;
+import com.timeblocks.recurrence.RecurrenceRule;
+import com.timeblocks.repo.UpsertRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Imports an iCalendar file into one calendar while it is being read. One-off VEVENTs become
+ * events of the calendar; recurring ones become schedules in the calendar's lane, so that
+ * EXDATEs and modified instances (RECURRENCE-ID) can be kept as schedule exceptions. Rows are
+ * written with the batched upserts in transactions of {@code timeblocks.import.batch-size}
+ * rows, occurrences included, so memory stays bounded by one batch whatever the file size.
+ * Modified instances that arrive before their series are held until the end of the file, at most
+ * {@code timeblocks.import.max-pending-overrides} of them; further ones are imported as one-off
+ * events. Ids derive from the calendar and the UID, so importing the same file again updates in place.
+ */
+@Service
+public class IcsImportService {
+    private static final Logger log = LoggerFactory.getLogger(IcsImportService.class);
+
+    /** Totals of one import; {@code skipped} counts cancelled one-off VEVENTs and ones without usable times. */
+    public record Result(int events, int schedules, int exceptions, int skipped, int unsupportedRules,
+                         int batches, long bytes, long millis) {
+        public long rowsPerSecond() {
+            return millis == 0 ? 0 : (events + schedules + exceptions) * 1000L / millis;
+        }
+    }
+
+    private final UpsertRepository upserts;
+    private final EventOccurrenceMaterializer eventOccurrences;
+    private final ScheduleOccurrenceMaterializer scheduleOccurrences;
+    private final WindowIndex windowIndex;
+    private final ChangeBus bus;
+    private final TransactionTemplate tx;
+    private final ObjectMapper mapper;
+
+    @Value("${timeblocks.import.batch-size:500}")
+    int batchSize;
+
+    @Value("${timeblocks.import.max-pending-overrides:10000}")
+    int maxPendingOverrides;
+
+    public IcsImportService(UpsertRepository upserts, EventOccurrenceMaterializer eventOccurrences,
+                            ScheduleOccurrenceMaterializer scheduleOccurrences, WindowIndex windowIndex,
+                            ChangeBus bus, TransactionTemplate tx, ObjectMapper mapper) {
+        this.upserts = upserts;
+        this.eventOccurrences = eventOccurrences;
+        this.scheduleOccurrences = scheduleOccurrences;
+        this.windowIndex = windowIndex;
+        this.bus = bus;
+        this.tx = tx;
+        this.mapper = mapper;
+    }
+
+    public Result importCalendar(String calendarId, InputStream body) throws IOException {
+        if (calendarId == null || calendarId.isBlank()) throw new IllegalArgumentException("calendar id required");
+        return new Run(calendarId).execute(body);
+    }
+
+    /** State of one import: the open batch and the UIDs imported as schedules so far. */
+    private final class Run {
+        final String calendarId;
+        final long t0 = System.nanoTime();
+        final String now = Instant.now().toString();
+        final long nowMs = System.currentTimeMillis();
+        // overrides can only attach to a series that is already stored (schedule_exceptions has an FK)
+        final Set<String> seriesUids = new HashSet<>();
+        final List<IcsReader.VEvent> orphanOverrides = new ArrayList<>();
+
+        List<Event> events = new ArrayList<>();
+        List<Schedule> schedules = new ArrayList<>();
+        List<ScheduleException> exceptions = new ArrayList<>();
+        int eventCount, scheduleCount, exceptionCount, cancelled, unsupported, batches, overflowed;
+        CountingInputStream counted;
+
+        Run(String calendarId) {
+            this.calendarId = calendarId;
+        }
+
+        Result execute(InputStream body) throws IOException {
+            counted = new CountingInputStream(body);
+            IcsReader reader = new IcsReader(new InputStreamReader(counted, StandardCharsets.UTF_8));
+            reader.read(this::add);
+            // overrides that came before their series (or whose series is not in the file)
+            for (IcsReader.VEvent v : orphanOverrides) {
+                if (seriesUids.contains(v.uid())) addException(v);
+                else addEvent(v);
+                flushIfFull();
+            }
+            flush();
+            if (overflowed > 0) {
+                log.warn("ICS import into calendar {}: {} modified instances past the pending limit of {} imported as one-off events",
+                        calendarId, overflowed, maxPendingOverrides);
+            }
+            Result r = new Result(eventCount, scheduleCount, exceptionCount, reader.skipped() + cancelled, unsupported,
+                    batches, counted.count, (System.nanoTime() - t0) / 1_000_000);
+            log.info("ICS import into calendar {}: {} events, {} schedules, {} exceptions, {} skipped, {} bytes in {} ms ({} rows/s)",
+                    calendarId, r.events(), r.schedules(), r.exceptions(), r.skipped(), r.bytes(), r.millis(), r.rowsPerSecond());
+            return r;
+        }
+
+        private void add(IcsReader.VEvent v) {
+            if (v.recurrenceId() != null && v.uid() != null) {
+                if (seriesUids.contains(v.uid())) addException(v);
+                else if (orphanOverrides.size() < maxPendingOverrides) orphanOverrides.add(v);
+                else {
+                    overflowed++;
+                    addEvent(v); // keeps the instance, but not tied to a series read later
+                }
+            } else if (v.rrule() == null) {
+                if ("CANCELLED".equals(v.status())) cancelled++;
+                else addEvent(v);
+            } else if (!supported(v.rrule())) {
+                unsupported++;
+                addEvent(v); // keep the first instance rather than drop the entry
+            } else {
+                addSchedule(v);
+            }
+            flushIfFull();
+        }
+
+        private void addEvent(IcsReader.VEvent v) {
+            Event e = new Event();
+            e.setId(id("event", v.uid() != null ? v.uid() : UUID.randomUUID().toString(),
+                    v.recurrenceId() != null ? String.valueOf(v.recurrenceId()) : ""));
+            e.setCalendarId(calendarId);
+            e.setTitle(v.summary() != null && !v.summary().isBlank() ? v.summary() : "(no title)");
+            e.setTzid(v.tzid());
+            e.setStartUtc(Instant.ofEpochMilli(v.start()).toString());
+            e.setEndUtc(Instant.ofEpochMilli(v.end()).toString());
+            e.setIsAllDay(v.allDay() ? 1 : 0);
+            e.setCreatedBy("ics-import");
+            e.setCreatedAtUtc(now);
+            e.computeSeriesBounds();
+            events.add(e);
+        }
+
+        private void addSchedule(IcsReader.VEvent v) {
+            String uid = v.uid() != null ? v.uid() : UUID.randomUUID().toString();
+            Schedule s = new Schedule();
+            s.setId(id("series", uid, ""));
+            s.setTaskId("ics:" + uid);
+            s.setStartTsUtc(v.start());
+            s.setEndTsUtc(v.end());
+            s.setTimezone(v.tzid());
+            s.setAllDay(v.allDay() ? 1 : 0);
+            s.setLaneId(calendarId);
+            s.setStatus(status(v.status()));
+            s.setRecurrenceRule(v.rrule());
+            s.setMeta(meta(uid, v.summary()));
+            s.setCreatedAt(nowMs);
+            s.setUpdatedAt(nowMs);
+            s.computeSeriesBounds();
+            schedules.add(s);
+            seriesUids.add(uid);
+            for (Long exDate : new LinkedHashSet<>(v.exDates())) {
+                exceptions.add(exception(s.getId(), exDate, null, null, null));
+            }
+        }
+
+        /** A modified or cancelled instance of a series: moves or skips the one at RECURRENCE-ID. */
+        private void addException(IcsReader.VEvent v) {
+            String scheduleId = id("series", v.uid(), "");
+            if ("CANCELLED".equals(v.status())) exceptions.add(exception(scheduleId, v.recurrenceId(), null, null, null));
+            else exceptions.add(exception(scheduleId, v.recurrenceId(), v.start(), v.end(), meta(v.uid(), v.summary())));
+        }
+
+        private ScheduleException exception(String scheduleId, long exDate, Long start, Long end, String meta) {
+            ScheduleException x = new ScheduleException();
+            x.setId(id("exception", scheduleId, String.valueOf(exDate)));
+            x.setScheduleId(scheduleId);
+            x.setExDateUtc(exDate);
+            x.setChangeStartTsUtc(start);
+            x.setChangeEndTsUtc(end);
+            x.setMeta(meta);
+            x.setCreatedAt(nowMs);
+            return x;
+        }
+
+        private void flushIfFull() {
+            if (events.size() + schedules.size() + exceptions.size() >= Math.max(1, batchSize)) flush();
+        }
+
+        /** Writes the open batch and its occurrences in one transaction, then announces it. */
+        private void flush() {
+            if (events.isEmpty() && schedules.isEmpty() && exceptions.isEmpty()) return;
+            List<Event> ev = events;
+            List<Schedule> sc = schedules;
+            List<ScheduleException> ex = exceptions;
+            events = new ArrayList<>();
+            schedules = new ArrayList<>();
+            exceptions = new ArrayList<>();
+
+            Set<String> seriesIds = new HashSet<>(sc.size() * 2);
+            for (Schedule s : sc) seriesIds.add(s.getId());
+            Set<String> touched = new LinkedHashSet<>(seriesIds);
+            for (ScheduleException x : ex) touched.add(x.getScheduleId());
+            tx.executeWithoutResult(status -> {
+                // parents before children: exceptions reference schedules
+                upserts.upsert(UpsertRepository.EVENTS, ev);
+                upserts.upsert(UpsertRepository.SCHEDULES, sc);
+                upserts.upsert(UpsertRepository.SCHEDULE_EXCEPTIONS, ex);
+                eventOccurrences.refreshEvents(ev);
+                scheduleOccurrences.refreshSchedules(touched);
+            });
+
+            for (Event e : ev) {
+                windowIndex.onEventSaved(e);
+                bus.publish(ChangeBus.Notice.span("event", e.getId(), "upsert", e.getSeriesStartUtc(), e.getSeriesEndUtc(), calendarId));
+            }
+            for (Schedule s : sc) {
+                windowIndex.onScheduleSaved(s);
+                bus.publish(ChangeBus.Notice.span("schedule", s.getId(), "upsert", s.getSeriesStartUtc(), s.getSeriesEndUtc(), null));
+            }
+            for (String id : touched) {
+                if (!seriesIds.contains(id)) bus.publish(ChangeBus.Notice.span("schedule", id, "upsert", null, null, null));
+            }
+
+            eventCount += ev.size();
+            scheduleCount += sc.size();
+            exceptionCount += ex.size();
+            batches++;
+            long ms = Math.max(1, (System.nanoTime() - t0) / 1_000_000);
+            int rows = eventCount + scheduleCount + exceptionCount;
+            log.info("ICS import into calendar {}: batch {} written, {} rows so far, {} MB read, {} rows/s",
+                    calendarId, batches, rows, counted.count / (1024 * 1024), rows * 1000L / ms);
+        }
+
+        private String id(String kind, String key, String qualifier) {
+            String seed = "ics|" + kind + "|" + calendarId + "|" + key + "|" + qualifier;
+            return UUID.nameUUIDFromBytes(seed.getBytes(StandardCharsets.UTF_8)).toString();
+        }
+
+        private String meta(String uid, String title) {
+            Map<String, Object> meta = new LinkedHashMap<>(4);
+            meta.put("source", "ics");
+            meta.put("uid", uid);
+            if (title != null) meta.put("title", title);
+            try { return mapper.writeValueAsString(meta); }
+            catch (JsonProcessingException e) { return null; }
+        }
+    }
+
+    private static boolean supported(String rrule) {
+        try {
+            RecurrenceRule.parse(rrule);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String status(String icsStatus) {
+        if ("CANCELLED".equals(icsStatus)) return "cancelled";
+        if ("TENTATIVE".equals(icsStatus)) return "tentative";
+        return "confirmed";
+    }
+
+    /** Counts bytes read from the request body, for progress and throughput. */
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
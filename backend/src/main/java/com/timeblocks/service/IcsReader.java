@@ -0,0 +1,289 @@
+package com.timeblocks.service;
+
+import com.timeblocks.recurrence.ZoneOffsetTable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reader for iCalendar (RFC 5545) data. Content lines are unfolded as they arrive and
+ * each VEVENT is handed to the sink when its END line is read, so only one component is held at
+ * a time whatever the size of the file. Only the properties the import maps are kept (UID,
+ * SUMMARY, STATUS, DTSTART, DTEND, DURATION, RRULE, EXDATE, RECURRENCE-ID); nested components
+ * such as VALARM, and VTIMEZONE blocks, are skipped. TZID parameters are resolved as IANA zone
+ * ids; unknown ids and floating times are read as UTC.
+ */
+public final class IcsReader {
+    /** Longest physical or unfolded line kept; anything past it is dropped. */
+    static final int MAX_LINE = 64 * 1024;
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    /**
+     * One VEVENT with its times resolved to epoch ms. {@code end} is exclusive and after
+     * {@code start}; {@code tzid} is the zone the series recurs in ("UTC" when none applies).
+     */
+    public record VEvent(String uid, String summary, String status, long start, long end, boolean allDay,
+                         String tzid, String rrule, List<Long> exDates, Long recurrenceId) { }
+
+    private final Reader in;
+    private final char[] buf = new char[8192];
+    private int pos, lim;
+    private final StringBuilder physical = new StringBuilder(256);
+    private String lookahead;
+    private boolean eof;
+    private int skipped;
+
+    public IcsReader(Reader in) {
+        this.in = in;
+    }
+
+    /** VEVENTs dropped because they had no usable DTSTART or no positive duration. */
+    public int skipped() { return skipped; }
+
+    /** Reads to the end of the input, passing every usable VEVENT to {@code sink} in file order. */
+    public void read(Consumer<VEvent> sink) throws IOException {
+        Builder ev = null;
+        int nested = 0;
+        String line;
+        while ((line = nextLine()) != null) {
+            Property p = Property.parse(line);
+            if (p == null) continue;
+            if (p.name.equals("BEGIN")) {
+                if (ev != null) nested++;
+                else if (p.value.equalsIgnoreCase("VEVENT")) ev = new Builder();
+            } else if (p.name.equals("END")) {
+                if (ev == null) continue;
+                if (nested > 0) { nested--; continue; }
+                VEvent done = ev.build();
+                if (done != null) sink.accept(done);
+                else skipped++;
+                ev = null;
+            } else if (ev != null && nested == 0) {
+                ev.accept(p);
+            }
+        }
+    }
+
+    // =====================================================
+    // Line level: physical lines, then RFC 5545 unfolding
+    // =====================================================
+
+    private String nextLine() throws IOException {
+        String line = lookahead != null ? lookahead : physicalLine();
+        lookahead = null;
+        if (line == null) return null;
+        String next;
+        StringBuilder unfolded = null;
+        while ((next = physicalLine()) != null && !next.isEmpty()
+                && (next.charAt(0) == ' ' || next.charAt(0) == '\t')) {
+            if (unfolded == null) unfolded = new StringBuilder(line);
+            if (unfolded.length() < MAX_LINE) {
+                unfolded.append(next, 1, Math.min(next.length(), 1 + MAX_LINE - unfolded.length()));
+            }
+        }
+        lookahead = next;
+        return unfolded != null ? unfolded.toString() : line;
+    }
+
+    private String physicalLine() throws IOException {
+        if (eof) return null;
+        physical.setLength(0);
+        boolean any = false;
+        while (true) {
+            if (pos == lim) {
+                lim = in.read(buf, 0, buf.length);
+                pos = 0;
+                if (lim <= 0) {
+                    lim = 0;
+                    eof = true;
+                    break;
+                }
+            }
+            any = true;
+            char c = buf[pos++];
+            if (c == '\n') break;
+            if (physical.length() < MAX_LINE) physical.append(c);
+        }
+        if (!any) return null;
+        int n = physical.length();
+        if (n > 0 && physical.charAt(n - 1) == '\r') physical.setLength(n - 1);
+        return physical.toString();
+    }
+
+    /** A content line split into name, the two parameters we read, and value. */
+    private record Property(String name, String tzid, boolean dateValue, String value) {
+
+        static Property parse(String line) {
+            int colon = -1, nameEnd = -1;
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (c == '"') quoted = !quoted;
+                else if (!quoted && c == ';' && nameEnd < 0) nameEnd = i;
+                else if (!quoted && c == ':') { colon = i; break; }
+            }
+            if (colon < 0) return null;
+            if (nameEnd < 0) nameEnd = colon;
+            String name = line.substring(0, nameEnd).trim().toUpperCase(Locale.ROOT);
+            String tzid = null;
+            boolean dateValue = false;
+            if (nameEnd < colon) {
+                for (String param : splitParams(line.substring(nameEnd + 1, colon))) {
+                    int eq = param.indexOf('=');
+                    if (eq < 0) continue;
+                    String key = param.substring(0, eq).trim().toUpperCase(Locale.ROOT);
+                    String val = unquote(param.substring(eq + 1).trim());
+                    if (key.equals("TZID")) tzid = val;
+                    else if (key.equals("VALUE")) dateValue = val.equalsIgnoreCase("DATE");
+                }
+            }
+            return new Property(name, tzid, dateValue, line.substring(colon + 1));
+        }
+
+        private static List<String> splitParams(String params) {
+            List<String> out = new ArrayList<>(2);
+            boolean quoted = false;
+            int from = 0;
+            for (int i = 0; i < params.length(); i++) {
+                char c = params.charAt(i);
+                if (c == '"') quoted = !quoted;
+                else if (c == ';' && !quoted) { out.add(params.substring(from, i)); from = i + 1; }
+            }
+            out.add(params.substring(from));
+            return out;
+        }
+
+        private static String unquote(String s) {
+            return s.length() >= 2 && s.charAt(0) == '"' && s.charAt(s.length() - 1) == '"' ? s.substring(1, s.length() - 1) : s;
+        }
+    }
+
+    // =====================================================
+    // Component level: collect raw values, resolve at END:VEVENT
+    // =====================================================
+
+    /** A date or date-time value as written; resolved once DTSTART (and its zone) is known. */
+    private record RawTime(String value, String tzid, boolean dateValue) { }
+
+    private static final class Builder {
+        String uid, summary, status, rrule, duration;
+        RawTime dtStart, dtEnd, recurrenceId;
+        final List<RawTime> exDates = new ArrayList<>();
+
+        void accept(Property p) {
+            switch (p.name) {
+                case "UID" -> uid = p.value.trim();
+                case "SUMMARY" -> summary = unescape(p.value);
+                case "STATUS" -> status = p.value.trim().toUpperCase(Locale.ROOT);
+                case "RRULE" -> { if (rrule == null) rrule = p.value.trim(); } // extra RRULEs (deprecated) are ignored
+                case "DURATION" -> duration = p.value.trim();
+                case "DTSTART" -> dtStart = new RawTime(p.value.trim(), p.tzid, p.dateValue);
+                case "DTEND" -> dtEnd = new RawTime(p.value.trim(), p.tzid, p.dateValue);
+                case "RECURRENCE-ID" -> recurrenceId = new RawTime(p.value.trim(), p.tzid, p.dateValue);
+                case "EXDATE" -> {
+                    for (String v : p.value.split(",")) {
+                        if (!v.isBlank()) exDates.add(new RawTime(v.trim(), p.tzid, p.dateValue));
+                    }
+                }
+                default -> { }
+            }
+        }
+
+        VEvent build() {
+            if (dtStart == null) return null;
+            try {
+                ZoneId zone = zoneOf(dtStart.tzid());
+                boolean allDay = isDate(dtStart);
+                LocalDateTime localStart = local(dtStart);
+                long start = resolve(dtStart, zone, null);
+                long end;
+                if (dtEnd != null) end = resolve(dtEnd, zone, null);
+                else if (duration != null) end = start + durationMs(duration);
+                else end = allDay ? start + DAY_MS : start;
+                if (end <= start) return null;
+
+                // date-only EXDATE / RECURRENCE-ID on a timed series name the instance at DTSTART's time of day
+                LocalTime at = allDay ? null : localStart.toLocalTime();
+                List<Long> ex = new ArrayList<>(exDates.size());
+                for (RawTime t : exDates) ex.add(resolve(t, zone, at));
+                Long recurrence = recurrenceId != null ? resolve(recurrenceId, zone, at) : null;
+
+                String tzid = dtStart.tzid() != null && !zone.equals(ZoneOffset.UTC) ? zone.getId() : "UTC";
+                return new VEvent(uid, summary, status, start, end, allDay, tzid,
+                        rrule == null || rrule.isBlank() ? null : rrule, ex, recurrence);
+            } catch (DateTimeException | ArithmeticException | IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    private static boolean isDate(RawTime t) {
+        return t.dateValue() || t.value().indexOf('T') < 0;
+    }
+
+    private static LocalDateTime local(RawTime t) {
+        String v = t.value();
+        if (isDate(t)) return LocalDate.parse(v.substring(0, 8), DateTimeFormatter.BASIC_ISO_DATE).atStartOfDay();
+        if (v.endsWith("Z") || v.endsWith("z")) v = v.substring(0, v.length() - 1);
+        return LocalDateTime.parse(v, DATE_TIME);
+    }
+
+    /**
+     * Epoch ms of a DATE or DATE-TIME value: UTC when it ends in Z, else in its own TZID or the
+     * event's zone. A bare date on a timed series is placed at {@code timeOfDay}.
+     */
+    private static long resolve(RawTime t, ZoneId eventZone, LocalTime timeOfDay) {
+        LocalDateTime ldt = local(t);
+        if (isDate(t) && timeOfDay != null) ldt = ldt.toLocalDate().atTime(timeOfDay);
+        ZoneId zone;
+        if (!isDate(t) && (t.value().endsWith("Z") || t.value().endsWith("z"))) zone = ZoneOffset.UTC;
+        else zone = t.tzid() != null ? zoneOf(t.tzid()) : eventZone;
+        return ldt.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    /** TZID values may carry the RFC 5545 "globally unique" slash prefix. */
+    private static ZoneId zoneOf(String tzid) {
+        return ZoneOffsetTable.zoneOrUtc(tzid != null && tzid.startsWith("/") ? tzid.substring(1) : tzid);
+    }
+
+    /** RFC 5545 dur-value, e.g. PT1H30M, P1D, P2W. */
+    static long durationMs(String value) {
+        String v = value.trim().toUpperCase(Locale.ROOT);
+        boolean negative = v.startsWith("-");
+        if (v.startsWith("-") || v.startsWith("+")) v = v.substring(1);
+        long ms;
+        if (v.endsWith("W")) ms = Long.parseLong(v.substring(1, v.length() - 1)) * 7 * DAY_MS;
+        else ms = Duration.parse(v).toMillis();
+        return negative ? -ms : ms;
+    }
+
+    /** TEXT value escapes: \n, \, \; and \\. */
+    static String unescape(String text) {
+        if (text.indexOf('\\') < 0) return text;
+        StringBuilder out = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char n = text.charAt(++i);
+                out.append(n == 'n' || n == 'N' ? '\n' : n);
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}
@@ -1,93 +1,229 @@
 package com.timeblocks.service;
 
+import com.timeblocks.index.WindowIndex;
 import com.timeblocks.model.Event;
 import com.timeblocks.model.EventOccurrence;
 import com.timeblocks.repo.EventOccurrenceRepository;
 import com.timeblocks.repo.EventRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.time.Instant;
 import java.util.*;
-import java.nio.charset.StandardCharsets;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class OccurrenceService {
+    private static final Logger log = LoggerFactory.getLogger(OccurrenceService.class);
     private final EventRepository events;
     private final EventOccurrenceRepository occRepo;
+    private final WindowIndex windowIndex;
+    private final EntityManager em;
+    private final OccurrenceWriteBehind writeBehind;
+    private final EventOccurrenceMaterializer materializer;
+    private final ObjectProvider<WindowMemo> memo;
 
-    public OccurrenceService(EventRepository events, EventOccurrenceRepository occRepo) {
-        this.events = events; this.occRepo = occRepo;
+    private static final int STREAM_CHUNK = 500;
+
+    public OccurrenceService(EventRepository events, EventOccurrenceRepository occRepo, WindowIndex windowIndex,
+                             EntityManager em, OccurrenceWriteBehind writeBehind,
+                             EventOccurrenceMaterializer materializer, ObjectProvider<WindowMemo> memo) {
+        this.events = events; this.occRepo = occRepo; this.windowIndex = windowIndex; this.em = em;
+        this.writeBehind = writeBehind; this.materializer = materializer; this.memo = memo;
     }
 
-    @Transactional
-    public List<EventOccurrence> getWindow(String calendarId, Instant from, Instant to) {
-        String F = from.toString(), T = to.toString();
-        List<Event> base = events.findForWindow(calendarId, F, T);
-        org.slf4j.LoggerFactory.getLogger(getClass()).debug("getWindow(): events in window = {}", base.size());
+    /** One instance of a window: the event it belongs to and its event_occurrences row. */
+    public record WindowEntry(Event event, EventOccurrence occurrence) {
+        public String occurrenceId() { return occurrence.getId(); }
+    }
 
-        List<EventOccurrence> upserts = new ArrayList<>();
-        for (Event e : base) {
-            if (e.getRecurrenceRule() == null) {
-                String keySeed = e.getId() + "|" + e.getStartUtc() + "|" + e.getEndUtc();
-                String stableId = UUID.nameUUIDFromBytes(keySeed.getBytes(StandardCharsets.UTF_8)).toString();
-                EventOccurrence occ = new EventOccurrence();
-                occ.setId(stableId);
-                occ.setEventId(e.getId());
-                occ.setStartUtc(e.getStartUtc());
-                occ.setEndUtc(e.getEndUtc());
-                occ.setTzid(e.getTzid());
-                occ.setStatus("confirmed");
-                occ.setIsException(0);
-                occ.setPayloadJsonb("{}");
-                upserts.add(occ);
-            } else {
-                // TODO: replace with real RRULE expansion.
-                // For dev we'll return the series "seed" instance if within window:
-                if (e.getStartUtc().compareTo(T) <= 0 && e.getEndUtc().compareTo(F) >= 0) {
-                    String keySeed = e.getId() + "|" + e.getStartUtc() + "|" + e.getEndUtc();
-                    String stableId = UUID.nameUUIDFromBytes(keySeed.getBytes(StandardCharsets.UTF_8)).toString();
-                    EventOccurrence occ = new EventOccurrence();
-                    occ.setId(stableId);
-                    occ.setEventId(e.getId());
-                    occ.setStartUtc(e.getStartUtc());
-                    occ.setEndUtc(e.getEndUtc());
-                    occ.setTzid(e.getTzid());
-                    occ.setStatus("confirmed");
-                    occ.setIsException(0);
-                    occ.setPayloadJsonb("{}");
-                    upserts.add(occ);
+    /**
+     * Events of a calendar whose series may overlap [from, to]; uses the interval index when enabled.
+     * Within a web request the result is memoized, so repeated calls share one fetch.
+     */
+    public List<Event> eventsForWindow(String calendarId, Instant from, Instant to) {
+        long f = from.toEpochMilli(), t = to.toEpochMilli();
+        if (!inRequest()) return loadEvents(calendarId, f, t);
+        return memo.getObject().events(calendarId, f, t, () -> loadEvents(calendarId, f, t));
+    }
+
+    private List<Event> loadEvents(String calendarId, long from, long to) {
+        if (!windowIndex.isActive()) return events.findForWindow(calendarId, from, to);
+        List<String> ids = windowIndex.eventIds(calendarId, from, to);
+        return ids.isEmpty() ? new ArrayList<>() : new ArrayList<>(events.findAllById(ids));
+    }
+
+    /**
+     * Every instance overlapping [from, to], in start order. Inside the materialized horizon this
+     * is one indexed range scan of event_occurrences plus one lookup of the events involved;
+     * outside it the window's events are expanded in memory. Memoized per request like
+     * {@link #eventsForWindow}.
+     */
+    @Transactional(readOnly = true)
+    public List<WindowEntry> window(String calendarId, Instant from, Instant to) {
+        long f = from.toEpochMilli(), t = to.toEpochMilli();
+        if (!inRequest()) return loadWindow(calendarId, from, to);
+        return memo.getObject().entries(calendarId, f, t, () -> loadWindow(calendarId, from, to));
+    }
+
+    private List<WindowEntry> loadWindow(String calendarId, Instant from, Instant to) {
+        if (materializer.covers(from.toEpochMilli(), to.toEpochMilli())) {
+            List<EventOccurrence> rows = occRepo.findForWindow(calendarId, from.toEpochMilli(), to.toEpochMilli());
+            Map<String, Event> byId = new HashMap<>();
+            attachEvents(rows, byId);
+            List<WindowEntry> out = new ArrayList<>(rows.size());
+            for (EventOccurrence o : rows) {
+                Event e = byId.get(o.getEventId());
+                if (e != null) out.add(new WindowEntry(e, o));
+            }
+            return out;
+        }
+        List<WindowEntry> out = expand(eventsForWindow(calendarId, from, to), from.toEpochMilli(), to.toEpochMilli());
+        log.debug("window(): expanded {} occurrences outside the horizon", out.size());
+        return out;
+    }
+
+    /**
+     * Pushes the entries of {@link #window} to {@code sink} in start order. Inside the horizon
+     * occurrence rows come from a DB cursor and their events are fetched
+     * {@value #STREAM_CHUNK} rows at a time, so the window is never held in memory. Outside it
+     * the events are expanded lazily and merged, see {@link #streamExpanded}.
+     */
+    @Transactional(readOnly = true)
+    public void streamWindow(String calendarId, Instant from, Instant to, Consumer<WindowEntry> sink) {
+        if (!materializer.covers(from.toEpochMilli(), to.toEpochMilli())) {
+            streamExpanded(calendarId, from.toEpochMilli(), to.toEpochMilli(), sink);
+            return;
+        }
+        Map<String, Event> byId = new HashMap<>();
+        List<EventOccurrence> chunk = new ArrayList<>(STREAM_CHUNK);
+        try (Stream<EventOccurrence> rows = occRepo.streamForWindow(calendarId, from.toEpochMilli(), to.toEpochMilli())) {
+            Iterator<EventOccurrence> it = rows.iterator();
+            while (it.hasNext()) {
+                chunk.add(it.next());
+                if (chunk.size() == STREAM_CHUNK || !it.hasNext()) {
+                    attachEvents(chunk, byId);
+                    for (EventOccurrence o : chunk) {
+                        Event e = byId.get(o.getEventId());
+                        if (e != null) sink.accept(new WindowEntry(e, o));
+                    }
+                    chunk.clear();
+                    em.clear(); // rows and events are only read; keep the persistence context small
+                }
+            }
+        }
+    }
+
+    /**
+     * Outside the horizon: a k-way merge of each event's lazy expansion. Events come from a
+     * cursor in start order, and no occurrence starts before its event, so an event is pulled
+     * only once the merge reaches its start; memory is bounded by the events whose expansion is
+     * still running, not by the window length. Uses the interval index's ids when it is active.
+     */
+    private void streamExpanded(String calendarId, long from, long to, Consumer<WindowEntry> sink) {
+        Comparator<EventOccurrence> order = Comparator.comparingLong(EventOccurrence::getStartMs)
+                .thenComparingLong(EventOccurrence::getEndMs);
+        PriorityQueue<Source> heads = new PriorityQueue<>((a, b) -> order.compare(a.head, b.head));
+        List<EventOccurrence> unstored = new ArrayList<>();
+        Stream<Event> cursor = windowIndex.isActive()
+                ? loadEvents(calendarId, from, to).stream().sorted(Comparator.comparing(Event::getStartMs,
+                        Comparator.nullsFirst(Comparator.naturalOrder())))
+                : events.streamForWindow(calendarId, from, to);
+        try (cursor) {
+            Iterator<Event> it = cursor.iterator();
+            Event pending = it.hasNext() ? it.next() : null;
+            while (pending != null || !heads.isEmpty()) {
+                // rows without start_ms (not yet backfilled) cannot be placed, so they are pulled at once
+                while (pending != null && (heads.isEmpty() || pending.getStartMs() == null
+                        || pending.getStartMs() <= heads.peek().head.getStartMs())) {
+                    em.detach(pending);
+                    Source src = new Source(pending, EventExpander.iterator(pending, from, to));
+                    if (src.advance()) heads.add(src);
+                    pending = it.hasNext() ? it.next() : null;
+                }
+                Source src = heads.poll();
+                if (src == null) continue;
+                sink.accept(new WindowEntry(src.event, src.head));
+                if (!materializer.isEnabled()) {
+                    unstored.add(src.head);
+                    if (unstored.size() == STREAM_CHUNK) { writeBehind.enqueue(unstored); unstored = new ArrayList<>(); }
                 }
+                if (src.advance()) heads.add(src);
             }
         }
-        // Save and return
-        occRepo.saveAll(upserts);
-        org.slf4j.LoggerFactory.getLogger(getClass()).debug("getWindow(): returning occurrences = {}", upserts.size());
-        return upserts.stream()
-                .sorted(Comparator.comparing(EventOccurrence::getStartUtc))
-                .collect(Collectors.toList());
-    }
-
-    @Transactional
-    public void upsertSingle(String eventId, String title, Instant start, Instant end, Integer typeId, String color) {
-        String keySeed = eventId + "|" + start.toString() + "|" + end.toString();
-        String stableId = UUID.nameUUIDFromBytes(keySeed.getBytes(StandardCharsets.UTF_8)).toString();
-        EventOccurrence occ = new EventOccurrence();
-        occ.setId(stableId);
-        occ.setEventId(eventId);
-        occ.setStartUtc(start.toString());
-        occ.setEndUtc(end.toString());
-        occ.setTzid("UTC");
-        occ.setStatus("confirmed");
-        occ.setIsException(0);
-        occ.setPayloadJsonb("{}");
-        occRepo.save(occ);
-        org.slf4j.LoggerFactory.getLogger(getClass()).debug("upsertSingle(): event={} upserted id={}", eventId, stableId);
+        if (!unstored.isEmpty()) writeBehind.enqueue(unstored);
+    }
+
+    /** One event's remaining occurrences in the merge. */
+    private static final class Source {
+        final Event event;
+        final Iterator<EventOccurrence> rest;
+        EventOccurrence head;
+
+        Source(Event event, Iterator<EventOccurrence> rest) { this.event = event; this.rest = rest; }
+
+        boolean advance() {
+            head = rest.hasNext() ? rest.next() : null;
+            return head != null;
+        }
+    }
+
+    /**
+     * Occurrence rows for the window, in start order. A pure read: outside the materialized
+     * horizon nothing is written here; with materialization off, rows not yet stored are
+     * handed to {@link OccurrenceWriteBehind}.
+     */
+    @Transactional(readOnly = true)
+    public List<EventOccurrence> getWindow(String calendarId, Instant from, Instant to) {
+        List<WindowEntry> entries = window(calendarId, from, to);
+        List<EventOccurrence> out = new ArrayList<>(entries.size());
+        for (WindowEntry entry : entries) out.add(entry.occurrence());
+        return out;
+    }
+
+    /** Re-materialize an event's instances after it was created or changed. */
+    public void refreshEvent(Event e) {
+        materializer.refreshEvent(e);
     }
 
     public void deleteForEvent(String eventId) {
-        // optional: bulk delete via repository if needed; leaving as no-op for now
+        materializer.removeEvent(eventId);
     }
-}
 
+    public void deleteForEvents(Collection<String> eventIds) {
+        materializer.removeEvents(eventIds);
+    }
+
+    private List<WindowEntry> expand(List<Event> base, long from, long to) {
+        List<WindowEntry> out = new ArrayList<>(base.size());
+        List<EventOccurrence> rows = new ArrayList<>(base.size());
+        for (Event e : base) {
+            EventExpander.expand(e, from, to, o -> {
+                out.add(new WindowEntry(e, o));
+                rows.add(o);
+            });
+        }
+        if (!materializer.isEnabled()) writeBehind.enqueue(rows);
+        // same order as the materialized read
+        out.sort(Comparator.comparingLong((WindowEntry w) -> w.occurrence().getStartMs())
+                .thenComparingLong(w -> w.occurrence().getEndMs()));
+        return out;
+    }
+
+    /** Loads the events of {@code rows} not yet in {@code byId} with one query. */
+    private void attachEvents(List<EventOccurrence> rows, Map<String, Event> byId) {
+        Set<String> missing = new HashSet<>();
+        for (EventOccurrence o : rows) if (!byId.containsKey(o.getEventId())) missing.add(o.getEventId());
+        if (!missing.isEmpty()) for (Event e : events.findAllById(missing)) byId.put(e.getId(), e);
+    }
+
+    private static boolean inRequest() {
+        return RequestContextHolder.getRequestAttributes() != null;
+    }
+}
@@ -0,0 +1,117 @@
+package com.timeblocks.service;
+
+import com.timeblocks.model.EventOccurrence;
+import com.timeblocks.repo.UpsertRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Write-behind for event_occurrences rows produced by calendar reads, so a GET never opens a
+ * write transaction. Rows are deduplicated by id while queued, ids already written are
+ * skipped (the id is derived from event, start and end, so a known id means an unchanged
+ * row), and the queue is drained through {@link UpsertRepository#insertNew} on one
+ * background thread, either when a batch fills up or on a short timer.
+ */
+@Component
+public class OccurrenceWriteBehind {
+    private static final Logger log = LoggerFactory.getLogger(OccurrenceWriteBehind.class);
+
+    private final UpsertRepository upserts;
+    private final Map<String, EventOccurrence> pending = new ConcurrentHashMap<>();
+    private final Set<String> written = ConcurrentHashMap.newKeySet();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "occurrence-write-behind");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Value("${timeblocks.occurrences.write-behind.batch-size:500}")
+    int batchSize;
+
+    // Upper bound on remembered ids; past it the set starts over and ON CONFLICT absorbs the repeats
+    @Value("${timeblocks.occurrences.write-behind.max-known:200000}")
+    int maxKnown;
+
+    public OccurrenceWriteBehind(UpsertRepository upserts) {
+        this.upserts = upserts;
+    }
+
+    /** Queues rows not yet known to be stored; never blocks on the database. */
+    public void enqueue(Collection<EventOccurrence> rows) {
+        for (EventOccurrence o : rows) {
+            if (written.contains(o.getId())) continue;
+            pending.putIfAbsent(o.getId(), o);
+        }
+        if (pending.size() >= batchSize) {
+            try { writer.execute(this::flush); } catch (RejectedExecutionException ignored) {}
+        }
+    }
+
+    /** Marks an id as stored by another write path (e.g. the materializer). */
+    public void markWritten(String id) {
+        pending.remove(id);
+        remember(id);
+    }
+
+    /** Forgets ids whose rows were deleted, so a later read may queue them again. */
+    public void forget(Collection<String> ids) {
+        for (String id : ids) {
+            pending.remove(id);
+            written.remove(id);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${timeblocks.occurrences.write-behind.flush-ms:500}")
+    public void tick() {
+        if (!pending.isEmpty()) {
+            try { writer.execute(this::flush); } catch (RejectedExecutionException ignored) {}
+        }
+    }
+
+    /** Drains the queue; only ever runs on the writer thread (or at shutdown). */
+    synchronized void flush() {
+        while (!pending.isEmpty()) {
+            List<EventOccurrence> batch = new ArrayList<>(batchSize);
+            for (String id : pending.keySet()) {
+                EventOccurrence row = pending.remove(id);
+                if (row == null) continue;
+                batch.add(row);
+                if (batch.size() == batchSize) break;
+            }
+            if (batch.isEmpty()) return;
+            try {
+                upserts.insertNew(UpsertRepository.EVENT_OCCURRENCES, batch);
+                for (EventOccurrence o : batch) remember(o.getId());
+            } catch (Exception e) {
+                // rows stay unknown, so the next read of their window queues them again
+                log.warn("Occurrence write-behind batch of {} failed: {}", batch.size(), e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void remember(String id) {
+        if (written.size() >= maxKnown) written.clear();
+        written.add(id);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writer.shutdown();
+        flush();
+    }
+}
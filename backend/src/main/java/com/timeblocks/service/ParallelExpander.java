@@ -0,0 +1,124 @@
+package com.timeblocks.service;
+
+import com.timeblocks.model.Schedule;
+import com.timeblocks.service.ScheduleWindowLoader.ScheduleWindow;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Expands many series at once. Expansion is CPU-only and independent per series, so large
+ * windows are split into chunks on a bounded fork-join pool; each chunk is sorted and the
+ * chunks are merged. Below {@code timeblocks.occurrences.parallel.min-series} it stays sequential.
+ */
+@Component
+public class ParallelExpander {
+    private static final Comparator<ScheduleOccurrence> ORDER =
+            Comparator.comparingLong(ScheduleOccurrence::start).thenComparingLong(ScheduleOccurrence::end);
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    @Value("${timeblocks.occurrences.parallel.enabled:true}")
+    boolean enabled;
+
+    @Value("${timeblocks.occurrences.parallel.min-series:256}")
+    int minSeries;
+
+    // 0 = one thread per available processor
+    @Value("${timeblocks.occurrences.parallel.threads:0}")
+    int threads;
+
+    private volatile ForkJoinPool pool;
+
+    /** Occurrences of every series in {@code base} matching {@code filter}, sorted by start then end. */
+    public List<ScheduleOccurrence> expand(List<Schedule> base, ScheduleWindow window, long from, long to,
+                                           ScheduleFilter filter) {
+        if (!enabled || base.size() < Math.max(2, minSeries)) {
+            List<ScheduleOccurrence> out = expandRange(base, 0, base.size(), window, from, to, filter);
+            out.sort(ORDER);
+            return out;
+        }
+
+        ForkJoinPool p = pool();
+        int chunks = Math.min(base.size(), p.getParallelism() * CHUNKS_PER_THREAD);
+        int step = (base.size() + chunks - 1) / chunks;
+        List<Callable<List<ScheduleOccurrence>>> tasks = new ArrayList<>(chunks);
+        for (int lo = 0; lo < base.size(); lo += step) {
+            int a = lo, b = Math.min(base.size(), lo + step);
+            tasks.add(() -> {
+                List<ScheduleOccurrence> part = expandRange(base, a, b, window, from, to, filter);
+                part.sort(ORDER);
+                return part;
+            });
+        }
+
+        List<List<ScheduleOccurrence>> parts = new ArrayList<>(tasks.size());
+        try {
+            for (Future<List<ScheduleOccurrence>> f : p.invokeAll(tasks)) parts.add(f.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("occurrence expansion interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("occurrence expansion failed", e.getCause());
+        }
+        return merge(parts);
+    }
+
+    private static List<ScheduleOccurrence> expandRange(List<Schedule> base, int from, int to, ScheduleWindow window,
+                                                        long winFrom, long winTo, ScheduleFilter filter) {
+        List<ScheduleOccurrence> out = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            Schedule s = base.get(i);
+            ScheduleExpander.expand(s, window.exceptionsFor(s), winFrom, winTo, window.taskFor(s), o -> {
+                if (filter.matches(o)) out.add(o);
+            });
+        }
+        return out;
+    }
+
+    /** k-way merge of sorted parts. */
+    private static List<ScheduleOccurrence> merge(List<List<ScheduleOccurrence>> parts) {
+        int total = 0;
+        for (List<ScheduleOccurrence> part : parts) total += part.size();
+        List<ScheduleOccurrence> out = new ArrayList<>(total);
+        int[] pos = new int[parts.size()];
+        PriorityQueue<Integer> heads = new PriorityQueue<>(Math.max(1, parts.size()),
+                (x, y) -> ORDER.compare(parts.get(x).get(pos[x]), parts.get(y).get(pos[y])));
+        for (int i = 0; i < parts.size(); i++) if (!parts.get(i).isEmpty()) heads.add(i);
+        while (!heads.isEmpty()) {
+            int i = heads.poll();
+            out.add(parts.get(i).get(pos[i]++));
+            if (pos[i] < parts.get(i).size()) heads.add(i);
+        }
+        return out;
+    }
+
+    private ForkJoinPool pool() {
+        ForkJoinPool p = pool;
+        if (p == null) {
+            synchronized (this) {
+                if (pool == null) {
+                    int n = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+                    pool = new ForkJoinPool(Math.max(1, n));
+                }
+                p = pool;
+            }
+        }
+        return p;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        ForkJoinPool p = pool;
+        if (p != null) p.shutdown();
+    }
+}
@@ -0,0 +1,128 @@
+package com.timeblocks.service;
+
+import com.timeblocks.model.Schedule;
+import com.timeblocks.repo.ScheduleExceptionRepository;
+import com.timeblocks.repo.ScheduleRepository;
+import com.timeblocks.repo.TaskRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Applies a list of schedule creates, updates and deletes in one transaction. Existing rows are
+ * loaded with one query; new rows go through {@code persist} (not {@code save}, which would
+ * SELECT each assigned String id first) so Hibernate can batch the INSERTs, UPDATEs and DELETEs
+ * at flush. The scheduled flag of every touched task is then recomputed in one statement.
+ * Any invalid operation rolls back the whole batch.
+ */
+@Service
+public class ScheduleBatchService {
+
+    /** op is create | update | delete; create carries {@code schedule}, update {@code id} and {@code patch}. */
+    public record Op(String op, String id, Schedule schedule, Map<String, Object> patch) { }
+
+    public record Result(List<Schedule> created, List<Schedule> updated, List<String> deleted) { }
+
+    private final ScheduleRepository schedules;
+    private final ScheduleExceptionRepository exceptions;
+    private final TaskRepository tasks;
+    private final EntityManager em;
+
+    public ScheduleBatchService(ScheduleRepository schedules, ScheduleExceptionRepository exceptions,
+                                TaskRepository tasks, EntityManager em) {
+        this.schedules = schedules;
+        this.exceptions = exceptions;
+        this.tasks = tasks;
+        this.em = em;
+    }
+
+    @Transactional
+    public Result apply(List<Op> ops) {
+        if (ops == null || ops.isEmpty()) return new Result(List.of(), List.of(), List.of());
+
+        Set<String> load = new HashSet<>();
+        Set<String> deleteIds = new HashSet<>();
+        for (int i = 0; i < ops.size(); i++) {
+            Op op = ops.get(i);
+            String kind = op == null || op.op() == null ? "" : op.op().toLowerCase(Locale.ROOT);
+            switch (kind) {
+                case "create" -> {
+                    if (op.schedule() == null) throw bad(i, "create needs a schedule");
+                }
+                case "update", "delete" -> {
+                    if (op.id() == null || op.id().isBlank()) throw bad(i, kind + " needs an id");
+                    load.add(op.id());
+                    if (kind.equals("delete")) deleteIds.add(op.id());
+                }
+                default -> throw bad(i, "unknown op '" + (op == null ? null : op.op()) + "'");
+            }
+        }
+
+        Map<String, Schedule> byId = new HashMap<>();
+        if (!load.isEmpty()) for (Schedule s : schedules.findAllById(load)) byId.put(s.getId(), s);
+        // exceptions go first so no flush ever deletes a schedule that still has exception rows
+        if (!deleteIds.isEmpty()) exceptions.deleteByScheduleIdIn(deleteIds);
+
+        long now = System.currentTimeMillis();
+        Map<String, Schedule> created = new LinkedHashMap<>();
+        Map<String, Schedule> updated = new LinkedHashMap<>();
+        List<String> deleted = new ArrayList<>();
+        Set<String> taskIds = new HashSet<>();
+        for (int i = 0; i < ops.size(); i++) {
+            Op op = ops.get(i);
+            switch (op.op().toLowerCase(Locale.ROOT)) {
+                case "create" -> {
+                    Schedule s = op.schedule();
+                    if (s.getId() == null || s.getId().isBlank()) s.setId(UUID.randomUUID().toString());
+                    if (byId.containsKey(s.getId())) throw bad(i, "schedule " + s.getId() + " already exists");
+                    validate(i, s);
+                    if (s.getCreatedAt() == null) s.setCreatedAt(now);
+                    if (s.getUpdatedAt() == null) s.setUpdatedAt(now);
+                    em.persist(s);
+                    byId.put(s.getId(), s);
+                    created.put(s.getId(), s);
+                    taskIds.add(s.getTaskId());
+                }
+                case "update" -> {
+                    Schedule s = byId.get(op.id());
+                    if (s == null) throw bad(i, "schedule " + op.id() + " not found");
+                    taskIds.add(s.getTaskId());
+                    if (op.patch() != null) SchedulePatch.apply(s, op.patch());
+                    validate(i, s);
+                    s.setUpdatedAt(now);
+                    if (!created.containsKey(s.getId())) updated.put(s.getId(), s);
+                    taskIds.add(s.getTaskId());
+                }
+                default -> {
+                    Schedule s = byId.remove(op.id());
+                    if (s == null) throw bad(i, "schedule " + op.id() + " not found");
+                    em.remove(s);
+                    taskIds.add(s.getTaskId());
+                    updated.remove(s.getId());
+                    if (created.remove(s.getId()) == null) deleted.add(s.getId());
+                }
+            }
+        }
+        em.flush();
+
+        List<Integer> taskInts = new ArrayList<>();
+        for (String t : taskIds) {
+            if (t == null) continue;
+            try { taskInts.add(Integer.parseInt(t)); } catch (NumberFormatException ignored) {}
+        }
+        if (!taskInts.isEmpty()) tasks.recomputeScheduled(taskInts);
+        return new Result(new ArrayList<>(created.values()), new ArrayList<>(updated.values()), deleted);
+    }
+
+    private static void validate(int i, Schedule s) {
+        if (s.getStartTsUtc() == null || s.getEndTsUtc() == null || s.getEndTsUtc() <= s.getStartTsUtc()) {
+            throw bad(i, "end must be after start");
+        }
+    }
+
+    private static IllegalArgumentException bad(int i, String message) {
+        return new IllegalArgumentException("operation " + i + ": " + message);
+    }
+}
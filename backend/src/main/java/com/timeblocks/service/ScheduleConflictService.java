@@ -0,0 +1,153 @@
+package com.timeblocks.service;
+
+import com.timeblocks.model.Schedule;
+import com.timeblocks.recurrence.SeriesBounds;
+import com.timeblocks.recurrence.ZoneOffsetTable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Double-booking detection within a lane. Occurrences are swept in start order with a
+ * per-lane min-heap of active occurrences keyed by end, so a window costs O(n log n)
+ * plus the number of overlapping pairs rather than a pairwise comparison.
+ * Touching blocks (one ends when the next starts) and cancelled occurrences never conflict.
+ */
+@Service
+public class ScheduleConflictService {
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+    private static final String CANCELLED = "cancelled";
+
+    /** Two occurrences in the same lane overlapping on [overlapStart, overlapEnd). */
+    public record Conflict(String laneId, String occId, String scheduleId, String otherOccId, String otherScheduleId,
+                           long overlapStart, long overlapEnd) { }
+
+    /** A maximal run of transitively overlapping occurrences in one lane. */
+    public record Cluster(String laneId, long start, long end, List<String> occIds) { }
+
+    public record Report(List<Conflict> pairs, List<Cluster> clusters, boolean truncated) { }
+
+    private final ScheduleOccurrenceService occurrences;
+
+    @Value("${timeblocks.conflicts.max-pairs:10000}")
+    int maxPairs;
+
+    @Value("${timeblocks.conflicts.check-horizon-days:90}")
+    int checkHorizonDays;
+
+    public ScheduleConflictService(ScheduleOccurrenceService occurrences) {
+        this.occurrences = occurrences;
+    }
+
+    /** All conflicts among occurrences overlapping [from, to]. */
+    public Report find(long from, long to, ScheduleFilter filter) {
+        Sweep sweep = new Sweep(maxPairs);
+        occurrences.stream(from, to, filter, sweep::accept);
+        return sweep.finish();
+    }
+
+    /**
+     * Conflicts a (new or edited) schedule would have with what is already booked in its lane.
+     * Only the lane's rows over the candidate's own span are read; recurring candidates are
+     * checked up to {@code timeblocks.conflicts.check-horizon-days} ahead.
+     */
+    public List<Conflict> check(Schedule candidate, ScheduleExceptionIndex exceptions) {
+        if (candidate.getStartTsUtc() == null || candidate.getEndTsUtc() == null || isCancelled(candidate.getStatus())) {
+            return List.of();
+        }
+        long from = candidate.getStartTsUtc();
+        long seriesEnd = SeriesBounds.seriesEnd(candidate.getRecurrenceRule(), from,
+                candidate.getEndTsUtc() - from, ZoneOffsetTable.zoneOrUtc(candidate.getTimezone()));
+        long to = Math.min(seriesEnd, Math.max(candidate.getEndTsUtc(), from + checkHorizonDays * DAY_MS));
+
+        List<ScheduleOccurrence> mine = new ArrayList<>();
+        ScheduleExpander.expand(candidate, exceptions, from, to, null, o -> {
+            if (!isCancelled(o.status())) mine.add(o);
+        });
+        if (mine.isEmpty()) return List.of();
+        mine.sort(Comparator.comparingLong(ScheduleOccurrence::start).thenComparingLong(ScheduleOccurrence::end));
+
+        String lane = candidate.getLaneId();
+        ScheduleFilter filter = lane != null ? ScheduleFilter.of(List.of(lane), null, null) : ScheduleFilter.NO_LANE;
+        List<Conflict> out = new ArrayList<>();
+        // Both lists are start-ordered: walk them together, keeping candidate instances that may still overlap
+        int lo = 0;
+        for (ScheduleOccurrence other : occurrences.window(from, to, filter)) {
+            if (candidate.getId() != null && candidate.getId().equals(other.schedule().getId())) continue;
+            if (!Objects.equals(lane, other.laneId()) || isCancelled(other.status())) continue;
+            while (lo < mine.size() && mine.get(lo).end() <= other.start()) lo++;
+            for (int i = lo; i < mine.size() && mine.get(i).start() < other.end(); i++) {
+                ScheduleOccurrence m = mine.get(i);
+                if (m.end() <= other.start()) continue;
+                out.add(conflict(m, other));
+                if (out.size() >= maxPairs) return out;
+            }
+        }
+        return out;
+    }
+
+    private static Conflict conflict(ScheduleOccurrence a, ScheduleOccurrence b) {
+        return new Conflict(a.laneId(), a.occId(), a.schedule().getId(), b.occId(), b.schedule().getId(),
+                Math.max(a.start(), b.start()), Math.min(a.end(), b.end()));
+    }
+
+    private static boolean isCancelled(String status) {
+        return CANCELLED.equalsIgnoreCase(status);
+    }
+
+    /** Sweep state over a start-ordered occurrence stream. */
+    private static final class Sweep {
+        private final int maxPairs;
+        private final Map<String, Lane> lanes = new HashMap<>();
+        private final List<Conflict> pairs = new ArrayList<>();
+        private final List<Cluster> clusters = new ArrayList<>();
+        private boolean truncated;
+
+        Sweep(int maxPairs) { this.maxPairs = maxPairs; }
+
+        private static final class Lane {
+            final PriorityQueue<ScheduleOccurrence> active =
+                    new PriorityQueue<>(Comparator.comparingLong(ScheduleOccurrence::end));
+            final List<String> cluster = new ArrayList<>();
+            long clusterStart, clusterEnd = Long.MIN_VALUE;
+        }
+
+        void accept(ScheduleOccurrence o) {
+            if (isCancelled(o.status())) return;
+            String key = o.laneId() != null ? o.laneId() : "";
+            Lane lane = lanes.computeIfAbsent(key, k -> new Lane());
+
+            while (!lane.active.isEmpty() && lane.active.peek().end() <= o.start()) lane.active.poll();
+            for (ScheduleOccurrence other : lane.active) {
+                if (pairs.size() >= maxPairs) { truncated = true; break; }
+                pairs.add(conflict(other, o));
+            }
+            lane.active.add(o);
+
+            if (o.start() >= lane.clusterEnd) {
+                closeCluster(o.laneId(), lane);
+                lane.clusterStart = o.start();
+                lane.clusterEnd = o.end();
+            } else {
+                lane.clusterEnd = Math.max(lane.clusterEnd, o.end());
+            }
+            lane.cluster.add(o.occId());
+        }
+
+        private void closeCluster(String laneId, Lane lane) {
+            if (lane.cluster.size() > 1) {
+                clusters.add(new Cluster(laneId, lane.clusterStart, lane.clusterEnd, List.copyOf(lane.cluster)));
+            }
+            lane.cluster.clear();
+        }
+
+        Report finish() {
+            for (Map.Entry<String, Lane> e : lanes.entrySet()) {
+                closeCluster(e.getKey().isEmpty() ? null : e.getKey(), e.getValue());
+            }
+            clusters.sort(Comparator.comparingLong(Cluster::start));
+            return new Report(pairs, clusters, truncated);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.timeblocks.service;
+
+import com.timeblocks.model.ScheduleException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Exceptions of one schedule keyed by {@code exDateUtc} in an open-addressing long map,
+ * so expansion resolves each generated occurrence in O(1).
+ *
+ * Precedence when several exceptions target the same instance:
+ * a skip (no change fields) always wins; otherwise the edits are merged oldest to newest
+ * by createdAt (then id), so the newest non-null value of each field wins and the
+ * newest exception's meta is reported.
+ */
+public final class ScheduleExceptionIndex {
+    public static final ScheduleExceptionIndex EMPTY = new ScheduleExceptionIndex(List.of());
+
+    /** The resolved effect of all exceptions on one instance. */
+    public record Override(boolean skip, Long start, Long end, String laneId, String status, String meta) { }
+
+    private static final Comparator<ScheduleException> OLDEST_FIRST = Comparator
+            .comparing(ScheduleException::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(ScheduleException::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final long[] keys;
+    private final Override[] values;
+    private final int mask;
+    private final int size;
+
+    private ScheduleExceptionIndex(Collection<ScheduleException> exceptions) {
+        List<ScheduleException> sorted = new ArrayList<>();
+        for (ScheduleException ex : exceptions) if (ex.getExDateUtc() != null) sorted.add(ex);
+        sorted.sort(OLDEST_FIRST);
+
+        int cap = 2;
+        while (cap < sorted.size() * 2) cap <<= 1;
+        this.keys = new long[cap];
+        this.values = new Override[cap];
+        this.mask = cap - 1;
+
+        int n = 0;
+        for (ScheduleException ex : sorted) {
+            long key = ex.getExDateUtc();
+            int slot = slotOf(key);
+            Override prev = values[slot];
+            if (prev == null) n++;
+            keys[slot] = key;
+            values[slot] = merge(prev, ex);
+        }
+        this.size = n;
+    }
+
+    public static ScheduleExceptionIndex of(Collection<ScheduleException> exceptions) {
+        return exceptions == null || exceptions.isEmpty() ? EMPTY : new ScheduleExceptionIndex(exceptions);
+    }
+
+    /** The resolved override for the instance originally starting at {@code exDateUtc}, or null. */
+    public Override get(long exDateUtc) {
+        if (size == 0) return null;
+        for (int i = hash(exDateUtc) & mask; ; i = (i + 1) & mask) {
+            Override v = values[i];
+            if (v == null) return null;
+            if (keys[i] == exDateUtc) return v;
+        }
+    }
+
+    public boolean isEmpty() { return size == 0; }
+
+    /** Callback for {@link #forEach}. */
+    public interface Visitor {
+        void accept(long exDateUtc, Override override);
+    }
+
+    /** Visits every resolved override, in no particular order. */
+    public void forEach(Visitor visitor) {
+        if (size == 0) return;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) visitor.accept(keys[i], values[i]);
+        }
+    }
+
+    private int slotOf(long key) {
+        int i = hash(key) & mask;
+        while (values[i] != null && keys[i] != key) i = (i + 1) & mask;
+        return i;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static Override merge(Override prev, ScheduleException ex) {
+        boolean skip = ex.getChangeStartTsUtc() == null && ex.getChangeEndTsUtc() == null
+                && ex.getChangeLaneId() == null && ex.getChangeStatus() == null;
+        if (prev == null) {
+            return new Override(skip, ex.getChangeStartTsUtc(), ex.getChangeEndTsUtc(),
+                    ex.getChangeLaneId(), ex.getChangeStatus(), ex.getMeta());
+        }
+        return new Override(prev.skip() || skip,
+                ex.getChangeStartTsUtc() != null ? ex.getChangeStartTsUtc() : prev.start(),
+                ex.getChangeEndTsUtc() != null ? ex.getChangeEndTsUtc() : prev.end(),
+                ex.getChangeLaneId() != null ? ex.getChangeLaneId() : prev.laneId(),
+                ex.getChangeStatus() != null ? ex.getChangeStatus() : prev.status(),
+                ex.getMeta());
+    }
+}
@@ -0,0 +1,134 @@
+package com.timeblocks.service;
+
+import com.timeblocks.logging.TBLog;
+import com.timeblocks.model.Schedule;
+import com.timeblocks.model.Task;
+import com.timeblocks.recurrence.RecurrenceIterator;
+import com.timeblocks.recurrence.RecurrenceRule;
+import com.timeblocks.recurrence.ZoneOffsetTable;
+
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+/**
+ * Expands a single schedule (one-off or recurring) into the occurrences overlapping [from, to].
+ * Overlap is judged on each occurrence's effective time, after its exception is applied; that is
+ * also what schedule_occurrences_cache stores and filters on, so an instance moved across a
+ * window edge is in or out the same way whether the window is read from the cache or expanded.
+ */
+public final class ScheduleExpander {
+    private ScheduleExpander() { }
+
+    /** Unordered: the unmoved instances in start order, then the moved ones. */
+    public static void expand(Schedule s, ScheduleExceptionIndex exceptions, long from, long to, Task task,
+                              Consumer<ScheduleOccurrence> sink) {
+        Iterator<ScheduleOccurrence> it = unmoved(s, exceptions, from, to, task);
+        while (it.hasNext()) sink.accept(it.next());
+        moved(s, exceptions, from, to, task, sink);
+    }
+
+    /**
+     * Lazy, start-ordered form of {@link #expand} used for streaming. Instances an exception
+     * moved to another start or end are left out, since they can land anywhere in the window;
+     * {@link #moved} reports those.
+     */
+    public static Iterator<ScheduleOccurrence> unmoved(Schedule s, ScheduleExceptionIndex exceptions,
+                                                       long from, long to, Task task) {
+        long dur = durationOf(s);
+        PrimitiveIterator.OfLong starts;
+        if (s.getRecurrenceRule() == null || s.getRecurrenceRule().isBlank()) {
+            if (s.getEndTsUtc() < from || s.getStartTsUtc() > to) return Collections.emptyIterator();
+            starts = LongStream.of(s.getStartTsUtc()).iterator();
+        } else {
+            RecurrenceRule rule = parseRule(s);
+            if (rule == null) return Collections.emptyIterator();
+            // Anything starting at or after (from - dur) can still overlap the window
+            starts = new RecurrenceIterator(rule, s.getStartTsUtc(), ZoneOffsetTable.zoneOrUtc(s.getTimezone()), from - dur, to);
+        }
+        return new Iterator<>() {
+            private ScheduleOccurrence next = advance();
+
+            private ScheduleOccurrence advance() {
+                while (starts.hasNext()) {
+                    long occStart = starts.nextLong();
+                    ScheduleExceptionIndex.Override ov = exceptions != null ? exceptions.get(occStart) : null;
+                    if (ov != null && (ov.skip() || retimes(ov, occStart, dur))) continue;
+                    return occurrence(s, task, occStart, dur, ov);
+                }
+                return null;
+            }
+
+            @Override public boolean hasNext() { return next != null; }
+
+            @Override public ScheduleOccurrence next() {
+                if (next == null) throw new NoSuchElementException();
+                ScheduleOccurrence o = next;
+                next = advance();
+                return o;
+            }
+        };
+    }
+
+    /**
+     * The instances {@link #unmoved} leaves out: those an exception gave another start or end,
+     * reported when their new time overlaps [from, to], wherever the original instance was.
+     */
+    public static void moved(Schedule s, ScheduleExceptionIndex exceptions, long from, long to, Task task,
+                             Consumer<ScheduleOccurrence> sink) {
+        if (exceptions == null || exceptions.isEmpty()) return;
+        long dur = durationOf(s);
+        boolean oneOff = s.getRecurrenceRule() == null || s.getRecurrenceRule().isBlank();
+        RecurrenceRule rule = oneOff ? null : parseRule(s);
+        if (!oneOff && rule == null) return;
+        ZoneId zone = oneOff ? null : ZoneOffsetTable.zoneOrUtc(s.getTimezone());
+        exceptions.forEach((exDate, ov) -> {
+            if (ov.skip() || !retimes(ov, exDate, dur)) return;
+            ScheduleOccurrence o = occurrence(s, task, exDate, dur, ov);
+            if (o.end() < from || o.start() > to) return;
+            boolean instance;
+            if (oneOff) {
+                instance = exDate == s.getStartTsUtc();
+            } else {
+                RecurrenceIterator probe = new RecurrenceIterator(rule, s.getStartTsUtc(), zone, exDate, exDate);
+                instance = probe.hasNext() && probe.nextLong() == exDate;
+            }
+            if (instance) sink.accept(o);
+        });
+    }
+
+    private static ScheduleOccurrence occurrence(Schedule s, Task task, long occStart, long dur,
+                                                 ScheduleExceptionIndex.Override ov) {
+        if (ov == null) {
+            return new ScheduleOccurrence(s, task, occStart, occStart, occStart + dur,
+                    s.getLaneId(), s.getStatus(), false, null);
+        }
+        return new ScheduleOccurrence(s, task, occStart,
+                ov.start() != null ? ov.start() : occStart,
+                ov.end() != null ? ov.end() : occStart + dur,
+                ov.laneId() != null ? ov.laneId() : s.getLaneId(),
+                ov.status() != null ? ov.status() : s.getStatus(),
+                true, ov.meta());
+    }
+
+    private static boolean retimes(ScheduleExceptionIndex.Override ov, long occStart, long dur) {
+        return (ov.start() != null && ov.start() != occStart) || (ov.end() != null && ov.end() != occStart + dur);
+    }
+
+    private static long durationOf(Schedule s) {
+        return Math.max(1, s.getEndTsUtc() - s.getStartTsUtc());
+    }
+
+    private static RecurrenceRule parseRule(Schedule s) {
+        try {
+            return RecurrenceRule.parse(s.getRecurrenceRule());
+        } catch (IllegalArgumentException e) {
+            TBLog.warn("Skipping schedule {} with unsupported RRULE: {}", s.getId(), e.getMessage());
+            return null;
+        }
+    }
+}
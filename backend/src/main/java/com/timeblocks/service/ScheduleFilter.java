@@ -0,0 +1,46 @@
+package com.timeblocks.service;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Lane / status / task filters for schedule window reads; an empty set means "any".
+ * Lane and status apply to the effective values of each occurrence (after exceptions),
+ * task to the series. Occurrences without a lane pass every lane filter; {@code laneIsNull}
+ * instead selects only those.
+ */
+public record ScheduleFilter(Set<String> laneIds, boolean laneIsNull, Set<String> statuses, Set<String> taskIds) {
+    public static final ScheduleFilter NONE = new ScheduleFilter(Set.of(), false, Set.of(), Set.of());
+    /** Only occurrences without a lane. */
+    public static final ScheduleFilter NO_LANE = new ScheduleFilter(Set.of(), true, Set.of(), Set.of());
+
+    public static ScheduleFilter of(Collection<String> laneIds, Collection<String> statuses, Collection<String> taskIds) {
+        return new ScheduleFilter(clean(laneIds), false, clean(statuses), clean(taskIds));
+    }
+
+    public boolean anyLane() { return laneIds.isEmpty() && !laneIsNull; }
+    public boolean anyStatus() { return statuses.isEmpty(); }
+    public boolean anyTask() { return taskIds.isEmpty(); }
+
+    /** Final check on an expanded occurrence (exceptions may have changed its lane or status). */
+    public boolean matches(ScheduleOccurrence o) {
+        return (laneIsNull ? o.laneId() == null : anyLane() || o.laneId() == null || laneIds.contains(o.laneId()))
+                && (anyStatus() || statuses.contains(o.status()))
+                && (anyTask() || taskIds.contains(o.schedule().getTaskId()));
+    }
+
+    /** Accepts repeated params as well as comma-separated values; blanks are dropped. */
+    private static Set<String> clean(Collection<String> values) {
+        if (values == null || values.isEmpty()) return Set.of();
+        Set<String> out = new LinkedHashSet<>();
+        for (String v : values) {
+            if (v == null) continue;
+            for (String part : v.split(",")) {
+                String t = part.trim();
+                if (!t.isEmpty()) out.add(t);
+            }
+        }
+        return Set.copyOf(out);
+    }
+}
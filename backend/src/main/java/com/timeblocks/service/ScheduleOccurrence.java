@@ -0,0 +1,30 @@
+package com.timeblocks.service;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.timeblocks.model.Schedule;
+import com.timeblocks.model.Task;
+
+/**
+ * One concrete instance of a schedule inside a query window, after exceptions are applied.
+ * {@code originalStart} is the unmodified series start used to build the stable occId.
+ * Serialized as-is by the schedules endpoint (see {@link ScheduleOccurrenceSerializer}).
+ */
+@JsonSerialize(using = ScheduleOccurrenceSerializer.class)
+public record ScheduleOccurrence(Schedule schedule,
+                                 Task task,
+                                 long originalStart,
+                                 long start,
+                                 long end,
+                                 String laneId,
+                                 String status,
+                                 boolean exception,
+                                 String occurrenceMeta) {
+
+    public String occId() {
+        return schedule.getId() + ":" + originalStart;
+    }
+
+    public boolean recurring() {
+        return schedule.getRecurrenceRule() != null && !schedule.getRecurrenceRule().isBlank();
+    }
+}
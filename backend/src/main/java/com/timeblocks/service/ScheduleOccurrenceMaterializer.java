@@ -0,0 +1,196 @@
+package com.timeblocks.service;
+
+import com.timeblocks.model.Schedule;
+import com.timeblocks.repo.ScheduleExceptionRepository;
+import com.timeblocks.repo.ScheduleOccurrenceCacheRepository;
+import com.timeblocks.repo.ScheduleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps schedule_occurrences_cache filled for a rolling horizon around "now".
+ * The whole horizon is rebuilt at startup and once a day; writes to a single
+ * schedule or its exceptions only re-materialize that series.
+ * <p>
+ * A rebuild rewrites the rows series by series in short transactions and then sweeps the rows
+ * it did not write, so readers keep being served from the cache meanwhile (over the part of the
+ * old horizon the new one still covers). Single-series refreshes join the caller's transaction
+ * and take no lock here: holding a monitor while waiting for the database write lock, with a
+ * caller holding that lock while waiting for the monitor, is a deadlock.
+ */
+@Service
+public class ScheduleOccurrenceMaterializer {
+    private static final Logger log = LoggerFactory.getLogger(ScheduleOccurrenceMaterializer.class);
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+    private static final int INSERT_BATCH = 500;
+    private static final int REBUILD_CHUNK = 200;
+    private static final String INSERT_SQL =
+            "INSERT INTO schedule_occurrences_cache " +
+            "(id, schedule_id, occ_start_utc, occ_end_utc, lane_id, status, meta, tz, generated_window, is_exception, created_at) " +
+            "VALUES (?,?,?,?,?,?,?,?,?,?,?) ON CONFLICT(id) DO NOTHING";
+
+    private final ScheduleRepository schedules;
+    private final ScheduleExceptionRepository exceptions;
+    private final ScheduleOccurrenceCacheRepository cache;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+
+    @Value("${timeblocks.occurrences.cache.enabled:true}")
+    boolean enabled;
+
+    @Value("${timeblocks.occurrences.cache.past-days:90}")
+    int pastDays;
+
+    @Value("${timeblocks.occurrences.cache.future-days:365}")
+    int futureDays;
+
+    /** [from, to] in epoch ms. */
+    private record Span(long from, long to) {
+        Span intersect(Span o) {
+            long f = Math.max(from, o.from), t = Math.min(to, o.to);
+            return f <= t ? new Span(f, t) : null;
+        }
+
+        Span union(Span o) { return new Span(Math.min(from, o.from), Math.max(to, o.to)); }
+    }
+
+    // Span readers may be served from the cache (null: use expansion), and span writes materialize
+    // (null: nothing is materialized). They differ only while a rebuild moves the horizon.
+    private volatile Span horizon;
+    private volatile Span fill;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public ScheduleOccurrenceMaterializer(ScheduleRepository schedules,
+                                          ScheduleExceptionRepository exceptions,
+                                          ScheduleOccurrenceCacheRepository cache,
+                                          JdbcTemplate jdbc,
+                                          TransactionTemplate tx) {
+        this.schedules = schedules;
+        this.exceptions = exceptions;
+        this.cache = cache;
+        this.jdbc = jdbc;
+        this.tx = tx;
+    }
+
+    /** True when every instant of [from, to] is inside the materialized horizon. */
+    public boolean covers(long from, long to) {
+        Span h = horizon;
+        return enabled && h != null && from >= h.from && to <= h.to;
+    }
+
+    /** Full rebuild: at startup and daily, so the horizon keeps rolling forward. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${timeblocks.occurrences.cache.refresh-cron:0 15 3 * * *}")
+    public void rebuildAll() {
+        if (!enabled || !rebuilding.compareAndSet(false, true)) return;
+        long t0 = System.currentTimeMillis();
+        long today = t0 - Math.floorMod(t0, DAY_MS);
+        Span target = new Span(today - pastDays * DAY_MS, today + (futureDays + 1L) * DAY_MS);
+        Span before = horizon;
+        boolean done = false;
+        try {
+            // meanwhile: serve only what both the old and the new rows cover; refreshes write both
+            if (before != null) horizon = before.intersect(target);
+            fill = before != null ? before.union(target) : target;
+
+            List<String> ids = seriesIds(target);
+            int total = 0;
+            for (int i = 0; i < ids.size(); i += REBUILD_CHUNK) {
+                List<String> chunk = ids.subList(i, Math.min(ids.size(), i + REBUILD_CHUNK));
+                Integer n = tx.execute(status -> write(chunk, target));
+                total += n != null ? n : 0;
+            }
+            // rows not rewritten above (series gone or out of the horizon); refreshes since t0 are kept
+            Integer swept = tx.execute(status -> jdbc.update(
+                    "DELETE FROM schedule_occurrences_cache WHERE created_at < ?", t0));
+
+            fill = target;
+            horizon = target;
+            done = true;
+            log.info("Materialized {} schedule occurrences for {} in {} ms ({} stale rows swept)", total,
+                    windowLabel(target.from, target.to), System.currentTimeMillis() - t0, swept);
+        } catch (RuntimeException e) {
+            log.error("Schedule occurrence rebuild failed; serving {} from the cache until the next run",
+                    horizon == null ? "nothing" : windowLabel(horizon.from, horizon.to), e);
+        } finally {
+            // on failure every series still has rows for the narrowed horizon, old or new
+            if (!done) fill = horizon;
+            rebuilding.set(false);
+        }
+    }
+
+    /** Re-materialize one series after its schedule or exceptions changed (or it was deleted). */
+    @Transactional
+    public void refreshSchedule(String scheduleId) {
+        if (scheduleId != null) refreshSchedules(List.of(scheduleId));
+    }
+
+    /** {@link #refreshSchedule} for many series at once: one delete, two reads, batched inserts. */
+    @Transactional
+    public void refreshSchedules(Collection<String> scheduleIds) {
+        if (!enabled || scheduleIds.isEmpty()) return;
+        Span f = fill;
+        if (f == null) cache.deleteByScheduleIdIn(scheduleIds); // nothing materialized yet
+        else write(scheduleIds, f);
+    }
+
+    /**
+     * Replaces the rows of {@code ids} with their occurrences over {@code span}. The delete runs
+     * first so the reads after it see any write that was holding the rows.
+     */
+    private int write(Collection<String> ids, Span span) {
+        cache.deleteByScheduleIdIn(ids);
+        Map<String, ScheduleExceptionIndex> bySchedule =
+                ScheduleWindowLoader.indexBySchedule(exceptions.findByScheduleIdIn(ids));
+        String window = windowLabel(span.from, span.to);
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        int total = 0;
+        for (Schedule s : schedules.findAllById(ids)) {
+            for (Object[] row : rowsFor(s, bySchedule.get(s.getId()), span.from, span.to, window)) {
+                batch.add(row);
+                total++;
+                if (batch.size() == INSERT_BATCH) { jdbc.batchUpdate(INSERT_SQL, batch); batch.clear(); }
+            }
+        }
+        if (!batch.isEmpty()) jdbc.batchUpdate(INSERT_SQL, batch);
+        return total;
+    }
+
+    /** Series with an occurrence in the span: their own span overlaps it, or an exception moved an instance into it. */
+    private List<String> seriesIds(Span span) {
+        Set<String> ids = new LinkedHashSet<>(schedules.findIdsForWindow(span.from, span.to));
+        for (Schedule s : schedules.findMovedInto(span.from, span.to)) ids.add(s.getId());
+        return new ArrayList<>(ids);
+    }
+
+    private static List<Object[]> rowsFor(Schedule s, ScheduleExceptionIndex exList, long from, long to, String window) {
+        List<Object[]> rows = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        ScheduleExpander.expand(s, exList, from, to, null, o -> rows.add(new Object[]{
+                o.occId(), s.getId(), o.start(), o.end(), o.laneId(), o.status(), o.occurrenceMeta(),
+                s.getTimezone(), window, o.exception() ? 1 : 0, now
+        }));
+        return rows;
+    }
+
+    private static String windowLabel(long from, long to) {
+        return Instant.ofEpochMilli(from) + "/" + Instant.ofEpochMilli(to);
+    }
+}
@@ -0,0 +1,42 @@
+package com.timeblocks.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.timeblocks.model.Schedule;
+import com.timeblocks.model.Task;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link ScheduleOccurrence} straight to the generator with the keys the
+ * /api/schedules clients expect, without an intermediate map per occurrence.
+ * taskTitle/typeId are only present when the task is known, occurrenceMeta only
+ * when an exception was applied; every other key is always written (null if unset).
+ */
+public class ScheduleOccurrenceSerializer extends JsonSerializer<ScheduleOccurrence> {
+    @Override
+    public void serialize(ScheduleOccurrence o, JsonGenerator g, SerializerProvider provider) throws IOException {
+        Schedule s = o.schedule();
+        Task task = o.task();
+        g.writeStartObject();
+        g.writeStringField("id", s.getId());
+        g.writeStringField("occId", o.occId());
+        g.writeStringField("taskId", s.getTaskId());
+        if (task != null) {
+            g.writeStringField("taskTitle", task.getTitle());
+            if (task.getTypeId() != null) g.writeNumberField("typeId", task.getTypeId().intValue());
+        }
+        g.writeStringField("laneId", o.laneId());
+        g.writeStringField("tz", s.getTimezone());
+        g.writeNumberField("start", o.start());
+        g.writeNumberField("end", o.end());
+        if (s.getAllDay() != null) g.writeNumberField("allDay", s.getAllDay().intValue());
+        else g.writeNullField("allDay");
+        g.writeStringField("status", o.status());
+        g.writeBooleanField("isRecurring", o.recurring());
+        g.writeStringField("baseScheduleMeta", s.getMeta());
+        if (o.exception()) g.writeStringField("occurrenceMeta", o.occurrenceMeta());
+        g.writeEndObject();
+    }
+}
@@ -0,0 +1,191 @@
+package com.timeblocks.service;
+
+import com.timeblocks.index.WindowIndex;
+import com.timeblocks.model.Schedule;
+import com.timeblocks.model.ScheduleOccurrenceCache;
+import com.timeblocks.model.Task;
+import com.timeblocks.repo.ScheduleOccurrenceCacheRepository;
+import com.timeblocks.repo.ScheduleRepository;
+import com.timeblocks.service.ScheduleWindowLoader.ScheduleWindow;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Resolves the schedule occurrences overlapping a window: straight from the materialized
+ * cache when the window lies inside its horizon, otherwise by expanding the series.
+ */
+@Service
+public class ScheduleOccurrenceService {
+    private final ScheduleRepository schedules;
+    private final ScheduleWindowLoader loader;
+    private final ScheduleOccurrenceCacheRepository cache;
+    private final ScheduleOccurrenceMaterializer materializer;
+    private final WindowIndex windowIndex;
+    private final EntityManager em;
+    private final ParallelExpander parallel;
+
+    public ScheduleOccurrenceService(ScheduleRepository schedules,
+                                     ScheduleWindowLoader loader,
+                                     ScheduleOccurrenceCacheRepository cache,
+                                     ScheduleOccurrenceMaterializer materializer,
+                                     WindowIndex windowIndex,
+                                     EntityManager em,
+                                     ParallelExpander parallel) {
+        this.schedules = schedules;
+        this.loader = loader;
+        this.cache = cache;
+        this.materializer = materializer;
+        this.windowIndex = windowIndex;
+        this.em = em;
+        this.parallel = parallel;
+    }
+
+    /**
+     * Occurrences overlapping [from, to] by their effective time, sorted by start then end.
+     * Costs a fixed number of queries either way: cache rows + schedules + tasks, or
+     * schedules + moved-in series + exceptions + tasks.
+     */
+    @Transactional(readOnly = true)
+    public List<ScheduleOccurrence> window(long from, long to, ScheduleFilter filter) {
+        List<ScheduleOccurrence> out = materializer.covers(from, to)
+                ? fromCache(from, to, filter)
+                : expand(from, to, filter);
+        out.sort(Comparator.comparingLong(ScheduleOccurrence::start).thenComparingLong(ScheduleOccurrence::end));
+        return out;
+    }
+
+    /**
+     * Same occurrences as {@link #window}, pushed to {@code sink} in start order as they are
+     * produced. Memory stays bounded by the number of series (plus moved instances), not by
+     * the window length: cache rows are read through a cursor, expansion is a lazy k-way merge.
+     */
+    @Transactional(readOnly = true)
+    public void stream(long from, long to, ScheduleFilter filter, Consumer<ScheduleOccurrence> sink) {
+        if (materializer.covers(from, to)) streamFromCache(from, to, filter, sink);
+        else streamExpanded(from, to, filter, sink);
+    }
+
+    private void streamFromCache(long from, long to, ScheduleFilter filter, Consumer<ScheduleOccurrence> sink) {
+        List<Schedule> base = candidates(from, to, filter);
+        ScheduleWindow window = loader.load(base, false);
+        Map<String, Schedule> byId = new HashMap<>();
+        for (Schedule s : base) byId.put(s.getId(), s);
+
+        try (Stream<ScheduleOccurrenceCache> rows = cache.streamForWindow(from, to,
+                filter.laneIds(), filter.laneIsNull(), filter.statuses(), filter.taskIds())) {
+            rows.forEach(r -> {
+                em.detach(r);
+                // candidates() includes series with instances moved into the window, so every row has its series
+                Schedule s = byId.get(r.getScheduleId());
+                if (s == null) return;
+                sink.accept(new ScheduleOccurrence(s, window.taskFor(s), originalStartOf(r),
+                        r.getOccStartUtc(), r.getOccEndUtc(), r.getLaneId(), r.getStatus(),
+                        r.getIsException() != null && r.getIsException() == 1, r.getMeta()));
+            });
+        }
+    }
+
+    private void streamExpanded(long from, long to, ScheduleFilter filter, Consumer<ScheduleOccurrence> sink) {
+        List<Schedule> base = candidates(from, to, filter);
+        ScheduleWindow window = loader.load(base, true);
+
+        Comparator<ScheduleOccurrence> order = Comparator.comparingLong(ScheduleOccurrence::start)
+                .thenComparingLong(ScheduleOccurrence::end);
+        PriorityQueue<Source> heads = new PriorityQueue<>(Math.max(1, base.size() + 1),
+                (a, b) -> order.compare(a.head, b.head));
+        List<ScheduleOccurrence> moved = new ArrayList<>();
+        for (Schedule s : base) {
+            Task task = window.taskFor(s);
+            Source src = new Source(ScheduleExpander.unmoved(s, window.exceptionsFor(s), from, to, task));
+            if (src.advance()) heads.add(src);
+            ScheduleExpander.moved(s, window.exceptionsFor(s), from, to, task, moved::add);
+        }
+        moved.sort(order);
+        Source movedSrc = new Source(moved.iterator());
+        if (movedSrc.advance()) heads.add(movedSrc);
+
+        while (!heads.isEmpty()) {
+            Source src = heads.poll();
+            if (filter.matches(src.head)) sink.accept(src.head);
+            if (src.advance()) heads.add(src);
+        }
+    }
+
+    /** One sorted input of the k-way merge. */
+    private static final class Source {
+        final Iterator<ScheduleOccurrence> rest;
+        ScheduleOccurrence head;
+
+        Source(Iterator<ScheduleOccurrence> rest) { this.rest = rest; }
+
+        boolean advance() {
+            head = rest.hasNext() ? rest.next() : null;
+            return head != null;
+        }
+    }
+
+    private List<ScheduleOccurrence> fromCache(long from, long to, ScheduleFilter filter) {
+        List<ScheduleOccurrenceCache> rows = cache.findForWindow(from, to,
+                filter.laneIds(), filter.laneIsNull(), filter.statuses(), filter.taskIds());
+        Set<String> ids = new HashSet<>();
+        for (ScheduleOccurrenceCache r : rows) ids.add(r.getScheduleId());
+        Map<String, Schedule> byId = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Schedule s : schedules.findAllById(ids)) byId.put(s.getId(), s);
+        }
+        ScheduleWindow window = loader.load(byId.values(), false);
+
+        List<ScheduleOccurrence> out = new ArrayList<>(rows.size());
+        for (ScheduleOccurrenceCache r : rows) {
+            Schedule s = byId.get(r.getScheduleId());
+            if (s == null) continue;
+            out.add(new ScheduleOccurrence(s, window.taskFor(s), originalStartOf(r),
+                    r.getOccStartUtc(), r.getOccEndUtc(), r.getLaneId(), r.getStatus(),
+                    r.getIsException() != null && r.getIsException() == 1, r.getMeta()));
+        }
+        return out;
+    }
+
+    private List<ScheduleOccurrence> expand(long from, long to, ScheduleFilter filter) {
+        List<Schedule> base = candidates(from, to, filter);
+
+        ScheduleWindow window = loader.load(base, true);
+        return parallel.expand(base, window, from, to, filter);
+    }
+
+    /**
+     * Series that may have an occurrence in the window: those whose span overlaps it and match
+     * the filter (from the interval index when enabled, else the series-bounds window query),
+     * plus those with an instance moved into it. Occurrences are re-checked against the filter.
+     */
+    private List<Schedule> candidates(long from, long to, ScheduleFilter f) {
+        List<Schedule> base;
+        if (!windowIndex.isActive()) {
+            base = new ArrayList<>(schedules.findForWindowFiltered(from, to,
+                    f.laneIds(), f.laneIsNull(), f.statuses(), f.taskIds()));
+        } else {
+            List<String> ids = windowIndex.scheduleIds(from, to);
+            base = ids.isEmpty() ? new ArrayList<>() : new ArrayList<>(schedules.findByIdInFiltered(ids,
+                    f.laneIds(), f.laneIsNull(), f.statuses(), f.taskIds()));
+        }
+        List<Schedule> movedIn = schedules.findMovedInto(from, to);
+        if (movedIn.isEmpty()) return base;
+        Set<String> have = new HashSet<>(base.size() * 2);
+        for (Schedule s : base) have.add(s.getId());
+        for (Schedule s : movedIn) if (have.add(s.getId())) base.add(s);
+        return base;
+    }
+
+    /** Cache ids are the occId ("scheduleId:originalStart"). */
+    private static long originalStartOf(ScheduleOccurrenceCache r) {
+        String id = r.getId();
+        int i = id.lastIndexOf(':');
+        try { return Long.parseLong(id.substring(i + 1)); }
+        catch (NumberFormatException e) { return r.getOccStartUtc(); }
+    }
+}
@@ -0,0 +1,22 @@
+package com.timeblocks.service;
+
+import com.timeblocks.model.Schedule;
+
+import java.util.Map;
+
+/** Applies a partial update (the PUT /api/schedules/{id} body) to a schedule in place. */
+public final class SchedulePatch {
+    private SchedulePatch() { }
+
+    public static void apply(Schedule s, Map<String, Object> patch) {
+        if (patch.containsKey("taskId")) s.setTaskId(String.valueOf(patch.get("taskId")));
+        if (patch.containsKey("start")) s.setStartTsUtc(((Number) patch.get("start")).longValue());
+        if (patch.containsKey("end")) s.setEndTsUtc(((Number) patch.get("end")).longValue());
+        if (patch.containsKey("timezone")) s.setTimezone((String) patch.get("timezone"));
+        if (patch.containsKey("laneId")) s.setLaneId((String) patch.get("laneId"));
+        if (patch.containsKey("allDay")) s.setAllDay(((Number) patch.get("allDay")).intValue());
+        if (patch.containsKey("status")) s.setStatus((String) patch.get("status"));
+        if (patch.containsKey("recurrenceRule")) s.setRecurrenceRule((String) patch.get("recurrenceRule"));
+        if (patch.containsKey("meta")) s.setMeta((String) patch.get("meta"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.timeblocks.service;
+
+import com.timeblocks.model.Schedule;
+import com.timeblocks.model.ScheduleException;
+import com.timeblocks.model.Task;
+import com.timeblocks.repo.ScheduleExceptionRepository;
+import com.timeblocks.repo.TaskRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Batch-loads everything occurrence expansion needs for a set of schedules:
+ * one IN query for their exceptions and one for their tasks, regardless of how
+ * many schedules the window holds (plus the caller's own schedule query).
+ */
+@Component
+public class ScheduleWindowLoader {
+    private final ScheduleExceptionRepository exceptions;
+    private final TaskRepository tasks;
+
+    public ScheduleWindowLoader(ScheduleExceptionRepository exceptions, TaskRepository tasks) {
+        this.exceptions = exceptions;
+        this.tasks = tasks;
+    }
+
+    public record ScheduleWindow(Collection<Schedule> schedules,
+                                 Map<String, ScheduleExceptionIndex> exceptions,
+                                 Map<Integer, Task> tasks) {
+        public ScheduleExceptionIndex exceptionsFor(Schedule s) {
+            return exceptions.getOrDefault(s.getId(), ScheduleExceptionIndex.EMPTY);
+        }
+
+        public Task taskFor(Schedule s) {
+            Integer id = parseTaskId(s);
+            return id != null ? tasks.get(id) : null;
+        }
+    }
+
+    public ScheduleWindow load(Collection<Schedule> base, boolean withExceptions) {
+        if (base.isEmpty()) return new ScheduleWindow(base, Map.of(), Map.of());
+
+        Map<String, ScheduleExceptionIndex> exBySchedule = new HashMap<>();
+        if (withExceptions) {
+            Set<String> ids = new HashSet<>();
+            for (Schedule s : base) ids.add(s.getId());
+            exBySchedule = indexBySchedule(exceptions.findByScheduleIdIn(ids));
+        }
+
+        Set<Integer> taskIds = new HashSet<>();
+        for (Schedule s : base) {
+            Integer id = parseTaskId(s);
+            if (id != null) taskIds.add(id);
+        }
+        Map<Integer, Task> taskById = new HashMap<>();
+        if (!taskIds.isEmpty()) for (Task t : tasks.findAllById(taskIds)) taskById.put(t.getId(), t);
+
+        return new ScheduleWindow(base, exBySchedule, taskById);
+    }
+
+    /** Groups exceptions by schedule and indexes each group by exDateUtc. */
+    public static Map<String, ScheduleExceptionIndex> indexBySchedule(Collection<ScheduleException> all) {
+        Map<String, List<ScheduleException>> grouped = new HashMap<>();
+        for (ScheduleException ex : all) {
+            grouped.computeIfAbsent(ex.getScheduleId(), k -> new ArrayList<>()).add(ex);
+        }
+        Map<String, ScheduleExceptionIndex> out = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((id, list) -> out.put(id, ScheduleExceptionIndex.of(list)));
+        return out;
+    }
+
+    static Integer parseTaskId(Schedule s) {
+        try { return s.getTaskId() != null ? Integer.parseInt(s.getTaskId()) : null; }
+        catch (NumberFormatException ignored) { return null; }
+    }
+}
@@ -0,0 +1,61 @@
+package com.timeblocks.service;
+
+import com.timeblocks.recurrence.SeriesBounds;
+import com.timeblocks.recurrence.ZoneOffsetTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The SQL backfill (V13_1) leaves COUNT series open-ended because finding their last
+ * instance needs the recurrence engine. This narrows them once at startup; rows written
+ * by the application already carry exact bounds, so later runs find nothing to do.
+ */
+@Component
+public class SeriesBoundsBackfill {
+    private static final Logger log = LoggerFactory.getLogger(SeriesBoundsBackfill.class);
+    private static final String OPEN_COUNT_ROWS =
+            " WHERE series_end_utc = " + SeriesBounds.UNBOUNDED + " AND upper(recurrence_rule) LIKE '%COUNT=%'";
+
+    private final JdbcTemplate jdbc;
+
+    public SeriesBoundsBackfill(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void narrowCountSeries() {
+        List<Object[]> schedules = new ArrayList<>();
+        jdbc.query("SELECT id, start_ts_utc, end_ts_utc, timezone, recurrence_rule FROM schedules" + OPEN_COUNT_ROWS, rs -> {
+            long start = rs.getLong(2);
+            long end = SeriesBounds.seriesEnd(rs.getString(5), start, rs.getLong(3) - start, ZoneOffsetTable.zoneOrUtc(rs.getString(4)));
+            if (end != SeriesBounds.UNBOUNDED) schedules.add(new Object[]{end, rs.getString(1)});
+        });
+        if (!schedules.isEmpty()) jdbc.batchUpdate("UPDATE schedules SET series_end_utc = ? WHERE id = ?", schedules);
+
+        List<Object[]> events = new ArrayList<>();
+        jdbc.query("SELECT id, start_utc, end_utc, tzid, recurrence_rule FROM events" + OPEN_COUNT_ROWS, rs -> {
+            try {
+                long start = Instant.parse(rs.getString(2)).toEpochMilli();
+                long dur = Instant.parse(rs.getString(3)).toEpochMilli() - start;
+                long end = SeriesBounds.seriesEnd(rs.getString(5), start, dur, ZoneOffsetTable.zoneOrUtc(rs.getString(4)));
+                if (end != SeriesBounds.UNBOUNDED) events.add(new Object[]{end, rs.getString(1)});
+            } catch (DateTimeException e) {
+                log.warn("Series bounds: skipping event {} with unparsable times", rs.getString(1));
+            }
+        });
+        if (!events.isEmpty()) jdbc.batchUpdate("UPDATE events SET series_end_utc = ? WHERE id = ?", events);
+
+        if (!schedules.isEmpty() || !events.isEmpty()) {
+            log.info("Series bounds narrowed for {} COUNT schedules, {} COUNT events", schedules.size(), events.size());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.timeblocks.service;
+
+import com.timeblocks.model.Event;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Per-request memo of calendar window fetches, so endpoints that compose several
+ * window-based services (occurrences, DTOs, free/busy, ...) read each window once.
+ * Lists handed out are shared and read-only.
+ */
+@Component
+@RequestScope
+public class WindowMemo {
+    private final Map<String, List<Event>> events = new HashMap<>();
+    private final Map<String, List<OccurrenceService.WindowEntry>> entries = new HashMap<>();
+
+    public List<Event> events(String calendarId, long fromMs, long toMs, Supplier<List<Event>> load) {
+        return events.computeIfAbsent(calendarId + "|" + fromMs + "|" + toMs, k -> List.copyOf(load.get()));
+    }
+
+    public List<OccurrenceService.WindowEntry> entries(String calendarId, long fromMs, long toMs,
+                                                       Supplier<List<OccurrenceService.WindowEntry>> load) {
+        return entries.computeIfAbsent(calendarId + "|" + fromMs + "|" + toMs, k -> List.copyOf(load.get()));
+    }
+}
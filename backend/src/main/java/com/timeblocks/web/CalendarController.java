@@ -1,11 +1,19 @@
 package com.timeblocks.web;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.timeblocks.config.WriteSequence;
+import com.timeblocks.logging.TBLog;
 import com.timeblocks.model.Event;
-import com.timeblocks.repo.EventRepository;
+import com.timeblocks.service.IcsImportService;
 import com.timeblocks.service.OccurrenceService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
 import java.util.*;
 
@@ -13,37 +21,97 @@ import java.util.*;
 @RequestMapping("/api")
 public class CalendarController {
     private final OccurrenceService occ;
-    private final EventRepository events;
+    private final ObjectMapper mapper;
+    private final WriteSequence writes;
+    private final IcsImportService icsImport;
 
-    public CalendarController(OccurrenceService occ, EventRepository events) { this.occ = occ; this.events = events; }
+    public CalendarController(OccurrenceService occ, ObjectMapper mapper, WriteSequence writes,
+                              IcsImportService icsImport) {
+        this.occ = occ; this.mapper = mapper; this.writes = writes; this.icsImport = icsImport;
+    }
 
     @GetMapping("/calendars/{id}/events")
     public List<Map<String,Object>> window(@PathVariable String id,
                                            @RequestParam String from,
-                                           @RequestParam String to) {
-        // Ensure occurrence rows exist (idempotent)
-        occ.getWindow(id, Instant.parse(from), Instant.parse(to));
-
-        // Map events to UI-friendly occurrence DTOs
-        String F = Instant.parse(from).toString();
-        String T = Instant.parse(to).toString();
-        List<Event> base = events.findForWindow(id, F, T);
-        List<Map<String,Object>> out = new ArrayList<>();
-        for (Event e : base) {
-            String keySeed = e.getId() + "|" + e.getStartUtc() + "|" + e.getEndUtc();
-            String stableId = java.util.UUID.nameUUIDFromBytes(keySeed.getBytes(StandardCharsets.UTF_8)).toString();
-            Map<String,Object> dto = new LinkedHashMap<>();
-            dto.put("id", stableId);
-            dto.put("event_id", e.getId());
-            dto.put("taskId", e.getTaskId());
-            dto.put("title", e.getTitle());
-            dto.put("start", e.getStartUtc());
-            dto.put("end", e.getEndUtc());
-            dto.put("type_id", e.getTypeId());
-            dto.put("color", e.getNotes());
-            out.add(dto);
-        }
+                                           @RequestParam String to,
+                                           WebRequest request) {
+        // Nothing written since the client's copy: 304 after one change_log lookup, before the window read
+        if (request.checkNotModified(writes.etag("events"))) return null;
+        // One read of the window (materialized rows, or in-memory expansion outside the horizon);
+        // entries map straight to UI-friendly occurrence DTOs
+        List<OccurrenceService.WindowEntry> entries = occ.window(id, Instant.parse(from), Instant.parse(to));
+        List<Map<String,Object>> out = new ArrayList<>(entries.size());
+        for (OccurrenceService.WindowEntry entry : entries) out.add(toDto(entry));
         return out;
     }
+
+    // Streaming variant (Accept: application/x-ndjson or ?format=ndjson): one DTO per line, in start order
+    @GetMapping(value = "/calendars/{id}/events", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamWindow(@PathVariable String id,
+                                                              @RequestParam String from,
+                                                              @RequestParam String to,
+                                                              WebRequest request) {
+        if (request.checkNotModified(writes.etag("events-ndjson"))) return null;
+        Instant f = Instant.parse(from), t = Instant.parse(to);
+        StreamingResponseBody body = out -> {
+            try (NdjsonWriter w = new NdjsonWriter(mapper, out)) {
+                occ.streamWindow(id, f, t, entry -> w.write(toDto(entry)));
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NdjsonWriter.MEDIA_TYPE)).body(body);
+    }
+
+    @GetMapping(value = "/calendars/{id}/events", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamWindowByFlag(@PathVariable String id,
+                                                                    @RequestParam String from,
+                                                                    @RequestParam String to,
+                                                                    WebRequest request) {
+        return streamWindow(id, from, to, request);
+    }
+
+    // =============================
+    // POST /api/calendars/:id/import.ics
+    // body: the raw iCalendar file (text/calendar), read as it arrives rather than as a multipart upload;
+    // rows are committed batch by batch, so a failure part-way keeps the batches already written
+    // =============================
+    @PostMapping("/calendars/{id}/import.ics")
+    public ResponseEntity<?> importIcs(@PathVariable String id, InputStream body) throws IOException {
+        String cid = TBLog.getCorrelationId();
+        TBLog.groupStart("POST /api/calendars/{id}/import.ics", cid);
+        try {
+            IcsImportService.Result r = icsImport.importCalendar(id, body);
+            Map<String,Object> out = new LinkedHashMap<>();
+            out.put("events", r.events());
+            out.put("schedules", r.schedules());
+            out.put("exceptions", r.exceptions());
+            out.put("skipped", r.skipped());
+            out.put("unsupportedRules", r.unsupportedRules());
+            out.put("batches", r.batches());
+            out.put("bytes", r.bytes());
+            out.put("ms", r.millis());
+            out.put("rowsPerSecond", r.rowsPerSecond());
+            TBLog.kv("import", out);
+            return ResponseEntity.ok(out);
+        } catch (IllegalArgumentException e) {
+            TBLog.warn("import rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        } finally {
+            TBLog.groupEnd();
+        }
+    }
+
+    private static Map<String,Object> toDto(OccurrenceService.WindowEntry entry) {
+        Event e = entry.event();
+        Map<String,Object> dto = new LinkedHashMap<>(12);
+        dto.put("id", entry.occurrenceId());
+        dto.put("event_id", e.getId());
+        dto.put("taskId", e.getTaskId());
+        dto.put("title", e.getTitle());
+        dto.put("start", entry.occurrence().getStartUtc());
+        dto.put("end", entry.occurrence().getEndUtc());
+        dto.put("type_id", e.getTypeId());
+        dto.put("color", e.getNotes());
+        return dto;
+    }
 }
 
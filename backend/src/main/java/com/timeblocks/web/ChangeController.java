@@ -0,0 +1,53 @@
+package com.timeblocks.web;
+
+import com.timeblocks.logging.TBLog;
+import com.timeblocks.service.ChangeFeedService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/changes")
+public class ChangeController {
+    private static final int MAX_LIMIT = 5000;
+
+    private final ChangeFeedService changes;
+
+    public ChangeController(ChangeFeedService changes) {
+        this.changes = changes;
+    }
+
+    // =============================
+    // GET /api/changes?since=<seq>[&limit]
+    // Compacted upserts/tombstones after the watermark; 410 when the log no longer reaches back that far.
+    // since=0 (no watermark yet) gets a snapshot page: load full windows, then resume from its next
+    // =============================
+    @GetMapping
+    public ResponseEntity<?> since(@RequestParam(defaultValue = "0") long since,
+                                   @RequestParam(defaultValue = "1000") int limit) {
+        String cid = TBLog.getCorrelationId();
+        TBLog.groupStart("GET /api/changes", cid);
+        try {
+            if (changes.expired(since)) {
+                TBLog.warn("changes: watermark {} already pruned", since);
+                return ResponseEntity.status(HttpStatus.GONE).body(Map.of("resync", true, "head", changes.head()));
+            }
+            ChangeFeedService.Page page = changes.since(since, Math.max(1, Math.min(limit, MAX_LIMIT)));
+            TBLog.kv("changes", Map.of("since", since, "next", page.next(), "count", page.changes().size(),
+                    "hasMore", page.hasMore(), "snapshot", page.snapshot()));
+            return ResponseEntity.ok(page);
+        } finally {
+            TBLog.groupEnd();
+        }
+    }
+
+    // =============================
+    // GET /api/changes/head — watermark to take before loading full windows
+    // =============================
+    @GetMapping("/head")
+    public Map<String, Long> head() {
+        return Map.of("seq", changes.head());
+    }
+}
@@ -2,6 +2,7 @@ package com.timeblocks.web;
 
 import com.timeblocks.model.Event;
 import com.timeblocks.logging.TBLog;
+import com.timeblocks.service.ChangeBus;
 import com.timeblocks.service.EventService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -13,8 +14,9 @@ import java.util.Map;
 @RequestMapping("/api")
 public class EventController {
   private final EventService events;
+  private final ChangeBus bus;
 
-  public EventController(EventService events) { this.events = events; }
+  public EventController(EventService events, ChangeBus bus) { this.events = events; this.bus = bus; }
 
   @PostMapping("/events")
   public ResponseEntity<Event> create(@RequestBody Map<String, Object> body) {
@@ -31,6 +33,7 @@ public class EventController {
       String typeId = typeRaw instanceof Number ? String.valueOf(((Number) typeRaw).intValue()) : (typeRaw instanceof String ? (String) typeRaw : null);
       String color = (String) body.getOrDefault("color", null);
       Event saved = events.create(calendarId, title, Instant.parse(start), Instant.parse(end), rrule, typeId, color);
+      bus.publish(ChangeBus.Notice.span("event", saved.getId(), "upsert", saved.getSeriesStartUtc(), saved.getSeriesEndUtc(), calendarId));
       TBLog.kv("Created event", Map.of("id", saved.getId(), "title", saved.getTitle(), "start", saved.getStartUtc(), "end", saved.getEndUtc(), "typeId", saved.getTypeId()));
       return ResponseEntity.status(201).body(saved);
     } finally {
@@ -52,7 +55,9 @@ public class EventController {
       String typeId = typeRaw instanceof Number ? String.valueOf(((Number) typeRaw).intValue()) : (typeRaw instanceof String ? (String) typeRaw : null);
       Instant s = start != null ? Instant.parse(start) : null;
       Instant e = end != null ? Instant.parse(end) : null;
-      Event saved = events.update(id, title, s, e, rrule, typeId, null);
+      EventService.Written w = events.update(id, title, s, e, rrule, typeId, null);
+      Event saved = w.event();
+      bus.publish(ChangeBus.Notice.span("event", id, "upsert", w.spanStart(), w.spanEnd(), w.calendarId()));
       TBLog.kv("Updated event", Map.of("id", saved.getId(), "title", saved.getTitle(), "start", saved.getStartUtc(), "end", saved.getEndUtc(), "typeId", saved.getTypeId()));
       return ResponseEntity.ok(saved);
     } finally {
@@ -66,7 +71,8 @@ public class EventController {
     TBLog.groupStart("DELETE /api/events/{id}", cid);
     try {
       TBLog.kv("Path", Map.of("id", id));
-      events.deleteHard(id);
+      EventService.Written w = events.deleteHard(id);
+      bus.publish(ChangeBus.Notice.span("event", id, "delete", w.spanStart(), w.spanEnd(), w.calendarId()));
       TBLog.info("Deleted event", Map.of("id", id));
       return ResponseEntity.ok(Map.of("ok", true));
     } catch (Exception e) {
@@ -2,6 +2,7 @@ package com.timeblocks.web;
 
 import com.timeblocks.model.EventType;
 import com.timeblocks.repo.EventTypeRepository;
+import com.timeblocks.repo.UpsertRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -13,9 +14,11 @@ import java.util.UUID;
 @RequestMapping("/api")
 public class EventTypeController {
     private final EventTypeRepository typeRepo;
+    private final UpsertRepository upserts;
 
-    public EventTypeController(EventTypeRepository typeRepo) {
+    public EventTypeController(EventTypeRepository typeRepo, UpsertRepository upserts) {
         this.typeRepo = typeRepo;
+        this.upserts = upserts;
     }
 
     @GetMapping("/workspaces/{workspaceId}/types")
@@ -35,7 +38,7 @@ public class EventTypeController {
             type.setDefaultsJsonb("{}");
         }
         
-        EventType saved = typeRepo.save(type);
+        EventType saved = upserts.save(type);
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
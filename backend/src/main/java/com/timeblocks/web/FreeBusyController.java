@@ -0,0 +1,56 @@
+package com.timeblocks.web;
+
+import com.timeblocks.logging.TBLog;
+import com.timeblocks.recurrence.ZoneOffsetTable;
+import com.timeblocks.service.FreeBusyService;
+import com.timeblocks.service.ScheduleFilter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+public class FreeBusyController {
+    private final FreeBusyService freeBusy;
+
+    public FreeBusyController(FreeBusyService freeBusy) {
+        this.freeBusy = freeBusy;
+    }
+
+    // =============================
+    // GET /api/freebusy?timeMin&timeMax[&laneId][&calendarId][&tz][&slotMinutes][&minFreeMinutes][&detail][&schedules]
+    // Busy/free ranges over schedule lanes and event calendars, combined by OR
+    // =============================
+    @GetMapping("/freebusy")
+    public ResponseEntity<?> freeBusy(@RequestParam String timeMin,
+                                      @RequestParam String timeMax,
+                                      @RequestParam(required = false) List<String> laneId,
+                                      @RequestParam(required = false) List<String> calendarId,
+                                      @RequestParam(required = false) String tz,
+                                      @RequestParam(defaultValue = "1") int slotMinutes,
+                                      @RequestParam(defaultValue = "0") int minFreeMinutes,
+                                      @RequestParam(defaultValue = "false") boolean detail,
+                                      @RequestParam(defaultValue = "true") boolean schedules) {
+        String cid = TBLog.getCorrelationId();
+        TBLog.groupStart("GET /api/freebusy", cid);
+        try {
+            long from = Instant.parse(timeMin).toEpochMilli();
+            long to = Instant.parse(timeMax).toEpochMilli();
+            FreeBusyService.FreeBusy report = freeBusy.report(from, to, ZoneOffsetTable.zoneOrUtc(tz), slotMinutes,
+                    minFreeMinutes * 60_000L, schedules ? ScheduleFilter.of(laneId, null, null) : null,
+                    calendarId, detail);
+            TBLog.kv("freebusy", Map.of("busy", report.busy().size(), "free", report.free().size(),
+                    "slotMinutes", slotMinutes));
+            return ResponseEntity.ok(report);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            TBLog.warn("freebusy rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        } finally {
+            TBLog.groupEnd();
+        }
+    }
+}
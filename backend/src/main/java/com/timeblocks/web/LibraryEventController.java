@@ -3,6 +3,7 @@ package com.timeblocks.web;
 import com.timeblocks.logging.TBLog;
 import com.timeblocks.model.LibraryEvent;
 import com.timeblocks.repo.LibraryEventRepository;
+import com.timeblocks.repo.UpsertRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,9 +17,11 @@ import java.util.UUID;
 @RequestMapping("/api")
 public class LibraryEventController {
     private final LibraryEventRepository libRepo;
+    private final UpsertRepository upserts;
 
-    public LibraryEventController(LibraryEventRepository libRepo) {
+    public LibraryEventController(LibraryEventRepository libRepo, UpsertRepository upserts) {
         this.libRepo = libRepo;
+        this.upserts = upserts;
     }
 
     @GetMapping("/workspaces/{workspaceId}/library-events")
@@ -61,7 +64,7 @@ public class LibraryEventController {
             }
             event.setWorkspaceId(workspaceId);
             
-            LibraryEvent saved = libRepo.save(event);
+            LibraryEvent saved = upserts.save(event);
             
             Map<String, Object> dbResult = new HashMap<>();
             dbResult.put("id", saved.getId());
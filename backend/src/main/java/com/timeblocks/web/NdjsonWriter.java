@@ -0,0 +1,51 @@
+package com.timeblocks.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes one JSON document per line (application/x-ndjson) through a single generator,
+ * flushing every {@value #FLUSH_EVERY} lines so clients can render while the rest is produced.
+ */
+final class NdjsonWriter implements Closeable {
+    static final String MEDIA_TYPE = "application/x-ndjson";
+    private static final int FLUSH_EVERY = 256;
+
+    private final ObjectWriter writer;
+    private final JsonGenerator gen;
+    private int pending;
+
+    NdjsonWriter(ObjectMapper mapper, OutputStream out) throws IOException {
+        this.writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.gen = mapper.getFactory().createGenerator(out);
+        gen.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        gen.setRootValueSeparator(null);
+    }
+
+    /** Writes one line; IO failures (usually the client going away) surface unchecked so callers can use it as a sink. */
+    void write(Object value) {
+        try {
+            writer.writeValue(gen, value);
+            gen.writeRaw('\n');
+            if (++pending == FLUSH_EVERY) {
+                gen.flush();
+                pending = 0;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        gen.flush();
+        gen.close();
+    }
+}
@@ -1,5 +1,8 @@
 package com.timeblocks.web;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.timeblocks.config.WriteSequence;
+import com.timeblocks.index.WindowIndex;
 import com.timeblocks.logging.TBLog;
 import com.timeblocks.model.Schedule;
 import com.timeblocks.model.ScheduleException;
@@ -7,8 +10,23 @@ import com.timeblocks.repo.ScheduleExceptionRepository;
 import com.timeblocks.repo.TaskRepository;
 import com.timeblocks.model.Task;
 import com.timeblocks.repo.ScheduleRepository;
+import com.timeblocks.repo.UpsertRepository;
+import com.timeblocks.service.AutoPlaceService;
+import com.timeblocks.service.ChangeBus;
+import com.timeblocks.service.ScheduleBatchService;
+import com.timeblocks.service.ScheduleConflictService;
+import com.timeblocks.service.ScheduleExceptionIndex;
+import com.timeblocks.service.ScheduleFilter;
+import com.timeblocks.service.ScheduleOccurrence;
+import com.timeblocks.service.ScheduleOccurrenceMaterializer;
+import com.timeblocks.service.ScheduleOccurrenceService;
+import com.timeblocks.service.SchedulePatch;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.*;
 import java.time.format.DateTimeParseException;
@@ -20,45 +38,60 @@ public class ScheduleController {
     private final ScheduleRepository schedules;
     private final ScheduleExceptionRepository exceptions;
     private final TaskRepository tasks;
+    private final ScheduleOccurrenceService occurrences;
+    private final ScheduleOccurrenceMaterializer materializer;
+    private final WindowIndex windowIndex;
+    private final ObjectMapper mapper;
+    private final ScheduleConflictService conflicts;
+    private final AutoPlaceService autoPlace;
+    private final ScheduleBatchService batch;
+    private final WriteSequence writes;
+    private final ChangeBus bus;
+    private final UpsertRepository upserts;
 
-    public ScheduleController(ScheduleRepository schedules, ScheduleExceptionRepository exceptions, TaskRepository tasks) {
+    public ScheduleController(ScheduleRepository schedules, ScheduleExceptionRepository exceptions, TaskRepository tasks,
+                              ScheduleOccurrenceService occurrences, ScheduleOccurrenceMaterializer materializer,
+                              WindowIndex windowIndex, ObjectMapper mapper, ScheduleConflictService conflicts,
+                              AutoPlaceService autoPlace, ScheduleBatchService batch, WriteSequence writes,
+                              ChangeBus bus, UpsertRepository upserts) {
         this.schedules = schedules;
         this.exceptions = exceptions;
         this.tasks = tasks;
+        this.occurrences = occurrences;
+        this.materializer = materializer;
+        this.windowIndex = windowIndex;
+        this.mapper = mapper;
+        this.conflicts = conflicts;
+        this.autoPlace = autoPlace;
+        this.batch = batch;
+        this.writes = writes;
+        this.bus = bus;
+        this.upserts = upserts;
     }
 
     // =============================
-    // GET /api/schedules?timeMin&timeMax&laneId&includeCache
+    // GET /api/schedules?timeMin&timeMax&laneId&status&taskId&includeCache
+    // laneId/status/taskId accept several values (repeated or comma-separated)
     // =============================
     @GetMapping("/schedules")
-    public List<Map<String,Object>> listOccurrences(@RequestParam String timeMin,
+    public List<ScheduleOccurrence> listOccurrences(@RequestParam String timeMin,
                                                     @RequestParam String timeMax,
-                                                    @RequestParam(required = false) String laneId,
-                                                    @RequestParam(required = false, defaultValue = "0") int includeCache) {
+                                                    @RequestParam(required = false) List<String> laneId,
+                                                    @RequestParam(required = false) List<String> status,
+                                                    @RequestParam(required = false) List<String> taskId,
+                                                    @RequestParam(required = false, defaultValue = "0") int includeCache,
+                                                    WebRequest request) {
+        // Unchanged since the client's copy: 304 after one change_log lookup, before any window query or expansion
+        if (request.checkNotModified(writes.etag("schedules"))) return null;
         String cid = TBLog.getCorrelationId();
         TBLog.groupStart("GET /api/schedules", cid);
         try {
             long from = parseIsoToEpochMs(timeMin);
             long to   = parseIsoToEpochMs(timeMax);
 
-            List<Schedule> base = schedules.findForWindow(from, to);
-            if (laneId != null && !laneId.isBlank()) {
-                base.removeIf(s -> s.getLaneId() != null && !laneId.equals(s.getLaneId()));
-            }
-
-            List<Map<String,Object>> out = new ArrayList<>();
-            for (Schedule s : base) {
-                List<ScheduleException> ex = exceptions.findByScheduleId(s.getId());
-                // Enrich with task metadata once per schedule
-                Integer taskIdInt = null; Task task = null;
-                try { taskIdInt = s.getTaskId() != null ? Integer.parseInt(s.getTaskId()) : null; } catch (NumberFormatException ignored) {}
-                if (taskIdInt != null) { task = tasks.findById(taskIdInt).orElse(null); }
-                out.addAll(expandScheduleInRange(s, ex, from, to, task));
-            }
-            // Filter invalid entries and sort by start then end
-            out.removeIf(o -> o == null || o.get("start") == null || o.get("end") == null);
-            out.sort(Comparator.comparingLong((Map<String,Object> o) -> (Long)o.get("start"))
-                    .thenComparingLong((Map<String,Object> o) -> (Long)o.get("end")));
+            ScheduleFilter filter = ScheduleFilter.of(laneId, status, taskId);
+            TBLog.kv("Filters", Map.of("laneId", filter.laneIds(), "status", filter.statuses(), "taskId", filter.taskIds()));
+            List<ScheduleOccurrence> out = occurrences.window(from, to, filter);
             TBLog.kv("occurrences", Map.of("count", out.size()));
             return out;
         } finally {
@@ -67,20 +100,82 @@ public class ScheduleController {
     }
 
     // =============================
-    // POST /api/schedules
+    // GET /api/schedules as NDJSON (Accept: application/x-ndjson or ?format=ndjson)
+    // =============================
+    @GetMapping(value = "/schedules", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamOccurrences(@RequestParam String timeMin,
+                                                                   @RequestParam String timeMax,
+                                                                   @RequestParam(required = false) List<String> laneId,
+                                                                   @RequestParam(required = false) List<String> status,
+                                                                   @RequestParam(required = false) List<String> taskId,
+                                                                   WebRequest request) {
+        if (request.checkNotModified(writes.etag("schedules-ndjson"))) return null;
+        long from = parseIsoToEpochMs(timeMin);
+        long to   = parseIsoToEpochMs(timeMax);
+        ScheduleFilter filter = ScheduleFilter.of(laneId, status, taskId);
+        TBLog.info("GET /api/schedules streaming {}..{}", timeMin, timeMax);
+        StreamingResponseBody body = out -> {
+            try (NdjsonWriter w = new NdjsonWriter(mapper, out)) {
+                occurrences.stream(from, to, filter, w::write);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NdjsonWriter.MEDIA_TYPE)).body(body);
+    }
+
+    @GetMapping(value = "/schedules", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamOccurrencesByFlag(@RequestParam String timeMin,
+                                                                         @RequestParam String timeMax,
+                                                                         @RequestParam(required = false) List<String> laneId,
+                                                                         @RequestParam(required = false) List<String> status,
+                                                                         @RequestParam(required = false) List<String> taskId,
+                                                                         WebRequest request) {
+        return streamOccurrences(timeMin, timeMax, laneId, status, taskId, request);
+    }
+
+    // =============================
+    // GET /api/schedules/conflicts?timeMin&timeMax&laneId
+    // =============================
+    @GetMapping("/schedules/conflicts")
+    public ScheduleConflictService.Report listConflicts(@RequestParam String timeMin,
+                                                        @RequestParam String timeMax,
+                                                        @RequestParam(required = false) List<String> laneId) {
+        String cid = TBLog.getCorrelationId();
+        TBLog.groupStart("GET /api/schedules/conflicts", cid);
+        try {
+            ScheduleConflictService.Report report = conflicts.find(parseIsoToEpochMs(timeMin), parseIsoToEpochMs(timeMax),
+                    ScheduleFilter.of(laneId, null, null));
+            TBLog.kv("conflicts", Map.of("pairs", report.pairs().size(), "clusters", report.clusters().size(),
+                    "truncated", report.truncated()));
+            return report;
+        } finally {
+            TBLog.groupEnd();
+        }
+    }
+
+    // =============================
+    // POST /api/schedules[?conflicts=reject|flag]
     // =============================
     @PostMapping("/schedules")
-    public ResponseEntity<Schedule> create(@RequestBody Schedule dto) {
+    public ResponseEntity<?> create(@RequestBody Schedule dto,
+                                    @RequestParam(name = "conflicts", required = false) String conflictMode) {
         if (dto.getEndTsUtc() == null || dto.getStartTsUtc() == null || dto.getEndTsUtc() <= dto.getStartTsUtc()) {
             return ResponseEntity.badRequest().build();
         }
+        List<ScheduleConflictService.Conflict> found = checkConflicts(dto, ScheduleExceptionIndex.EMPTY, conflictMode);
+        if (found != null && "reject".equalsIgnoreCase(conflictMode) && !found.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("conflicts", found));
+        }
         // Ensure we have an associated task id
         if (dto.getId() == null || dto.getId().isBlank()) {
             dto.setId(UUID.randomUUID().toString());
         }
         if (dto.getCreatedAt() == null) dto.setCreatedAt(System.currentTimeMillis());
         if (dto.getUpdatedAt() == null) dto.setUpdatedAt(System.currentTimeMillis());
-        Schedule saved = schedules.save(dto);
+        // one INSERT ... ON CONFLICT instead of merge's SELECT + INSERT
+        Schedule saved = upserts.save(dto);
+        materializer.refreshSchedule(saved.getId());
+        windowIndex.onScheduleSaved(saved);
+        publish("upsert", saved.getId(), saved.getSeriesStartUtc(), saved.getSeriesEndUtc());
 
         // Mark the related task as scheduled (persistent flag)
         try {
@@ -95,30 +190,34 @@ public class ScheduleController {
                 });
             }
         } catch (Exception ignored) {}
-        return ResponseEntity.ok(saved);
+        return withConflictHeader(ResponseEntity.ok(), found).body(saved);
     }
 
     // =============================
-    // PUT /api/schedules/:id (partial update via map)
+    // PUT /api/schedules/:id (partial update via map)[?conflicts=reject|flag]
     // =============================
     @PutMapping("/schedules/{id}")
-    public ResponseEntity<Schedule> update(@PathVariable String id, @RequestBody Map<String,Object> patch) {
+    public ResponseEntity<?> update(@PathVariable String id, @RequestBody Map<String,Object> patch,
+                                    @RequestParam(name = "conflicts", required = false) String conflictMode) {
         Optional<Schedule> opt = schedules.findById(id);
         if (opt.isEmpty()) return ResponseEntity.notFound().build();
         Schedule s = opt.get();
         String oldTaskId = s.getTaskId();
-        if (patch.containsKey("taskId")) s.setTaskId(String.valueOf(patch.get("taskId")));
-        if (patch.containsKey("start")) s.setStartTsUtc(((Number)patch.get("start")).longValue());
-        if (patch.containsKey("end")) s.setEndTsUtc(((Number)patch.get("end")).longValue());
-        if (patch.containsKey("timezone")) s.setTimezone((String)patch.get("timezone"));
-        if (patch.containsKey("laneId")) s.setLaneId((String)patch.get("laneId"));
-        if (patch.containsKey("allDay")) s.setAllDay(((Number)patch.get("allDay")).intValue());
-        if (patch.containsKey("status")) s.setStatus((String)patch.get("status"));
-        if (patch.containsKey("recurrenceRule")) s.setRecurrenceRule((String)patch.get("recurrenceRule"));
-        if (patch.containsKey("meta")) s.setMeta((String)patch.get("meta"));
+        Long oldFrom = s.getSeriesStartUtc(), oldTo = s.getSeriesEndUtc();
+        SchedulePatch.apply(s, patch);
         if (s.getEndTsUtc() <= s.getStartTsUtc()) return ResponseEntity.badRequest().build();
+        List<ScheduleConflictService.Conflict> found = checkConflicts(s,
+                ScheduleExceptionIndex.of(exceptions.findByScheduleId(id)), conflictMode);
+        if (found != null && "reject".equalsIgnoreCase(conflictMode) && !found.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("conflicts", found));
+        }
         s.setUpdatedAt(System.currentTimeMillis());
         Schedule saved = schedules.save(s);
+        materializer.refreshSchedule(saved.getId());
+        windowIndex.onScheduleSaved(saved);
+        publish("upsert", saved.getId(),
+                oldFrom == null || saved.getSeriesStartUtc() == null ? null : Math.min(oldFrom, saved.getSeriesStartUtc()),
+                oldTo == null || saved.getSeriesEndUtc() == null ? null : Math.max(oldTo, saved.getSeriesEndUtc()));
 
         // Maintain scheduled flag if task link changed
         try {
@@ -149,7 +248,98 @@ public class ScheduleController {
             }
         } catch (Exception ignored) {}
 
-        return ResponseEntity.ok(saved);
+        return withConflictHeader(ResponseEntity.ok(), found).body(saved);
+    }
+
+    // =============================
+    // POST /api/schedules/batch
+    // body: [{ op: "create", schedule: {...} } | { op: "update", id, patch: {...} } | { op: "delete", id }]
+    // All-or-nothing; the response lists what was created, updated and deleted
+    // =============================
+    @PostMapping("/schedules/batch")
+    public ResponseEntity<?> batch(@RequestBody List<ScheduleBatchService.Op> ops) {
+        String cid = TBLog.getCorrelationId();
+        TBLog.groupStart("POST /api/schedules/batch", cid);
+        try {
+            long t0 = System.nanoTime();
+            ScheduleBatchService.Result result = batch.apply(ops);
+            TBLog.kv("batch", Map.of("ops", ops == null ? 0 : ops.size(), "created", result.created().size(),
+                    "updated", result.updated().size(), "deleted", result.deleted().size(),
+                    "ms", (System.nanoTime() - t0) / 1_000_000));
+            // one delete + one batched insert for every touched series, not a refresh per row
+            List<String> touched = new ArrayList<>(result.created().size() + result.updated().size() + result.deleted().size());
+            for (Schedule s : result.created()) touched.add(s.getId());
+            for (Schedule s : result.updated()) touched.add(s.getId());
+            touched.addAll(result.deleted());
+            materializer.refreshSchedules(touched);
+            for (Schedule s : result.created()) {
+                windowIndex.onScheduleSaved(s);
+                publish("upsert", s.getId(), s.getSeriesStartUtc(), s.getSeriesEndUtc());
+            }
+            for (Schedule s : result.updated()) {
+                windowIndex.onScheduleSaved(s);
+                publish("upsert", s.getId(), null, null);
+            }
+            for (String id : result.deleted()) {
+                windowIndex.onScheduleDeleted(id);
+                publish("delete", id, null, null);
+            }
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            TBLog.warn("batch rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        } finally {
+            TBLog.groupEnd();
+        }
+    }
+
+    // =============================
+    // POST /api/schedules/auto-place
+    // body: { taskIds?: [..] | typeId?, timeMin?, timeMax?, laneId?, calendarIds?: [..], dryRun? }
+    // Window defaults to the next 30 days
+    // =============================
+    @PostMapping("/schedules/auto-place")
+    public ResponseEntity<?> autoPlace(@RequestBody Map<String,Object> body) {
+        String cid = TBLog.getCorrelationId();
+        TBLog.groupStart("POST /api/schedules/auto-place", cid);
+        try {
+            long now = System.currentTimeMillis();
+            long from = body.get("timeMin") != null ? parseIsoToEpochMs(String.valueOf(body.get("timeMin"))) : now;
+            long to = body.get("timeMax") != null ? parseIsoToEpochMs(String.valueOf(body.get("timeMax")))
+                    : from + 30L * 24 * 60 * 60 * 1000;
+            List<Integer> taskIds = new ArrayList<>();
+            if (body.get("taskIds") instanceof List<?> ids) {
+                for (Object o : ids) taskIds.add(Integer.valueOf(String.valueOf(o)));
+            }
+            Integer typeId = body.get("typeId") != null ? Integer.valueOf(String.valueOf(body.get("typeId"))) : null;
+            List<String> calendarIds = new ArrayList<>();
+            if (body.get("calendarIds") instanceof List<?> ids) {
+                for (Object o : ids) calendarIds.add(String.valueOf(o));
+            }
+            String laneId = body.get("laneId") != null ? String.valueOf(body.get("laneId")) : null;
+            boolean dryRun = Boolean.TRUE.equals(body.get("dryRun"));
+
+            long t0 = System.nanoTime();
+            AutoPlaceService.Outcome outcome = autoPlace.place(new AutoPlaceService.Request(
+                    taskIds, typeId, from, to, laneId, calendarIds, dryRun));
+            TBLog.kv("auto-place", Map.of("placed", outcome.schedules().size(), "unplaced", outcome.unplaced().size(),
+                    "skipped", outcome.skipped().size(), "ms", (System.nanoTime() - t0) / 1_000_000));
+            if (!dryRun) {
+                List<String> placed = new ArrayList<>(outcome.schedules().size());
+                for (Schedule s : outcome.schedules()) placed.add(s.getId());
+                materializer.refreshSchedules(placed);
+                for (Schedule s : outcome.schedules()) {
+                    windowIndex.onScheduleSaved(s);
+                    publish("upsert", s.getId(), s.getSeriesStartUtc(), s.getSeriesEndUtc());
+                }
+            }
+            return ResponseEntity.ok(outcome);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            TBLog.warn("auto-place rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        } finally {
+            TBLog.groupEnd();
+        }
     }
 
     // =============================
@@ -166,6 +356,9 @@ public class ScheduleController {
             Schedule s = toDelete.get();
             String taskId = s.getTaskId();
             schedules.deleteById(id);
+            materializer.refreshSchedule(id);
+            windowIndex.onScheduleDeleted(id);
+            publish("delete", id, s.getSeriesStartUtc(), s.getSeriesEndUtc());
             // After deletion, update task.scheduled if needed
             try {
                 if (taskId != null && schedules.countByTaskId(taskId) == 0) {
@@ -198,144 +391,49 @@ public class ScheduleController {
         if (dto.getId() == null || dto.getId().isBlank()) dto.setId(UUID.randomUUID().toString());
         dto.setScheduleId(id);
         if (dto.getCreatedAt() == null) dto.setCreatedAt(System.currentTimeMillis());
-        return ResponseEntity.ok(exceptions.save(dto));
+        ScheduleException saved = upserts.save(dto);
+        materializer.refreshSchedule(id);
+        publish("upsert", id, null, null);
+        return ResponseEntity.ok(saved);
     }
 
     @DeleteMapping("/schedule-exceptions/{exceptionId}")
     public ResponseEntity<Map<String,Boolean>> deleteException(@PathVariable String exceptionId) {
-        if (!exceptions.existsById(exceptionId)) return ResponseEntity.notFound().build();
+        Optional<ScheduleException> existing = exceptions.findById(exceptionId);
+        if (existing.isEmpty()) return ResponseEntity.notFound().build();
         exceptions.deleteById(exceptionId);
+        materializer.refreshSchedule(existing.get().getScheduleId());
+        publish("upsert", existing.get().getScheduleId(), null, null);
         return ResponseEntity.ok(Map.of("ok", true));
     }
 
     // =============================
     // Helpers
     // =============================
-    private static long parseIsoToEpochMs(String iso) {
-        try {
-            return Instant.parse(iso).toEpochMilli();
-        } catch (DateTimeParseException e) {
-            // Try lenient parsing if needed
-            return ZonedDateTime.parse(iso).toInstant().toEpochMilli();
-        }
-    }
-
-    private static List<Map<String,Object>> expandScheduleInRange(Schedule s, List<ScheduleException> exList, long from, long to, Task task) {
-        List<Map<String,Object>> out = new ArrayList<>();
-        long dur = Math.max(1, s.getEndTsUtc() - s.getStartTsUtc());
-
-        if (s.getRecurrenceRule() == null || s.getRecurrenceRule().isBlank()) {
-            // one-time
-            if (s.getEndTsUtc() >= from && s.getStartTsUtc() <= to) {
-                Map<String,Object> occ = baseOcc(s, s.getStartTsUtc(), s.getStartTsUtc() + dur, task);
-                occ = applyException(occ, exList);
-                if (occ != null) out.add(occ);
-            }
-            return out;
-        }
-
-        // Minimal RRULE support: FREQ=DAILY or WEEKLY; BYDAY=MO,WE,...
-        String rule = s.getRecurrenceRule();
-        Map<String,String> parts = new HashMap<>();
-        for (String p : rule.split(";")) {
-            String[] kv = p.split("=", 2);
-            if (kv.length == 2) parts.put(kv[0].toUpperCase(Locale.ROOT), kv[1]);
-        }
-        String freq = parts.getOrDefault("FREQ", "WEEKLY").toUpperCase(Locale.ROOT);
-        Set<DayOfWeek> byDays = parseByDay(parts.get("BYDAY"));
-
-        // Iterate days in window (bounded)
-        long dayMs = 24L * 60 * 60 * 1000;
-        long cursor = from - (from % dayMs);
-        ZoneId zone = ZoneId.of(Optional.ofNullable(s.getTimezone()).orElse("UTC"));
-        while (cursor <= to) {
-            Instant inst = Instant.ofEpochMilli(cursor);
-            ZonedDateTime zdt = inst.atZone(zone);
-            boolean include = false;
-            if ("DAILY".equals(freq)) include = true;
-            else if ("WEEKLY".equals(freq)) include = byDays.isEmpty() || byDays.contains(zdt.getDayOfWeek());
-
-            if (include) {
-                long occStart = alignStartForTemplate(zdt, s.getStartTsUtc(), zone);
-                long occEnd = occStart + dur;
-                if (occEnd >= from && occStart <= to) {
-                    Map<String,Object> occ = baseOcc(s, occStart, occEnd, task);
-                    occ = applyException(occ, exList);
-                    if (occ != null) out.add(occ);
-                }
-            }
-            cursor += dayMs;
-        }
-        return out;
+    /** Tells stream subscribers a series changed; a null span means "anywhere". */
+    private void publish(String op, String id, Long from, Long to) {
+        bus.publish(ChangeBus.Notice.span("schedule", id, op, from, to, null));
     }
 
-    private static Set<DayOfWeek> parseByDay(String byDay) {
-        Set<DayOfWeek> out = new HashSet<>();
-        if (byDay == null || byDay.isBlank()) return out;
-        for (String token : byDay.split(",")) {
-            switch (token.trim().toUpperCase(Locale.ROOT)) {
-                case "MO": out.add(DayOfWeek.MONDAY); break;
-                case "TU": out.add(DayOfWeek.TUESDAY); break;
-                case "WE": out.add(DayOfWeek.WEDNESDAY); break;
-                case "TH": out.add(DayOfWeek.THURSDAY); break;
-                case "FR": out.add(DayOfWeek.FRIDAY); break;
-                case "SA": out.add(DayOfWeek.SATURDAY); break;
-                case "SU": out.add(DayOfWeek.SUNDAY); break;
-            }
-        }
-        return out;
+    /** Runs the lane conflict check when the caller asked for one (conflicts=reject|flag); null otherwise. */
+    private List<ScheduleConflictService.Conflict> checkConflicts(Schedule s, ScheduleExceptionIndex ex, String mode) {
+        if (mode == null || !(mode.equalsIgnoreCase("reject") || mode.equalsIgnoreCase("flag"))) return null;
+        List<ScheduleConflictService.Conflict> found = conflicts.check(s, ex);
+        TBLog.kv("Conflict check", Map.of("mode", mode, "count", found.size()));
+        return found;
     }
 
-    private static long alignStartForTemplate(ZonedDateTime day, long templateStartUtc, ZoneId zone) {
-        // Use the template's time-of-day in its timezone
-        Instant templ = Instant.ofEpochMilli(templateStartUtc);
-        ZonedDateTime tzTempl = templ.atZone(zone);
-        ZonedDateTime combined = day.withHour(tzTempl.getHour()).withMinute(tzTempl.getMinute())
-                .withSecond(0).withNano(0);
-        return combined.toInstant().toEpochMilli();
-    }
-
-    private static Map<String,Object> baseOcc(Schedule s, long start, long end, Task task) {
-        Map<String,Object> m = new HashMap<>();
-        m.put("id", s.getId());
-        m.put("occId", s.getId() + ":" + start);
-        m.put("taskId", s.getTaskId());
-        if (task != null) {
-            m.put("taskTitle", task.getTitle());
-            if (task.getTypeId() != null) m.put("typeId", task.getTypeId());
-        }
-        m.put("laneId", s.getLaneId());
-        m.put("tz", s.getTimezone());
-        m.put("start", start);
-        m.put("end", end);
-        m.put("allDay", s.getAllDay());
-        m.put("status", s.getStatus());
-        m.put("isRecurring", s.getRecurrenceRule() != null && !s.getRecurrenceRule().isBlank());
-        m.put("baseScheduleMeta", s.getMeta());
-        return m;
+    private static ResponseEntity.BodyBuilder withConflictHeader(ResponseEntity.BodyBuilder b,
+                                                                 List<ScheduleConflictService.Conflict> found) {
+        return found == null ? b : b.header("X-Schedule-Conflicts", String.valueOf(found.size()));
     }
 
-    private static Map<String,Object> applyException(Map<String,Object> occ, List<ScheduleException> exceptions) {
-        if (occ == null || exceptions == null || exceptions.isEmpty()) return occ;
-        Object s = occ.get("start");
-        if (!(s instanceof Long)) return occ;
-        long start = (Long)s;
-        for (ScheduleException ex : exceptions) {
-            if (Objects.equals(ex.getExDateUtc(), start)) {
-                // Skip
-                if (ex.getChangeStartTsUtc() == null && ex.getChangeEndTsUtc() == null
-                        && ex.getChangeLaneId() == null && ex.getChangeStatus() == null) {
-                    return null;
-                }
-                if (ex.getChangeStartTsUtc() != null) occ.put("start", ex.getChangeStartTsUtc());
-                if (ex.getChangeEndTsUtc() != null) occ.put("end", ex.getChangeEndTsUtc());
-                if (ex.getChangeLaneId() != null) occ.put("laneId", ex.getChangeLaneId());
-                if (ex.getChangeStatus() != null) occ.put("status", ex.getChangeStatus());
-                occ.put("occurrenceMeta", ex.getMeta());
-            }
+    private static long parseIsoToEpochMs(String iso) {
+        try {
+            return Instant.parse(iso).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            // Try lenient parsing if needed
+            return ZonedDateTime.parse(iso).toInstant().toEpochMilli();
         }
-        return occ;
     }
 }
-
-
@@ -1,8 +1,12 @@
 package com.timeblocks.web;
 
+import com.timeblocks.index.WindowIndex;
 import com.timeblocks.logging.TBLog;
 import com.timeblocks.model.Event;
 import com.timeblocks.repo.EventRepository;
+import com.timeblocks.repo.UpsertRepository;
+import com.timeblocks.service.ChangeBus;
+import com.timeblocks.service.OccurrenceService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,10 +22,20 @@ import java.util.UUID;
 public class ScheduledEventController {
     private final EventRepository eventRepo;
     private final com.timeblocks.repo.TaskRepository taskRepo;
+    private final WindowIndex windowIndex;
+    private final ChangeBus bus;
+    private final OccurrenceService occurrences;
+    private final UpsertRepository upserts;
 
-    public ScheduledEventController(EventRepository eventRepo, com.timeblocks.repo.TaskRepository taskRepo) {
+    public ScheduledEventController(EventRepository eventRepo, com.timeblocks.repo.TaskRepository taskRepo,
+                                    WindowIndex windowIndex, ChangeBus bus, OccurrenceService occurrences,
+                                    UpsertRepository upserts) {
         this.eventRepo = eventRepo;
         this.taskRepo = taskRepo;
+        this.windowIndex = windowIndex;
+        this.bus = bus;
+        this.occurrences = occurrences;
+        this.upserts = upserts;
     }
 
     @GetMapping("/calendars/{calendarId}/scheduled-events")
@@ -40,7 +54,7 @@ public class ScheduledEventController {
             
             List<Event> events;
             if (from != null && to != null) {
-                events = eventRepo.findForWindow(calendarId, from, to);
+                events = eventRepo.findForWindow(calendarId, Instant.parse(from).toEpochMilli(), Instant.parse(to).toEpochMilli());
             } else {
                 events = List.of();
             }
@@ -84,7 +98,11 @@ public class ScheduledEventController {
                 event.setCreatedBy("u_dev"); // Default user for now
             }
             
-            Event saved = eventRepo.save(event);
+            Event saved = upserts.save(event);
+            windowIndex.onEventSaved(saved);
+            occurrences.refreshEvent(saved);
+            bus.publish(ChangeBus.Notice.span("event", saved.getId(), "upsert",
+                    saved.getSeriesStartUtc(), saved.getSeriesEndUtc(), saved.getCalendarId()));
 
             // If linked to a task, set the scheduled flag true
             try {
@@ -123,8 +141,15 @@ public class ScheduledEventController {
         }
         Event prev = eventRepo.findById(id).orElse(null);
         String oldTaskId = prev != null ? prev.getTaskId() : null;
+        Long oldFrom = prev != null ? prev.getSeriesStartUtc() : null, oldTo = prev != null ? prev.getSeriesEndUtc() : null;
         event.setId(id);
         Event updated = eventRepo.save(event);
+        windowIndex.onEventSaved(updated);
+        occurrences.refreshEvent(updated);
+        bus.publish(ChangeBus.Notice.span("event", id, "upsert",
+                oldFrom == null || updated.getSeriesStartUtc() == null ? null : Math.min(oldFrom, updated.getSeriesStartUtc()),
+                oldTo == null || updated.getSeriesEndUtc() == null ? null : Math.max(oldTo, updated.getSeriesEndUtc()),
+                updated.getCalendarId()));
         // Maintain task.scheduled if task link changed
         try {
             String newTaskId = updated.getTaskId();
@@ -170,6 +195,10 @@ public class ScheduledEventController {
             }
             String taskId = existing.getTaskId();
             eventRepo.deleteById(id);
+            windowIndex.onEventDeleted(id);
+            occurrences.deleteForEvent(id);
+            bus.publish(ChangeBus.Notice.span("event", id, "delete",
+                    existing.getSeriesStartUtc(), existing.getSeriesEndUtc(), existing.getCalendarId()));
             // If linked to task, and no remaining events, clear flag
             try {
                 if (taskId != null && eventRepo.countByTaskId(taskId) == 0) {
@@ -0,0 +1,53 @@
+package com.timeblocks.web;
+
+import com.timeblocks.logging.TBLog;
+import com.timeblocks.service.ChangeBus;
+import com.timeblocks.service.ChangeFeedService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+public class StreamController {
+    private final ChangeBus bus;
+    private final ChangeFeedService changes;
+
+    @Value("${timeblocks.stream.timeout-ms:1800000}")
+    long timeoutMs;
+
+    public StreamController(ChangeBus bus, ChangeFeedService changes) {
+        this.bus = bus;
+        this.changes = changes;
+    }
+
+    // =============================
+    // GET /api/stream (text/event-stream)
+    // events: "ready" {seq} once, then "changes" [notices] as writes land, "resync" after an overflow;
+    // ": ping" comments keep the connection alive. EventSource reconnects after the timeout.
+    // =============================
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        try {
+            // before subscribing, so "ready" is always the first event
+            emitter.send(SseEmitter.event().name("ready").data(Map.of("seq", changes.head())).reconnectTime(3000));
+        } catch (Exception e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        ChangeBus.Subscription sub = bus.subscribe((notices, resync) -> {
+            if (resync) emitter.send(SseEmitter.event().name("resync").data(Map.of("head", changes.head())));
+            else if (notices.isEmpty()) emitter.send(SseEmitter.event().comment("ping"));
+            else emitter.send(SseEmitter.event().name("changes").data(notices, MediaType.APPLICATION_JSON));
+        });
+        emitter.onCompletion(sub::close);
+        emitter.onTimeout(sub::close);
+        emitter.onError(e -> sub.close());
+        TBLog.info("stream subscribed ({} open)", bus.subscriberCount());
+        return emitter;
+    }
+}
@@ -4,6 +4,7 @@ import com.timeblocks.logging.TBLog;
 import com.timeblocks.model.Subtask;
 import com.timeblocks.repo.SubtaskRepository;
 import com.timeblocks.repo.TaskRepository;
+import com.timeblocks.service.ChangeBus;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,10 +18,12 @@ import java.util.Map;
 public class SubtaskController {
     private final SubtaskRepository subtaskRepo;
     private final TaskRepository taskRepo;
+    private final ChangeBus bus;
 
-    public SubtaskController(SubtaskRepository subtaskRepo, TaskRepository taskRepo) {
+    public SubtaskController(SubtaskRepository subtaskRepo, TaskRepository taskRepo, ChangeBus bus) {
         this.subtaskRepo = subtaskRepo;
         this.taskRepo = taskRepo;
+        this.bus = bus;
     }
 
     @GetMapping("/subtasks")
@@ -83,6 +86,7 @@ public class SubtaskController {
             }
 
             Subtask saved = subtaskRepo.save(subtask);
+            bus.publish(ChangeBus.Notice.of("subtask", saved.getId(), "upsert"));
             
             Map<String, Object> dbResult = new HashMap<>();
             dbResult.put("id", saved.getId());
@@ -129,6 +133,7 @@ public class SubtaskController {
             }
             
             Subtask updated = subtaskRepo.save(subtask);
+            bus.publish(ChangeBus.Notice.of("subtask", id, "upsert"));
             TBLog.info("Updated subtask: {}", id);
             
             return ResponseEntity.ok(updated);
@@ -155,6 +160,7 @@ public class SubtaskController {
             }
             
             subtaskRepo.deleteById(id);
+            bus.publish(ChangeBus.Notice.of("subtask", id, "delete"));
             TBLog.info("Deleted subtask: {}", id);
             
             Map<String, Boolean> response = new HashMap<>();
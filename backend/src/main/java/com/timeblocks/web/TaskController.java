@@ -3,6 +3,7 @@ package com.timeblocks.web;
 import com.timeblocks.logging.TBLog;
 import com.timeblocks.model.Task;
 import com.timeblocks.repo.TaskRepository;
+import com.timeblocks.service.ChangeBus;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,9 +17,11 @@ import java.time.LocalDate;
 @RequestMapping("/api")
 public class TaskController {
     private final TaskRepository taskRepo;
+    private final ChangeBus bus;
 
-    public TaskController(TaskRepository taskRepo) {
+    public TaskController(TaskRepository taskRepo, ChangeBus bus) {
         this.taskRepo = taskRepo;
+        this.bus = bus;
     }
 
     @GetMapping("/tasks")
@@ -68,6 +71,7 @@ public class TaskController {
             TBLog.kv("Payload", payload);
             
             Task saved = taskRepo.save(task);
+            bus.publish(ChangeBus.Notice.of("task", saved.getId(), "upsert"));
             
             Map<String, Object> dbResult = new HashMap<>();
             dbResult.put("id", saved.getId());
@@ -130,6 +134,7 @@ public class TaskController {
             }
             
             Task updated = taskRepo.save(task);
+            bus.publish(ChangeBus.Notice.of("task", id, "upsert"));
             TBLog.info("Updated task: {}", id);
             
             return ResponseEntity.ok(updated);
@@ -156,6 +161,7 @@ public class TaskController {
             }
             
             taskRepo.deleteById(id);
+            bus.publish(ChangeBus.Notice.of("task", id, "delete"));
             TBLog.info("Deleted task: {} (cascade will delete subtasks)", id);
             
             Map<String, Boolean> response = new HashMap<>();
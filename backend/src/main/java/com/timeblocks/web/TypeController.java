@@ -1,16 +1,22 @@
 package com.timeblocks.web;
 
+import com.timeblocks.index.WindowIndex;
 import com.timeblocks.logging.TBLog;
+import com.timeblocks.model.Event;
 import com.timeblocks.model.Type;
 import com.timeblocks.repo.TypeRepository;
 import com.timeblocks.repo.TaskRepository;
 import com.timeblocks.repo.SubtaskRepository;
 import com.timeblocks.repo.EventRepository;
+import com.timeblocks.service.AfterCommit;
+import com.timeblocks.service.ChangeBus;
+import com.timeblocks.service.OccurrenceService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,15 +28,24 @@ public class TypeController {
     private final TaskRepository taskRepo;
     private final SubtaskRepository subtaskRepo;
     private final EventRepository eventRepo;
+    private final OccurrenceService occurrences;
+    private final WindowIndex windowIndex;
+    private final ChangeBus bus;
 
     public TypeController(TypeRepository typeRepo,
                           TaskRepository taskRepo,
                           SubtaskRepository subtaskRepo,
-                          EventRepository eventRepo) {
+                          EventRepository eventRepo,
+                          OccurrenceService occurrences,
+                          WindowIndex windowIndex,
+                          ChangeBus bus) {
         this.typeRepo = typeRepo;
         this.taskRepo = taskRepo;
         this.subtaskRepo = subtaskRepo;
         this.eventRepo = eventRepo;
+        this.occurrences = occurrences;
+        this.windowIndex = windowIndex;
+        this.bus = bus;
     }
 
     @GetMapping("/types")
@@ -63,6 +78,7 @@ public class TypeController {
             TBLog.kv("Payload", payload);
             
             Type saved = typeRepo.save(type);
+            bus.publish(ChangeBus.Notice.of("type", saved.getId(), "upsert"));
             
             Map<String, Object> dbResult = new HashMap<>();
             dbResult.put("id", saved.getId());
@@ -100,6 +116,7 @@ public class TypeController {
             }
             
             Type updated = typeRepo.save(type);
+            bus.publish(ChangeBus.Notice.of("type", id, "upsert"));
             TBLog.info("Updated type: {}", id);
             
             return ResponseEntity.ok(updated);
@@ -130,6 +147,9 @@ public class TypeController {
             List<Integer> taskIds = taskRepo.findIdsByTypeId(id);
             TBLog.kv("tasks.for.type", Map.of("typeId", id, "count", taskIds.size()));
 
+            // Notices and index updates wait for the commit, so nobody refetches rows that are still there
+            List<ChangeBus.Notice> notices = new ArrayList<>();
+            List<String> deletedEvents = new ArrayList<>();
             if (!taskIds.isEmpty()) {
                 try {
                     subtaskRepo.deleteByTaskIds(taskIds);
@@ -138,17 +158,34 @@ public class TypeController {
                     TBLog.warn("Failed deleting subtasks for tasks {}: {}", taskIds, e.getMessage());
                 }
                 try {
-                    for (Integer taskId : taskIds) {
-                        eventRepo.deleteByTaskId(String.valueOf(taskId));
+                    List<String> taskKeys = new ArrayList<>(taskIds.size());
+                    for (Integer taskId : taskIds) taskKeys.add(String.valueOf(taskId));
+                    for (Event e : eventRepo.findByTaskIdIn(taskKeys)) {
+                        deletedEvents.add(e.getId());
+                        notices.add(ChangeBus.Notice.span("event", e.getId(), "delete",
+                                e.getSeriesStartUtc(), e.getSeriesEndUtc(), e.getCalendarId()));
                     }
+                    if (!deletedEvents.isEmpty()) {
+                        eventRepo.deleteByTaskIdIn(taskKeys);
+                        occurrences.deleteForEvents(deletedEvents);
+                    }
+                    TBLog.kv("events.deleted", Map.of("count", deletedEvents.size()));
                 } catch (Exception e) {
                     TBLog.warn("Failed deleting events for tasks {}: {}", taskIds, e.getMessage());
+                    deletedEvents.clear();
+                    notices.clear();
                 }
                 taskRepo.deleteByTypeId(id);
                 TBLog.kv("tasks.deleted", Map.of("count", taskIds.size()));
+                for (Integer taskId : taskIds) notices.add(ChangeBus.Notice.of("task", taskId, "delete"));
             }
             
             typeRepo.deleteById(id);
+            notices.add(ChangeBus.Notice.of("type", id, "delete"));
+            AfterCommit.run(() -> {
+                for (String eventId : deletedEvents) windowIndex.onEventDeleted(eventId);
+                for (ChangeBus.Notice n : notices) bus.publish(n);
+            });
             TBLog.info("Deleted type: {}", id);
             
             Map<String, Boolean> response = new HashMap<>();
@@ -162,4 +199,3 @@ public class TypeController {
         }
     }
 }
-
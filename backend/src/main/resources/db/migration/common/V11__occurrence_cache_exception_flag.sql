@@ -0,0 +1,5 @@
+-- Mark materialized occurrences that had a schedule exception applied
+ALTER TABLE schedule_occurrences_cache ADD COLUMN is_exception INTEGER NOT NULL DEFAULT 0;
+
+-- Window scans read start/end together
+CREATE INDEX IF NOT EXISTS ix_occ_cache_window ON schedule_occurrences_cache(occ_start_utc, occ_end_utc);
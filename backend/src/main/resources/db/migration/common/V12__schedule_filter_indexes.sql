@@ -0,0 +1,12 @@
+-- Composite indexes for lane/status/task-filtered window reads
+CREATE INDEX IF NOT EXISTS ix_schedules_lane_start   ON schedules(lane_id, start_ts_utc);
+CREATE INDEX IF NOT EXISTS ix_schedules_status_start ON schedules(status, start_ts_utc);
+CREATE INDEX IF NOT EXISTS ix_schedules_task_start   ON schedules(task_id, start_ts_utc);
+
+-- Exceptions that move an instance into another lane/status
+CREATE INDEX IF NOT EXISTS ix_sched_ex_lane   ON schedule_exceptions(change_lane_id, schedule_id);
+CREATE INDEX IF NOT EXISTS ix_sched_ex_status ON schedule_exceptions(change_status, schedule_id);
+
+-- Materialized rows carry the effective lane/status
+CREATE INDEX IF NOT EXISTS ix_occ_cache_lane_start   ON schedule_occurrences_cache(lane_id, occ_start_utc);
+CREATE INDEX IF NOT EXISTS ix_occ_cache_status_start ON schedule_occurrences_cache(status, occ_start_utc);
@@ -0,0 +1,11 @@
+-- event_occurrences holds the expanded instances of every event for a rolling horizon,
+-- so calendar windows inside it are one range scan on (calendar_id, start_utc).
+-- Rows are rebuilt by the application at startup; existing ones are tagged here.
+ALTER TABLE event_occurrences ADD COLUMN calendar_id TEXT;
+
+UPDATE event_occurrences SET calendar_id = (
+  SELECT e.calendar_id FROM events e WHERE e.id = event_occurrences.event_id
+);
+
+CREATE INDEX IF NOT EXISTS ix_event_occ_calendar_window ON event_occurrences(calendar_id, start_utc, end_utc);
+CREATE INDEX IF NOT EXISTS ix_event_occ_end ON event_occurrences(end_utc);
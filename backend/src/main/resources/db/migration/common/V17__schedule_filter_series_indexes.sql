@@ -0,0 +1,10 @@
+-- Window reads range over series_start_utc (V13), not start_ts_utc, so the V12 lane/status/task
+-- composites never matched the window predicate. Re-key them on the series bounds; the lane one
+-- already exists as ix_schedules_lane_series, and the cache already has (lane_id, occ_start_utc).
+DROP INDEX IF EXISTS ix_schedules_lane_start;
+DROP INDEX IF EXISTS ix_schedules_status_start;
+DROP INDEX IF EXISTS ix_schedules_task_start;
+
+CREATE INDEX IF NOT EXISTS ix_schedules_lane_series   ON schedules(lane_id, series_start_utc);
+CREATE INDEX IF NOT EXISTS ix_schedules_status_series ON schedules(status, series_start_utc);
+CREATE INDEX IF NOT EXISTS ix_schedules_task_series   ON schedules(task_id, series_start_utc);
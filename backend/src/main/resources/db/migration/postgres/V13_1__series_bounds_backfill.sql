@@ -0,0 +1,52 @@
+-- Backfill series bounds. COUNT rules and rules without COUNT/UNTIL start open-ended;
+-- COUNT rows are narrowed to their last instance by the application at startup.
+-- A floating (non-Z) UNTIL is read as UTC plus a day of slack, since its zone is not known here.
+
+UPDATE schedules SET
+  series_start_utc = start_ts_utc,
+  series_end_utc = CASE
+    WHEN recurrence_rule IS NULL OR btrim(recurrence_rule) = '' THEN end_ts_utc
+    ELSE 9223372036854775807
+  END;
+
+UPDATE events SET
+  series_start_utc = (extract(epoch FROM start_utc::timestamptz) * 1000)::bigint,
+  series_end_utc = CASE
+    WHEN recurrence_rule IS NULL OR btrim(recurrence_rule) = ''
+      THEN (extract(epoch FROM end_utc::timestamptz) * 1000)::bigint
+    ELSE 9223372036854775807
+  END;
+
+-- UNTIL without COUNT: last start <= UNTIL, so the series ends by UNTIL + duration
+UPDATE schedules s SET series_end_utc = u.until_ms + (s.end_ts_utc - s.start_ts_utc)
+FROM (
+  SELECT id,
+         CASE WHEN v ~ '^[0-9]{8}T[0-9]{6}Z'
+              THEN (extract(epoch FROM to_timestamp(substr(v, 1, 15), 'YYYYMMDD"T"HH24MISS')::timestamp AT TIME ZONE 'UTC') * 1000)::bigint + 999
+              WHEN v ~ '^[0-9]{8}T[0-9]{6}'
+              THEN (extract(epoch FROM to_timestamp(substr(v, 1, 15), 'YYYYMMDD"T"HH24MISS')::timestamp AT TIME ZONE 'UTC') * 1000)::bigint + 999 + 86400000
+              ELSE (extract(epoch FROM to_date(substr(v, 1, 8), 'YYYYMMDD')::timestamp AT TIME ZONE 'UTC') * 1000)::bigint
+                   + 86400000 - 1 + 86400000
+         END AS until_ms
+  FROM (SELECT id, substring(upper(recurrence_rule) FROM 'UNTIL=([0-9T]+Z?)') AS v FROM schedules
+        WHERE upper(recurrence_rule) LIKE '%UNTIL=%' AND upper(recurrence_rule) NOT LIKE '%COUNT=%') r
+  WHERE v ~ '^[0-9]{8}'
+) u
+WHERE s.id = u.id;
+
+UPDATE events e SET series_end_utc = u.until_ms
+       + ((extract(epoch FROM e.end_utc::timestamptz) - extract(epoch FROM e.start_utc::timestamptz)) * 1000)::bigint
+FROM (
+  SELECT id,
+         CASE WHEN v ~ '^[0-9]{8}T[0-9]{6}Z'
+              THEN (extract(epoch FROM to_timestamp(substr(v, 1, 15), 'YYYYMMDD"T"HH24MISS')::timestamp AT TIME ZONE 'UTC') * 1000)::bigint + 999
+              WHEN v ~ '^[0-9]{8}T[0-9]{6}'
+              THEN (extract(epoch FROM to_timestamp(substr(v, 1, 15), 'YYYYMMDD"T"HH24MISS')::timestamp AT TIME ZONE 'UTC') * 1000)::bigint + 999 + 86400000
+              ELSE (extract(epoch FROM to_date(substr(v, 1, 8), 'YYYYMMDD')::timestamp AT TIME ZONE 'UTC') * 1000)::bigint
+                   + 86400000 - 1 + 86400000
+         END AS until_ms
+  FROM (SELECT id, substring(upper(recurrence_rule) FROM 'UNTIL=([0-9T]+Z?)') AS v FROM events
+        WHERE upper(recurrence_rule) LIKE '%UNTIL=%' AND upper(recurrence_rule) NOT LIKE '%COUNT=%') r
+  WHERE v ~ '^[0-9]{8}'
+) u
+WHERE e.id = u.id;
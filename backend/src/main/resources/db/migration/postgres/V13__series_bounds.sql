@@ -0,0 +1,16 @@
+-- Span of the whole series (first start .. end of last instance, 9223372036854775807 when unbounded)
+-- so window queries are a plain range overlap for one-off and recurring rows alike.
+-- Filled by the dialect-specific V13_1 backfill and maintained by the application on write.
+-- BIGINT: epoch ms and the open-ended sentinel overflow Postgres int4.
+ALTER TABLE schedules ADD COLUMN series_start_utc BIGINT;
+ALTER TABLE schedules ADD COLUMN series_end_utc   BIGINT;
+
+ALTER TABLE events ADD COLUMN series_start_utc BIGINT;
+ALTER TABLE events ADD COLUMN series_end_utc   BIGINT;
+
+CREATE INDEX IF NOT EXISTS ix_schedules_series      ON schedules(series_start_utc, series_end_utc);
+CREATE INDEX IF NOT EXISTS ix_schedules_series_end  ON schedules(series_end_utc);
+CREATE INDEX IF NOT EXISTS ix_schedules_lane_series ON schedules(lane_id, series_start_utc);
+
+CREATE INDEX IF NOT EXISTS idx_events_cal_series     ON events(calendar_id, series_start_utc, series_end_utc);
+CREATE INDEX IF NOT EXISTS idx_events_cal_series_end ON events(calendar_id, series_end_utc);
@@ -0,0 +1,26 @@
+-- Epoch-millisecond twins of the ISO-8601 start/end strings of events and event_occurrences.
+-- Window queries and ordering use these, so they no longer depend on every writer emitting the
+-- same string format; the strings stay as the source of the JSON output.
+ALTER TABLE events ADD COLUMN start_ms BIGINT;
+ALTER TABLE events ADD COLUMN end_ms   BIGINT;
+ALTER TABLE event_occurrences ADD COLUMN start_ms BIGINT;
+ALTER TABLE event_occurrences ADD COLUMN end_ms   BIGINT;
+
+UPDATE events SET
+  start_ms = (extract(epoch FROM start_utc::timestamptz) * 1000)::bigint,
+  end_ms   = (extract(epoch FROM end_utc::timestamptz) * 1000)::bigint;
+
+UPDATE event_occurrences SET
+  start_ms = (extract(epoch FROM start_utc::timestamptz) * 1000)::bigint,
+  end_ms   = (extract(epoch FROM end_utc::timestamptz) * 1000)::bigint;
+
+DROP INDEX IF EXISTS idx_events_cal_start;
+DROP INDEX IF EXISTS idx_events_cal_end;
+DROP INDEX IF EXISTS ix_event_occ_calendar_window;
+DROP INDEX IF EXISTS ix_event_occ_end;
+
+CREATE INDEX IF NOT EXISTS idx_events_cal_start_ms    ON events(calendar_id, start_ms);
+CREATE INDEX IF NOT EXISTS idx_events_cal_end_ms      ON events(calendar_id, end_ms);
+CREATE INDEX IF NOT EXISTS ix_event_occ_cal_start_ms  ON event_occurrences(calendar_id, start_ms);
+CREATE INDEX IF NOT EXISTS ix_event_occ_cal_end_ms    ON event_occurrences(calendar_id, end_ms);
+CREATE INDEX IF NOT EXISTS ix_event_occ_end_ms        ON event_occurrences(end_ms);
@@ -0,0 +1,4 @@
+-- changed_at defaulted to now(), the start of the writing transaction. Stamp the moment the row
+-- (and its seq) is drawn instead, so readers can tell which seqs an open transaction may still
+-- commit below (ChangeFeedService.head). Pruning by age is unaffected.
+ALTER TABLE change_log ALTER COLUMN changed_at SET DEFAULT (extract(epoch FROM clock_timestamp()) * 1000)::bigint;
@@ -0,0 +1,43 @@
+-- Backfill series bounds. COUNT rules and rules without COUNT/UNTIL start open-ended;
+-- COUNT rows are narrowed to their last instance by the application at startup.
+-- A floating (non-Z) UNTIL is read as UTC plus a day of slack, since its zone is not known here.
+
+UPDATE schedules SET
+  series_start_utc = start_ts_utc,
+  series_end_utc = CASE
+    WHEN recurrence_rule IS NULL OR trim(recurrence_rule) = '' THEN end_ts_utc
+    ELSE 9223372036854775807
+  END;
+
+UPDATE events SET
+  series_start_utc = CAST(round((julianday(start_utc) - 2440587.5) * 86400000) AS INTEGER),
+  series_end_utc = CASE
+    WHEN recurrence_rule IS NULL OR trim(recurrence_rule) = ''
+      THEN CAST(round((julianday(end_utc) - 2440587.5) * 86400000) AS INTEGER)
+    ELSE 9223372036854775807
+  END;
+
+-- UNTIL without COUNT: last start <= UNTIL, so the series ends by UNTIL + duration
+UPDATE schedules SET series_end_utc = (
+  SELECT CAST(strftime('%s',
+           substr(u, 1, 4) || '-' || substr(u, 5, 2) || '-' || substr(u, 7, 2) || ' ' ||
+           CASE WHEN substr(u, 9, 1) = 'T'
+                THEN substr(u, 10, 2) || ':' || substr(u, 12, 2) || ':' || substr(u, 14, 2)
+                ELSE '23:59:59' END) AS INTEGER) * 1000 + 999
+         + CASE WHEN substr(u, 9, 1) = 'T' AND substr(u, 16, 1) = 'Z' THEN 0 ELSE 86400000 END
+         + (end_ts_utc - start_ts_utc)
+  FROM (SELECT substr(upper(recurrence_rule), instr(upper(recurrence_rule), 'UNTIL=') + 6) AS u)
+)
+WHERE instr(upper(recurrence_rule), 'UNTIL=') > 0 AND instr(upper(recurrence_rule), 'COUNT=') = 0;
+
+UPDATE events SET series_end_utc = (
+  SELECT CAST(strftime('%s',
+           substr(u, 1, 4) || '-' || substr(u, 5, 2) || '-' || substr(u, 7, 2) || ' ' ||
+           CASE WHEN substr(u, 9, 1) = 'T'
+                THEN substr(u, 10, 2) || ':' || substr(u, 12, 2) || ':' || substr(u, 14, 2)
+                ELSE '23:59:59' END) AS INTEGER) * 1000 + 999
+         + CASE WHEN substr(u, 9, 1) = 'T' AND substr(u, 16, 1) = 'Z' THEN 0 ELSE 86400000 END
+         + CAST(round((julianday(end_utc) - julianday(start_utc)) * 86400000) AS INTEGER)
+  FROM (SELECT substr(upper(recurrence_rule), instr(upper(recurrence_rule), 'UNTIL=') + 6) AS u)
+)
+WHERE instr(upper(recurrence_rule), 'UNTIL=') > 0 AND instr(upper(recurrence_rule), 'COUNT=') = 0;
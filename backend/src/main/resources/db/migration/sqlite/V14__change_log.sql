@@ -0,0 +1,101 @@
+-- Change log for delta sync (GET /api/changes?since=<seq>): one row per written row, compacted on read.
+-- Fed by triggers so bulk/JDBC writes and FK cascades are captured too.
+CREATE TABLE IF NOT EXISTS change_log (
+  seq INTEGER PRIMARY KEY AUTOINCREMENT,
+  entity TEXT NOT NULL,
+  entity_id TEXT NOT NULL,
+  op TEXT NOT NULL,
+  changed_at INTEGER NOT NULL DEFAULT (CAST(strftime('%s','now') AS INTEGER) * 1000)
+);
+
+CREATE INDEX IF NOT EXISTS ix_change_log_changed ON change_log(changed_at);
+
+CREATE TRIGGER IF NOT EXISTS trg_cl_schedules_ins AFTER INSERT ON schedules
+FOR EACH ROW
+BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('schedule', CAST(NEW.id AS TEXT), 'I');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_cl_schedules_upd AFTER UPDATE ON schedules
+FOR EACH ROW
+BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('schedule', CAST(NEW.id AS TEXT), 'U');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_cl_schedules_del AFTER DELETE ON schedules
+FOR EACH ROW
+BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('schedule', CAST(OLD.id AS TEXT), 'D');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_cl_schedule_exceptions_ins AFTER INSERT ON schedule_exceptions
+FOR EACH ROW
+BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('schedule_exception', CAST(NEW.id AS TEXT), 'I');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_cl_schedule_exceptions_upd AFTER UPDATE ON schedule_exceptions
+FOR EACH ROW
+BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('schedule_exception', CAST(NEW.id AS TEXT), 'U');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_cl_schedule_exceptions_del AFTER DELETE ON schedule_exceptions
+FOR EACH ROW
+BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('schedule_exception', CAST(OLD.id AS TEXT), 'D');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_cl_events_ins AFTER INSERT ON events
+FOR EACH ROW
+BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('event', CAST(NEW.id AS TEXT), 'I');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_cl_events_upd AFTER UPDATE ON events
+FOR EACH ROW
+BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('event', CAST(NEW.id AS TEXT), 'U');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_cl_events_del AFTER DELETE ON events
+FOR EACH ROW
+BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('event', CAST(OLD.id AS TEXT), 'D');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_cl_tasks_ins AFTER INSERT ON tasks
+FOR EACH ROW
+BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('task', CAST(NEW.id AS TEXT), 'I');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_cl_tasks_upd AFTER UPDATE ON tasks
+FOR EACH ROW
+BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('task', CAST(NEW.id AS TEXT), 'U');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_cl_tasks_del AFTER DELETE ON tasks
+FOR EACH ROW
+BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('task', CAST(OLD.id AS TEXT), 'D');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_cl_subtasks_ins AFTER INSERT ON subtasks
+FOR EACH ROW
+BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('subtask', CAST(NEW.id AS TEXT), 'I');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_cl_subtasks_upd AFTER UPDATE ON subtasks
+FOR EACH ROW
+BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('subtask', CAST(NEW.id AS TEXT), 'U');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_cl_subtasks_del AFTER DELETE ON subtasks
+FOR EACH ROW
+BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('subtask', CAST(OLD.id AS TEXT), 'D');
+END;
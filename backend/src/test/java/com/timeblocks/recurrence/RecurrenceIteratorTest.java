@@ -0,0 +1,198 @@
+package com.timeblocks.recurrence;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Occurrence starts of {@link RecurrenceIterator}, written as local date-times in the series zone.
+ */
+class RecurrenceIteratorTest {
+    private static final ZoneId UTC = ZoneId.of("UTC");
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    // =============================
+    // BYxxx expansion
+    // =============================
+    @Test
+    void weeklyByDayExpandsEachWeek() {
+        assertEquals(List.of("2024-01-01T09:00", "2024-01-03T09:00", "2024-01-05T09:00",
+                        "2024-01-08T09:00", "2024-01-10T09:00", "2024-01-12T09:00"),
+                starts("FREQ=WEEKLY;BYDAY=MO,WE,FR;COUNT=6", "2024-01-01T09:00", UTC));
+    }
+
+    @Test
+    void weeklyWithoutByDayKeepsTheStartWeekday() {
+        assertEquals(List.of("2024-01-03T09:00", "2024-01-17T09:00", "2024-01-31T09:00"),
+                starts("FREQ=WEEKLY;INTERVAL=2;COUNT=3", "2024-01-03T09:00", UTC));
+    }
+
+    @Test
+    void monthlyOrdinalByDayCountsFromTheEnd() {
+        assertEquals(List.of("2024-01-26T18:00", "2024-02-23T18:00", "2024-03-29T18:00"),
+                starts("FREQ=MONTHLY;BYDAY=-1FR;COUNT=3", "2024-01-05T18:00", UTC));
+    }
+
+    @Test
+    void negativeMonthDayFollowsMonthLength() {
+        assertEquals(List.of("2024-01-31T08:00", "2024-02-29T08:00", "2024-03-31T08:00", "2024-04-30T08:00"),
+                starts("FREQ=MONTHLY;BYMONTHDAY=-1;COUNT=4", "2024-01-31T08:00", UTC));
+    }
+
+    @Test
+    void monthlyWithoutByPartsSkipsShortMonths() {
+        assertEquals(List.of("2024-01-31T08:00", "2024-03-31T08:00", "2024-05-31T08:00"),
+                starts("FREQ=MONTHLY;COUNT=3", "2024-01-31T08:00", UTC));
+    }
+
+    @Test
+    void yearlyByMonthAndMonthDayOnlyHitsLeapYears() {
+        assertEquals(List.of("2024-02-29T12:00", "2028-02-29T12:00", "2032-02-29T12:00"),
+                starts("FREQ=YEARLY;BYMONTH=2;BYMONTHDAY=29;COUNT=3", "2024-02-29T12:00", UTC));
+    }
+
+    @Test
+    void yearlyOrdinalByDayWithoutByMonthCountsWithinTheYear() {
+        assertEquals(List.of("2024-01-22T10:00", "2025-01-27T10:00"),
+                starts("FREQ=YEARLY;BYDAY=4MO;COUNT=2", "2024-01-01T10:00", UTC));
+    }
+
+    // =============================
+    // BYSETPOS
+    // =============================
+    @Test
+    void setPosPicksTheLastWeekdayOfEachMonth() {
+        assertEquals(List.of("2024-01-31T17:00", "2024-02-29T17:00", "2024-03-29T17:00", "2024-04-30T17:00"),
+                starts("FREQ=MONTHLY;BYDAY=MO,TU,WE,TH,FR;BYSETPOS=-1;COUNT=4", "2024-01-01T17:00", UTC));
+    }
+
+    @Test
+    void setPosAcceptsSeveralPositions() {
+        assertEquals(List.of("2024-01-01T09:00", "2024-01-31T09:00", "2024-02-01T09:00", "2024-02-29T09:00"),
+                starts("FREQ=MONTHLY;BYDAY=MO,TU,WE,TH,FR;BYSETPOS=1,-1;COUNT=4", "2024-01-01T09:00", UTC));
+    }
+
+    // =============================
+    // COUNT / UNTIL
+    // =============================
+    @Test
+    void untilIsInclusive() {
+        assertEquals(List.of("2024-01-01T09:00", "2024-01-02T09:00", "2024-01-03T09:00"),
+                starts("FREQ=DAILY;UNTIL=20240103T090000Z", "2024-01-01T09:00", UTC));
+    }
+
+    @Test
+    void dateOnlyUntilCoversTheWholeDay() {
+        assertEquals(List.of("2024-01-01T21:00", "2024-01-02T21:00", "2024-01-03T21:00"),
+                starts("FREQ=DAILY;UNTIL=20240103", "2024-01-01T21:00", NEW_YORK));
+    }
+
+    @Test
+    void countIsCountedFromDtStartNotFromTheWindow() {
+        long start = epochMs("2024-01-01T09:00", UTC);
+        long notBefore = epochMs("2024-01-08T00:00", UTC);
+        assertEquals(List.of("2024-01-08T09:00", "2024-01-09T09:00", "2024-01-10T09:00"),
+                local(new RecurrenceIterator(RecurrenceRule.parse("FREQ=DAILY;COUNT=10"), start, UTC, notBefore), UTC, 100));
+    }
+
+    @Test
+    void countZeroYieldsNothing() {
+        RecurrenceIterator it = new RecurrenceIterator(RecurrenceRule.parse("FREQ=DAILY;COUNT=0"),
+                epochMs("2024-01-01T09:00", UTC), UTC, 0);
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    void notAfterEndsIteration() {
+        long start = epochMs("2024-01-01T09:00", UTC);
+        RecurrenceIterator it = new RecurrenceIterator(RecurrenceRule.parse("FREQ=DAILY"), start, UTC, start,
+                epochMs("2024-01-03T09:00", UTC));
+        assertEquals(List.of("2024-01-01T09:00", "2024-01-02T09:00", "2024-01-03T09:00"), local(it, UTC, 100));
+    }
+
+    // =============================
+    // Jump-ahead start period
+    // =============================
+    @Test
+    void jumpingAheadMatchesIteratingFromDtStart() {
+        String[][] cases = {
+                {"FREQ=DAILY;INTERVAL=3", "2001-03-04T07:30"},
+                {"FREQ=WEEKLY;INTERVAL=2;BYDAY=TU,SU;WKST=SU", "2000-01-04T09:00"},
+                {"FREQ=MONTHLY;INTERVAL=5;BYDAY=2WE", "1999-12-08T13:15"},
+                {"FREQ=MONTHLY;BYMONTHDAY=1,15,-1;BYSETPOS=2", "2010-06-01T23:30"},
+                {"FREQ=YEARLY;BYMONTH=3,11;BYDAY=1SU", "1990-03-04T02:30"},
+        };
+        long notBefore = epochMs("2024-06-01T00:00", NEW_YORK);
+        long notAfter = epochMs("2026-06-01T00:00", NEW_YORK);
+        for (String[] c : cases) {
+            RecurrenceRule rule = RecurrenceRule.parse(c[0]);
+            long start = epochMs(c[1], NEW_YORK);
+            List<Long> expected = new ArrayList<>();
+            RecurrenceIterator all = new RecurrenceIterator(rule, start, NEW_YORK, start, notAfter);
+            while (all.hasNext()) {
+                long t = all.nextLong();
+                if (t >= notBefore) expected.add(t);
+            }
+            List<Long> actual = new ArrayList<>();
+            new RecurrenceIterator(rule, start, NEW_YORK, notBefore, notAfter).forEachRemaining((long t) -> actual.add(t));
+            assertFalse(expected.isEmpty(), c[0]);
+            assertEquals(expected, actual, c[0]);
+        }
+    }
+
+    // =============================
+    // Zones
+    // =============================
+    @Test
+    void localTimeIsKeptAcrossDst() {
+        assertEquals(List.of("2024-03-09T09:00", "2024-03-10T09:00", "2024-03-11T09:00"),
+                starts("FREQ=DAILY;COUNT=3", "2024-03-09T09:00", NEW_YORK));
+    }
+
+    @Test
+    void localTimeInAGapShiftsForward() {
+        assertEquals(List.of("2024-03-09T02:30", "2024-03-10T03:30", "2024-03-11T02:30"),
+                starts("FREQ=DAILY;COUNT=3", "2024-03-09T02:30", NEW_YORK));
+    }
+
+    // =============================
+    // Rules that never match
+    // =============================
+    @Test
+    void impossibleRulesEndInsteadOfSpinning() {
+        long start = epochMs("2024-01-01T09:00", UTC);
+        for (String rrule : List.of("FREQ=YEARLY;BYMONTH=2;BYMONTHDAY=30",
+                "FREQ=MONTHLY;BYMONTH=4;BYMONTHDAY=31",
+                "FREQ=DAILY;BYMONTH=6;BYMONTHDAY=31",
+                "FREQ=WEEKLY;BYMONTH=9;BYMONTHDAY=31")) {
+            assertFalse(new RecurrenceIterator(RecurrenceRule.parse(rrule), start, UTC, start).hasNext(), rrule);
+        }
+    }
+
+    // =============================
+    // Helpers
+    // =============================
+    private static List<String> starts(String rrule, String dtStart, ZoneId zone) {
+        long start = epochMs(dtStart, zone);
+        return local(new RecurrenceIterator(RecurrenceRule.parse(rrule), start, zone, start), zone, 100);
+    }
+
+    private static List<String> local(RecurrenceIterator it, ZoneId zone, int max) {
+        List<String> out = new ArrayList<>();
+        while (it.hasNext() && out.size() < max) {
+            out.add(LocalDateTime.ofInstant(Instant.ofEpochMilli(it.nextLong()), zone).toString());
+        }
+        return out;
+    }
+
+    private static long epochMs(String local, ZoneId zone) {
+        return LocalDateTime.parse(local).atZone(zone).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,64 @@
+package com.timeblocks.recurrence;
+
+import com.timeblocks.recurrence.RecurrenceRule.Frequency;
+import com.timeblocks.recurrence.RecurrenceRule.WeekdayNum;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecurrenceRuleTest {
+
+    @Test
+    void parsesAllSupportedParts() {
+        RecurrenceRule r = RecurrenceRule.parse("RRULE:freq=monthly;interval=2;count=5;byday=MO,+2TU,-1FR;"
+                + "bymonthday=-1,15;bymonth=12,3;bysetpos=-1;wkst=su");
+        assertEquals(Frequency.MONTHLY, r.getFreq());
+        assertEquals(2, r.getInterval());
+        assertEquals(5, r.getCount());
+        assertEquals(List.of(new WeekdayNum(0, DayOfWeek.MONDAY), new WeekdayNum(2, DayOfWeek.TUESDAY),
+                new WeekdayNum(-1, DayOfWeek.FRIDAY)), r.getByDay());
+        assertArrayEquals(new int[]{-1, 15}, r.getByMonthDay());
+        assertArrayEquals(new int[]{3, 12}, r.getByMonth());
+        assertArrayEquals(new int[]{-1}, r.getBySetPos());
+        assertEquals(DayOfWeek.SUNDAY, r.getWeekStart());
+    }
+
+    @Test
+    void missingFreqDefaultsToWeeklyAndUnknownPartsAreIgnored() {
+        RecurrenceRule r = RecurrenceRule.parse("BYDAY=TU;BYHOUR=9");
+        assertEquals(Frequency.WEEKLY, r.getFreq());
+        assertEquals(1, r.getInterval());
+        assertTrue(r.isUnbounded());
+    }
+
+    @Test
+    void untilWithZIsUtcAndFloatingUntilUsesTheSeriesZone() {
+        ZoneId ny = ZoneId.of("America/New_York");
+        RecurrenceRule utc = RecurrenceRule.parse("FREQ=DAILY;UNTIL=20240105T120000Z");
+        RecurrenceRule floating = RecurrenceRule.parse("FREQ=DAILY;UNTIL=20240105T120000");
+        assertEquals(LocalDateTime.parse("2024-01-05T12:00").atZone(ZoneId.of("UTC")).toInstant().toEpochMilli(),
+                utc.untilEpochMs(ny));
+        assertEquals(LocalDateTime.parse("2024-01-05T12:00").atZone(ny).toInstant().toEpochMilli(),
+                floating.untilEpochMs(ny));
+        assertFalse(utc.isUnbounded());
+        assertEquals(Long.MAX_VALUE, RecurrenceRule.parse("FREQ=DAILY").untilEpochMs(ny));
+    }
+
+    @Test
+    void rejectsMalformedParts() {
+        for (String bad : List.of("", "FREQ=HOURLY", "FREQ=DAILY;COUNT=x", "FREQ=WEEKLY;BYDAY=XX",
+                "FREQ=MONTHLY;BYDAY=0MO", "FREQ=MONTHLY;BYMONTHDAY=0", "FREQ=YEARLY;BYMONTH=13",
+                "FREQ=DAILY;UNTIL=2024-01-05")) {
+            assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse(bad));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.timeblocks.recurrence;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SeriesBoundsTest {
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+    private static final long HOUR_MS = 60L * 60 * 1000;
+
+    @Test
+    void countRulesEndAtTheirLastOccurrence() {
+        List<String> rules = List.of(
+                "FREQ=DAILY;COUNT=400",
+                "FREQ=DAILY;INTERVAL=3;COUNT=97",
+                "FREQ=WEEKLY;INTERVAL=2;COUNT=60",
+                "FREQ=MONTHLY;COUNT=30",
+                "FREQ=YEARLY;INTERVAL=4;COUNT=5",
+                "FREQ=WEEKLY;BYDAY=MO,TH;COUNT=25",
+                "FREQ=MONTHLY;BYDAY=-1FR;COUNT=14",
+                "FREQ=DAILY;COUNT=50;UNTIL=20240201T000000Z");
+        for (String start : List.of("2024-01-10T02:30", "2024-01-31T09:00", "2024-02-29T23:15")) {
+            long dtStart = epochMs(start);
+            for (String rrule : rules) {
+                assertEquals(walk(rrule, dtStart) + HOUR_MS, SeriesBounds.seriesEnd(rrule, dtStart, HOUR_MS, NEW_YORK),
+                        rrule + " from " + start);
+            }
+        }
+    }
+
+    @Test
+    void longWalksFallBackToUntilOrUnbounded() {
+        long dtStart = epochMs("2024-01-01T09:00");
+        int tooMany = SeriesBounds.MAX_COUNT_WALK + 1;
+        assertEquals(SeriesBounds.UNBOUNDED,
+                SeriesBounds.seriesEnd("FREQ=DAILY;BYHOUR=9;BYMONTH=1,2,3;COUNT=" + tooMany, dtStart, HOUR_MS, NEW_YORK));
+        // the plain form is computed directly, however large COUNT is
+        assertEquals(walk("FREQ=DAILY;COUNT=" + tooMany, dtStart) + HOUR_MS,
+                SeriesBounds.seriesEnd("FREQ=DAILY;COUNT=" + tooMany, dtStart, HOUR_MS, NEW_YORK));
+        long until = LocalDateTime.parse("2300-01-01T00:00").atZone(NEW_YORK).toInstant().toEpochMilli();
+        assertEquals(until + HOUR_MS,
+                SeriesBounds.seriesEnd("FREQ=DAILY;BYMONTH=1,2,3;COUNT=" + tooMany + ";UNTIL=23000101T000000",
+                        dtStart, HOUR_MS, NEW_YORK));
+    }
+
+    @Test
+    void oneOffAndOpenSeries() {
+        long dtStart = epochMs("2024-01-01T09:00");
+        assertEquals(dtStart + HOUR_MS, SeriesBounds.seriesEnd(null, dtStart, HOUR_MS, NEW_YORK));
+        assertEquals(dtStart + HOUR_MS, SeriesBounds.seriesEnd("FREQ=DAILY;COUNT=0", dtStart, HOUR_MS, NEW_YORK));
+        assertEquals(dtStart + HOUR_MS, SeriesBounds.seriesEnd("FREQ=NEVER", dtStart, HOUR_MS, NEW_YORK));
+        assertEquals(SeriesBounds.UNBOUNDED, SeriesBounds.seriesEnd("FREQ=WEEKLY", dtStart, HOUR_MS, NEW_YORK));
+    }
+
+    private static long walk(String rrule, long dtStart) {
+        long last = dtStart;
+        RecurrenceIterator it = new RecurrenceIterator(RecurrenceRule.parse(rrule), dtStart, NEW_YORK, dtStart);
+        while (it.hasNext()) last = it.nextLong();
+        return last;
+    }
+
+    private static long epochMs(String local) {
+        return LocalDateTime.parse(local).atZone(NEW_YORK).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,92 @@
+package com.timeblocks.recurrence;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link ZoneOffsetTable#toEpochMs} must resolve local times exactly like {@code ZonedDateTime.of}.
+ */
+class ZoneOffsetTableTest {
+    private static final List<String> ZONES = List.of(
+            "America/New_York",    // spring gap / autumn overlap
+            "Europe/Berlin",
+            "Australia/Lord_Howe", // half-hour DST shift
+            "Pacific/Apia",        // skipped 2011-12-30 entirely
+            "Asia/Kolkata",        // no DST, non-hour offset
+            "UTC");
+
+    @Test
+    void matchesJavaTimeEveryQuarterHourOfSampleYears() {
+        for (String id : ZONES) {
+            ZoneId zone = ZoneId.of(id);
+            ZoneOffsetTable table = ZoneOffsetTable.of(zone);
+            for (int year : new int[]{1950, 2011, 2024}) {
+                LocalDate day = LocalDate.of(year, 1, 1);
+                while (day.getYear() == year) {
+                    for (int minute = 0; minute < 24 * 60; minute += 15) {
+                        assertMatchesJavaTime(table, zone, day, LocalTime.ofSecondOfDay(minute * 60L));
+                    }
+                    day = day.plusDays(1);
+                }
+            }
+        }
+    }
+
+    @Test
+    void gapShiftsForwardAndOverlapTakesTheEarlierOffset() {
+        ZoneId ny = ZoneId.of("America/New_York");
+        ZoneOffsetTable table = ZoneOffsetTable.of(ny);
+        assertEquals(ZonedDateTime.parse("2024-03-10T03:30-04:00[America/New_York]").toInstant().toEpochMilli(),
+                table.toEpochMs(LocalDate.of(2024, 3, 10).toEpochDay(), millis("02:30")));
+        assertEquals(ZonedDateTime.parse("2024-11-03T01:30-04:00[America/New_York]").toInstant().toEpochMilli(),
+                table.toEpochMs(LocalDate.of(2024, 11, 3).toEpochDay(), millis("01:30")));
+        assertMatchesJavaTime(table, ny, LocalDate.of(2024, 3, 10), LocalTime.of(2, 0));
+        assertMatchesJavaTime(table, ny, LocalDate.of(2024, 3, 10), LocalTime.of(2, 59, 59, 999_000_000));
+        assertMatchesJavaTime(table, ny, LocalDate.of(2024, 11, 3), LocalTime.of(0, 59, 59, 999_000_000));
+        assertMatchesJavaTime(table, ny, LocalDate.of(2024, 11, 3), LocalTime.of(2, 0));
+    }
+
+    @Test
+    void fallsBackToJavaTimeOutsideTheTable() {
+        for (String id : ZONES) {
+            ZoneId zone = ZoneId.of(id);
+            ZoneOffsetTable table = ZoneOffsetTable.of(zone);
+            for (LocalDateTime t : List.of(
+                    LocalDateTime.of(1850, 7, 1, 12, 0),
+                    LocalDateTime.of(1899, 12, 31, 23, 0),
+                    LocalDateTime.of(1900, 1, 1, 0, 30),
+                    LocalDateTime.of(2299, 12, 31, 23, 30),
+                    LocalDateTime.of(2350, 3, 28, 2, 30))) {
+                assertMatchesJavaTime(table, zone, t.toLocalDate(), t.toLocalTime());
+            }
+        }
+    }
+
+    @Test
+    void zoneOrUtcFallsBackForMissingOrUnknownIds() {
+        assertEquals(ZoneId.of("Europe/Berlin"), ZoneOffsetTable.zoneOrUtc("Europe/Berlin"));
+        assertEquals(ZoneOffset.UTC, ZoneOffsetTable.zoneOrUtc(null));
+        assertEquals(ZoneOffset.UTC, ZoneOffsetTable.zoneOrUtc(" "));
+        assertEquals(ZoneOffset.UTC, ZoneOffsetTable.zoneOrUtc("Mars/Olympus"));
+        assertEquals(ZoneOffset.UTC, ZoneOffsetTable.zoneOrUtc("+99:00"));
+    }
+
+    private static void assertMatchesJavaTime(ZoneOffsetTable table, ZoneId zone, LocalDate day, LocalTime time) {
+        long expected = ZonedDateTime.of(day, time, zone).toInstant().toEpochMilli();
+        long actual = table.toEpochMs(day.toEpochDay(), time.toNanoOfDay() / 1_000_000L);
+        assertEquals(expected, actual, zone + " " + day + "T" + time);
+    }
+
+    private static long millis(String time) {
+        return LocalTime.parse(time).toNanoOfDay() / 1_000_000L;
+    }
+}
@@ -0,0 +1,158 @@
+package com.timeblocks.service;
+
+import com.timeblocks.service.AutoPlacer.Constraints;
+import com.timeblocks.service.AutoPlacer.Day;
+import com.timeblocks.service.AutoPlacer.Item;
+import com.timeblocks.service.AutoPlacer.Placement;
+import com.timeblocks.service.BusyBitmap.Range;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AutoPlacerTest {
+    private static final ZoneId UTC = ZoneId.of("UTC");
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+    private static final long MINUTE_MS = 60_000L;
+
+    // =============================
+    // freeList
+    // =============================
+    @Test
+    void gapsAreWorkHoursMinusBufferedBusyTime() {
+        Constraints c = constraints(UTC, 9 * 60, 17 * 60, 10, 480);
+        // 2024-01-08 is a Monday
+        List<Day> days = AutoPlacer.freeList(at("2024-01-08T00:00", UTC), at("2024-01-09T00:00", UTC), c, List.of(
+                new Range(at("2024-01-08T08:00", UTC), at("2024-01-08T09:05", UTC)),
+                new Range(at("2024-01-08T12:00", UTC), at("2024-01-08T13:00", UTC)),
+                new Range(at("2024-01-08T12:30", UTC), at("2024-01-08T13:30", UTC)),
+                new Range(at("2024-01-08T16:55", UTC), at("2024-01-08T18:00", UTC))));
+        assertEquals(1, days.size());
+        Day d = days.get(0);
+        assertEquals(LocalDate.of(2024, 1, 8), d.date);
+        assertEquals(List.of(
+                        new Range(at("2024-01-08T09:15", UTC), at("2024-01-08T11:50", UTC)),
+                        new Range(at("2024-01-08T13:40", UTC), at("2024-01-08T16:45", UTC))),
+                gaps(d));
+        // overlapping busy time inside work hours is counted once: 5 + 90 + 5 minutes
+        assertEquals(100, d.usedMinutes);
+    }
+
+    @Test
+    void skipsNonWorkingDaysAndClipsToTheWindow() {
+        Constraints c = constraints(UTC, 9 * 60, 17 * 60, 0, 480);
+        // Friday 2024-01-12 from 15:00 through Monday noon
+        List<Day> days = AutoPlacer.freeList(at("2024-01-12T15:00", UTC), at("2024-01-15T12:00", UTC), c, List.of());
+        assertEquals(2, days.size());
+        assertEquals(List.of(new Range(at("2024-01-12T15:00", UTC), at("2024-01-12T17:00", UTC))), gaps(days.get(0)));
+        assertEquals(List.of(new Range(at("2024-01-15T09:00", UTC), at("2024-01-15T12:00", UTC))), gaps(days.get(1)));
+    }
+
+    @Test
+    void overnightHoursBelongToTheDayTheyStart() {
+        Constraints c = constraints(UTC, 22 * 60, 6 * 60, 0, 480);
+        // Tuesday 03:00 is still Monday's shift, which starts before the window
+        List<Day> days = AutoPlacer.freeList(at("2024-01-09T03:00", UTC), at("2024-01-09T23:00", UTC), c, List.of());
+        assertEquals(2, days.size());
+        assertEquals(LocalDate.of(2024, 1, 8), days.get(0).date);
+        assertEquals(List.of(new Range(at("2024-01-09T03:00", UTC), at("2024-01-09T06:00", UTC))), gaps(days.get(0)));
+        assertEquals(List.of(new Range(at("2024-01-09T22:00", UTC), at("2024-01-09T23:00", UTC))), gaps(days.get(1)));
+    }
+
+    @Test
+    void workHoursFollowTheZoneOnDstDays() {
+        Constraints c = new Constraints(NEW_YORK, EnumSet.allOf(DayOfWeek.class), 9 * 60, 17 * 60, 0, 30, 480);
+        List<Day> days = AutoPlacer.freeList(at("2024-03-10T00:00", NEW_YORK), at("2024-03-11T00:00", NEW_YORK), c, List.of());
+        assertEquals(List.of(new Range(at("2024-03-10T09:00", NEW_YORK), at("2024-03-10T17:00", NEW_YORK))),
+                gaps(days.get(days.size() - 1)));
+    }
+
+    // =============================
+    // Day.take
+    // =============================
+    @Test
+    void takeIsFirstFitAndCutsTheBlockPlusBuffer() {
+        Day d = new Day(LocalDate.of(2024, 1, 8));
+        long base = at("2024-01-08T09:00", UTC);
+        d.addGap(base, base + 20 * MINUTE_MS);
+        d.addGap(base + 60 * MINUTE_MS, base + 180 * MINUTE_MS);
+        long buffer = 5 * MINUTE_MS;
+
+        assertEquals(new Placement("a", base + 60 * MINUTE_MS, base + 90 * MINUTE_MS), d.take("a", 30, buffer, 480));
+        assertEquals(new Placement("b", base, base + 15 * MINUTE_MS), d.take("b", 15, buffer, 480));
+        // 15 + 5 consumed the first gap entirely
+        assertEquals(List.of(new Range(base + 95 * MINUTE_MS, base + 180 * MINUTE_MS)), gaps(d));
+        assertNull(d.take("c", 90, buffer, 480));
+        assertEquals(new Placement("d", base + 95 * MINUTE_MS, base + 180 * MINUTE_MS), d.take("d", 85, buffer, 480));
+        assertEquals(List.of(), gaps(d));
+        assertEquals(130, d.usedMinutes);
+    }
+
+    @Test
+    void takeRespectsTheDailyCap() {
+        Day d = new Day(LocalDate.of(2024, 1, 8));
+        long base = at("2024-01-08T09:00", UTC);
+        d.addGap(base, base + 8 * 60 * MINUTE_MS);
+        d.usedMinutes = 100;
+        assertNull(d.take("a", 30, 0, 120));
+        assertEquals(new Placement("b", base, base + 20 * MINUTE_MS), d.take("b", 20, 0, 120));
+        assertNull(d.take("c", 1, 0, 120));
+    }
+
+    @Test
+    void gapArraysGrow() {
+        Day d = new Day(LocalDate.of(2024, 1, 8));
+        long base = at("2024-01-08T09:00", UTC);
+        for (int i = 0; i < 10; i++) d.addGap(base + i * 20 * MINUTE_MS, base + i * 20 * MINUTE_MS + 10 * MINUTE_MS);
+        assertEquals(10, d.gaps);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(base + i * 20 * MINUTE_MS, d.take("k" + i, 10, 0, 480).start());
+        }
+        assertEquals(0, d.gaps);
+    }
+
+    // =============================
+    // place
+    // =============================
+    @Test
+    void placesPinnedItemsFirstThenLongestFirst() {
+        Constraints c = constraints(UTC, 9 * 60, 12 * 60, 0, 480);
+        AutoPlacer.Result r = AutoPlacer.place(List.of(
+                        new Item("short", 30, null),
+                        new Item("long", 120, null),
+                        new Item("pinned", 60, LocalDate.of(2024, 1, 8)),
+                        new Item("default", 0, null),
+                        new Item("too-long", 240, null)),
+                at("2024-01-08T00:00", UTC), at("2024-01-09T00:00", UTC), c, List.of());
+        assertEquals(List.of(
+                new Placement("pinned", at("2024-01-08T09:00", UTC), at("2024-01-08T10:00", UTC)),
+                new Placement("long", at("2024-01-08T10:00", UTC), at("2024-01-08T12:00", UTC))), r.placed());
+        assertEquals(List.of("too-long", "short", "default"), r.unplaced());
+    }
+
+    // =============================
+    // Helpers
+    // =============================
+    private static Constraints constraints(ZoneId zone, int startMinute, int endMinute, int buffer, int maxDaily) {
+        return new Constraints(zone, EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY),
+                startMinute, endMinute, buffer, 30, maxDaily);
+    }
+
+    private static List<Range> gaps(Day d) {
+        List<Range> out = new ArrayList<>();
+        for (int i = 0; i < d.gaps; i++) out.add(new Range(d.starts[i], d.ends[i]));
+        return out;
+    }
+
+    private static long at(String local, ZoneId zone) {
+        return LocalDateTime.parse(local).atZone(zone).toInstant().toEpochMilli();
+    }
+}
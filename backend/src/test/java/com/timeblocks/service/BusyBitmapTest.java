@@ -0,0 +1,131 @@
+package com.timeblocks.service;
+
+import com.timeblocks.service.BusyBitmap.Range;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.timeblocks.service.BusyBitmap.MINUTE_MS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BusyBitmapTest {
+    private static final ZoneId UTC = ZoneId.of("UTC");
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    // =============================
+    // Day boundaries
+    // =============================
+    @Test
+    void springForwardDayHas23Hours() {
+        BusyBitmap b = new BusyBitmap(LocalDate.of(2024, 3, 9), 3, NEW_YORK, 1);
+        assertEquals(at("2024-03-10T00:00", NEW_YORK), b.dayStart(1));
+        assertEquals(at("2024-03-11T00:00", NEW_YORK), b.dayStart(2));
+        assertEquals(23 * 60 * MINUTE_MS, b.dayStart(2) - b.dayStart(1));
+        assertEquals((23 * 60 + 63) / 64, b.day(1).length);
+        assertEquals((24 * 60 + 63) / 64, b.day(0).length);
+
+        // local noon is eleven elapsed hours into the short day
+        b.mark(at("2024-03-10T12:00", NEW_YORK), at("2024-03-10T12:01", NEW_YORK));
+        assertEquals(List.of(11 * 60), setBits(b.day(1)));
+        assertEquals(List.of(), setBits(b.day(0)));
+        assertEquals(List.of(), setBits(b.day(2)));
+    }
+
+    @Test
+    void fallBackDayHas25Hours() {
+        BusyBitmap b = new BusyBitmap(LocalDate.of(2024, 11, 2), 3, NEW_YORK, 1);
+        assertEquals(25 * 60 * MINUTE_MS, b.dayStart(2) - b.dayStart(1));
+        assertEquals((25 * 60 + 63) / 64, b.day(1).length);
+
+        // the last local hour of the long day still belongs to it, not to the next one
+        b.mark(at("2024-11-03T23:59", NEW_YORK), at("2024-11-04T00:01", NEW_YORK));
+        assertEquals(List.of(25 * 60 - 1), setBits(b.day(1)));
+        assertEquals(List.of(0), setBits(b.day(2)));
+        assertEquals(at("2024-11-05T00:00", NEW_YORK), b.end());
+    }
+
+    // =============================
+    // Bit ranges across words
+    // =============================
+    @Test
+    void rangesAcrossWordBoundaries() {
+        int[][] cases = {{0, 1}, {63, 64}, {63, 65}, {64, 128}, {10, 200}, {127, 129}, {1, 1439}, {1376, 1440}};
+        for (int[] c : cases) {
+            BusyBitmap b = utcDay();
+            b.mark(slot(b, c[0]), slot(b, c[1]));
+            String label = c[0] + ".." + c[1];
+            assertEquals(List.of(new Range(slot(b, c[0]), slot(b, c[1]))), b.busyRanges(), label);
+            assertEquals((c[1] - c[0]) * MINUTE_MS, b.busyMs(), label);
+            assertTrue(b.isFree(b.origin(), slot(b, c[0])), label);
+            assertFalse(b.isFree(slot(b, c[0]), slot(b, c[0] + 1)), label);
+            assertFalse(b.isFree(slot(b, c[1] - 1), slot(b, c[1])), label);
+            assertTrue(b.isFree(slot(b, c[1]), b.end()), label);
+        }
+    }
+
+    @Test
+    void freeRangesSkipGapsShorterThanTheMinimum() {
+        BusyBitmap b = utcDay();
+        b.mark(slot(b, 60), slot(b, 120));
+        b.mark(slot(b, 130), slot(b, 200));
+        assertEquals(List.of(new Range(b.origin(), slot(b, 60)), new Range(slot(b, 200), b.end())),
+                b.freeRanges(30 * MINUTE_MS));
+        assertEquals(List.of(new Range(slot(b, 60), slot(b, 120)), new Range(slot(b, 130), slot(b, 200))),
+                b.busyRanges());
+    }
+
+    @Test
+    void marksRoundOutwardAndClipToTheWindow() {
+        BusyBitmap b = new BusyBitmap(LocalDate.of(2024, 1, 1), 1, UTC, 15);
+        b.mark(b.origin() + 20 * MINUTE_MS, b.origin() + 31 * MINUTE_MS);
+        b.mark(b.origin() - 60 * MINUTE_MS, b.origin() + MINUTE_MS);
+        b.mark(b.end() - MINUTE_MS, b.end() + 60 * MINUTE_MS);
+        assertEquals(List.of(new Range(b.origin(), b.origin() + 45 * MINUTE_MS),
+                new Range(b.end() - 15 * MINUTE_MS, b.end())), b.busyRanges());
+    }
+
+    @Test
+    void orAndCopy() {
+        BusyBitmap a = utcDay();
+        BusyBitmap b = utcDay();
+        a.mark(slot(a, 0), slot(a, 70));
+        b.mark(slot(b, 65), slot(b, 140));
+        BusyBitmap before = a.copy();
+        a.or(b);
+        assertEquals(List.of(new Range(slot(a, 0), slot(a, 140))), a.busyRanges());
+        assertEquals(List.of(new Range(slot(a, 0), slot(a, 70))), before.busyRanges());
+        assertThrows(IllegalArgumentException.class,
+                () -> a.or(new BusyBitmap(LocalDate.of(2024, 1, 2), 1, UTC, 1)));
+        assertThrows(IllegalArgumentException.class, () -> new BusyBitmap(LocalDate.of(2024, 1, 1), 1, UTC, 7));
+    }
+
+    // =============================
+    // Helpers
+    // =============================
+    private static BusyBitmap utcDay() {
+        return new BusyBitmap(LocalDate.of(2024, 1, 1), 1, UTC, 1);
+    }
+
+    private static long slot(BusyBitmap b, int i) {
+        return b.origin() + i * MINUTE_MS;
+    }
+
+    private static List<Integer> setBits(long[] words) {
+        List<Integer> out = new ArrayList<>();
+        for (int w = 0; w < words.length; w++) {
+            for (int i = 0; i < 64; i++) if ((words[w] & (1L << i)) != 0) out.add((w << 6) + i);
+        }
+        return out;
+    }
+
+    private static long at(String local, ZoneId zone) {
+        return LocalDateTime.parse(local).atZone(zone).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,179 @@
+package com.timeblocks.service;
+
+import com.timeblocks.service.IcsReader.VEvent;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IcsReaderTest {
+    private static final ZoneId UTC = ZoneId.of("UTC");
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+    private static final long HOUR_MS = 60L * 60 * 1000;
+
+    // =============================
+    // Lines and parameters
+    // =============================
+    @Test
+    void unfoldsContinuationLinesAndUnescapesText() throws IOException {
+        VEvent e = single(
+                "SUMMARY:Quarterly planning\\, part one",
+                "  continued\\nnext line",
+                "\twith tab fold",
+                "UID:abc",
+                "DTSTART:20240105T090000Z",
+                "DTEND:20240105T100000Z");
+        assertEquals("Quarterly planning, part one continued\nnext linewith tab fold", e.summary());
+        assertEquals("abc", e.uid());
+    }
+
+    @Test
+    void quotedParametersMayHoldSeparators() throws IOException {
+        VEvent e = single(
+                "DTSTART;X-NOTE=\"a;b:c\";TZID=\"Europe/Berlin\":20240105T090000",
+                "DTEND;TZID=Europe/Berlin:20240105T100000");
+        assertEquals("Europe/Berlin", e.tzid());
+        assertEquals(at("2024-01-05T09:00", BERLIN), e.start());
+        assertEquals(at("2024-01-05T10:00", BERLIN), e.end());
+    }
+
+    @Test
+    void unknownAndMissingZonesReadAsUtc() throws IOException {
+        VEvent unknown = single("DTSTART;TZID=Mars/Olympus:20240105T090000", "DURATION:PT1H");
+        assertEquals("UTC", unknown.tzid());
+        assertEquals(at("2024-01-05T09:00", UTC), unknown.start());
+        VEvent floating = single("DTSTART:20240105T090000", "DURATION:PT1H");
+        assertEquals("UTC", floating.tzid());
+        assertEquals(at("2024-01-05T09:00", UTC), floating.start());
+    }
+
+    @Test
+    void nestedComponentsAndOtherBlocksAreSkipped() throws IOException {
+        List<VEvent> out = read(
+                "BEGIN:VTIMEZONE", "TZID:Europe/Berlin", "BEGIN:STANDARD", "DTSTART:19701025T030000",
+                "END:STANDARD", "END:VTIMEZONE",
+                "BEGIN:VEVENT", "UID:one", "DTSTART:20240105T090000Z", "DURATION:PT1H",
+                "BEGIN:VALARM", "SUMMARY:alarm", "DURATION:PT15M", "END:VALARM",
+                "SUMMARY:event", "END:VEVENT");
+        assertEquals(1, out.size());
+        assertEquals("event", out.get(0).summary());
+        assertEquals(HOUR_MS, out.get(0).end() - out.get(0).start());
+    }
+
+    // =============================
+    // DATE vs DATE-TIME
+    // =============================
+    @Test
+    void dateValuesAreAllDay() throws IOException {
+        VEvent e = single("DTSTART;VALUE=DATE:20240105");
+        assertTrue(e.allDay());
+        assertEquals(at("2024-01-05T00:00", UTC), e.start());
+        assertEquals(24 * HOUR_MS, e.end() - e.start());
+
+        VEvent bare = single("DTSTART:20240105", "DTEND:20240108");
+        assertTrue(bare.allDay());
+        assertEquals(3 * 24 * HOUR_MS, bare.end() - bare.start());
+    }
+
+    @Test
+    void dateTimeValuesAreTimed() throws IOException {
+        VEvent e = single("DTSTART:20240105T090000Z", "DTEND:20240105T093000Z");
+        assertFalse(e.allDay());
+        assertEquals(at("2024-01-05T09:00", UTC), e.start());
+        assertEquals(at("2024-01-05T09:30", UTC), e.end());
+    }
+
+    // =============================
+    // DURATION
+    // =============================
+    @Test
+    void parsesDurations() {
+        assertEquals(90 * 60_000L, IcsReader.durationMs("PT1H30M"));
+        assertEquals(24 * HOUR_MS, IcsReader.durationMs("P1D"));
+        assertEquals(26 * HOUR_MS, IcsReader.durationMs("p1dt2h"));
+        assertEquals(14 * 24 * HOUR_MS, IcsReader.durationMs("P2W"));
+        assertEquals(7 * 24 * HOUR_MS, IcsReader.durationMs("+P1W"));
+        assertEquals(-15 * 60_000L, IcsReader.durationMs("-PT15M"));
+    }
+
+    @Test
+    void eventsWithoutPositiveLengthOrStartAreSkipped() throws IOException {
+        IcsReader reader = new IcsReader(new StringReader(String.join("\n",
+                "BEGIN:VEVENT", "DTSTART:20240105T090000Z", "END:VEVENT",
+                "BEGIN:VEVENT", "DTSTART:20240105T090000Z", "DURATION:-PT1H", "END:VEVENT",
+                "BEGIN:VEVENT", "SUMMARY:no start", "END:VEVENT",
+                "BEGIN:VEVENT", "DTSTART:2024-01-05", "END:VEVENT",
+                "BEGIN:VEVENT", "DTSTART:20240105T090000Z", "DURATION:PT1H", "END:VEVENT")));
+        List<VEvent> out = new ArrayList<>();
+        reader.read(out::add);
+        assertEquals(1, out.size());
+        assertEquals(4, reader.skipped());
+    }
+
+    // =============================
+    // EXDATE / RECURRENCE-ID
+    // =============================
+    @Test
+    void dateOnlyExDatesTakeTheSeriesTimeOfDay() throws IOException {
+        VEvent e = single(
+                "DTSTART;TZID=Europe/Berlin:20240105T090000",
+                "DURATION:PT1H",
+                "RRULE:FREQ=DAILY",
+                "EXDATE;VALUE=DATE:20240106,20240107",
+                "EXDATE;TZID=Europe/Berlin:20240110T090000",
+                "EXDATE:20240111T080000Z");
+        assertEquals("FREQ=DAILY", e.rrule());
+        assertEquals(List.of(at("2024-01-06T09:00", BERLIN), at("2024-01-07T09:00", BERLIN),
+                at("2024-01-10T09:00", BERLIN), at("2024-01-11T08:00", UTC)), e.exDates());
+        assertNull(e.recurrenceId());
+    }
+
+    @Test
+    void recurrenceIdResolvesInTheEventZone() throws IOException {
+        VEvent moved = single(
+                "UID:series",
+                "RECURRENCE-ID;VALUE=DATE:20240330",
+                "DTSTART;TZID=Europe/Berlin:20240331T100000",
+                "DTEND;TZID=Europe/Berlin:20240331T110000");
+        // the 30th is still on winter time; the time of day comes from DTSTART
+        assertEquals(at("2024-03-30T10:00", BERLIN), (long) moved.recurrenceId());
+        assertEquals(at("2024-03-31T10:00", BERLIN), moved.start());
+
+        VEvent allDay = single("RECURRENCE-ID;VALUE=DATE:20240330", "DTSTART;VALUE=DATE:20240331");
+        assertEquals(at("2024-03-30T00:00", UTC), (long) allDay.recurrenceId());
+    }
+
+    // =============================
+    // Helpers
+    // =============================
+    private static VEvent single(String... props) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("BEGIN:VCALENDAR");
+        lines.add("BEGIN:VEVENT");
+        lines.addAll(List.of(props));
+        lines.add("END:VEVENT");
+        lines.add("END:VCALENDAR");
+        List<VEvent> out = read(lines.toArray(String[]::new));
+        assertEquals(1, out.size());
+        return out.get(0);
+    }
+
+    private static List<VEvent> read(String... lines) throws IOException {
+        List<VEvent> out = new ArrayList<>();
+        new IcsReader(new StringReader(String.join("\r\n", lines) + "\r\n")).read(out::add);
+        return out;
+    }
+
+    private static long at(String local, ZoneId zone) {
+        return LocalDateTime.parse(local).atZone(zone).toInstant().toEpochMilli();
+    }
+}
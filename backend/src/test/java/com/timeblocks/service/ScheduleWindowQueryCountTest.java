@@ -0,0 +1,125 @@
+package com.timeblocks.service;
+
+import com.timeblocks.model.Schedule;
+import com.timeblocks.model.ScheduleException;
+import com.timeblocks.repo.UpsertRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * GET /api/schedules loads a window with a fixed number of statements: the series, the series
+ * moved into the window, their exceptions and their tasks. Neither more series nor a longer
+ * window may add statements (no per-series or per-occurrence lookups).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // the expansion path; cached windows are one scan plus the same batched lookups
+        "timeblocks.occurrences.cache.enabled=false",
+        "timeblocks.occurrences.events.enabled=false",
+        "timeblocks.occurrences.parallel.enabled=false"
+})
+@ActiveProfiles("dev")
+class ScheduleWindowQueryCountTest {
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+    private static final long START = Instant.parse("2024-01-01T09:00:00Z").toEpochMilli();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws IOException {
+        Path dir = Files.createTempDirectory("timeblocks-test");
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + dir.resolve("test.sqlite") + "?busy_timeout=5000");
+    }
+
+    @Autowired ScheduleOccurrenceService occurrences;
+    @Autowired UpsertRepository upserts;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired EntityManagerFactory emf;
+
+    private Statistics stats;
+
+    @BeforeEach
+    void setUp() {
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+        jdbc.update("DELETE FROM schedule_exceptions");
+        jdbc.update("DELETE FROM schedules");
+        jdbc.update("DELETE FROM tasks");
+        jdbc.update("DELETE FROM types");
+        jdbc.update("INSERT INTO types (id, name) VALUES (1, 'Work')");
+    }
+
+    @Test
+    void windowStatementsDoNotGrowWithSeriesOrWindowLength() {
+        seed(0, 10);
+        long smallWeek = statements(7);
+        long smallQuarter = statements(90);
+
+        seed(10, 300);
+        long largeWeek = statements(7);
+        long largeQuarter = statements(90);
+
+        assertTrue(smallWeek <= 4, "window load issued " + smallWeek + " statements");
+        assertEquals(smallWeek, smallQuarter);
+        assertEquals(smallWeek, largeWeek);
+        assertEquals(smallWeek, largeQuarter);
+    }
+
+    private long statements(int days) {
+        stats.clear();
+        List<ScheduleOccurrence> out = occurrences.window(START, START + days * DAY_MS, ScheduleFilter.NONE);
+        assertTrue(!out.isEmpty());
+        return stats.getPrepareStatementCount();
+    }
+
+    /** Series {@code from..to-1}: daily, each with its own task, one skipped and one moved instance. */
+    private void seed(int from, int to) {
+        List<Schedule> series = new ArrayList<>();
+        List<ScheduleException> exceptions = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            jdbc.update("INSERT INTO tasks (id, type_id, title) VALUES (?, 1, ?)", i + 1, "Task " + i);
+            Schedule s = new Schedule();
+            s.setId("s" + i);
+            s.setTaskId(String.valueOf(i + 1));
+            s.setStartTsUtc(START + i * 60_000L);
+            s.setEndTsUtc(START + i * 60_000L + 30 * 60_000L);
+            s.setTimezone("UTC");
+            s.setLaneId("lane" + (i % 5));
+            s.setRecurrenceRule("FREQ=DAILY");
+            s.setCreatedAt(START);
+            s.setUpdatedAt(START);
+            series.add(s);
+            exceptions.add(exception(s, 2, null));
+            exceptions.add(exception(s, 3, s.getStartTsUtc() + 3 * DAY_MS + 2 * 60 * 60_000L));
+        }
+        upserts.saveAll(series);
+        upserts.upsert(UpsertRepository.SCHEDULE_EXCEPTIONS, exceptions);
+    }
+
+    private static ScheduleException exception(Schedule s, int day, Long movedTo) {
+        ScheduleException x = new ScheduleException();
+        x.setId(s.getId() + ":" + day);
+        x.setScheduleId(s.getId());
+        x.setExDateUtc(s.getStartTsUtc() + day * DAY_MS);
+        x.setChangeStartTsUtc(movedTo);
+        x.setChangeEndTsUtc(movedTo != null ? movedTo + 30 * 60_000L : null);
+        x.setCreatedAt(START);
+        return x;
+    }
+}